@@ -684,6 +684,26 @@ function ResearchPage({ sidebarOpen = true }: { sidebarOpen?: boolean }) {
     setIsConnected(false);
   }, []);
 
+  const applyTimelineItem = useCallback((researchId: string, data: any) => {
+    if (data.kind === 'event' && data.event) {
+      const evt = data.event as WorkflowEvent;
+      const key = `evt-${evt.id}`;
+      if (!processedIdsRef.current.has(key)) {
+        processedIdsRef.current.add(key);
+        setCurrentResearch(prev => prev ? { ...prev, events: [...prev.events, evt] } : prev);
+      }
+    } else if (data.kind === 'message' && data.message) {
+      const chatMsg = data.message as ChatMessage;
+      const key = `msg-${chatMsg.id}`;
+      if (!processedIdsRef.current.has(key)) {
+        processedIdsRef.current.add(key);
+        setCurrentResearch(prev => prev ? { ...prev, messages: [...prev.messages, chatMsg] } : prev);
+        // 只在收到 message 时刷新状态（状态变化通常伴随消息）
+        syncResearchStatus(researchId);
+      }
+    }
+  }, [syncResearchStatus]);
+
   const connectSSE = useCallback((researchId: string, options?: { resetCursor?: boolean }) => {
     if (!researchId) return;
     shouldAutoReconnectRef.current = true;
@@ -744,23 +764,10 @@ function ResearchPage({ sidebarOpen = true }: { sidebarOpen?: boolean }) {
        }
         try {
           const data = JSON.parse(msg.data);
-          
-          if (data.kind === 'event' && data.event) {
-            const evt = data.event as WorkflowEvent;
-            const key = `evt-${evt.id}`;
-            if (!processedIdsRef.current.has(key)) {
-              processedIdsRef.current.add(key);
-              setCurrentResearch(prev => prev ? { ...prev, events: [...prev.events, evt] } : prev);
-            }
-          } else if (data.kind === 'message' && data.message) {
-            const chatMsg = data.message as ChatMessage;
-            const key = `msg-${chatMsg.id}`;
-            if (!processedIdsRef.current.has(key)) {
-              processedIdsRef.current.add(key);
-              setCurrentResearch(prev => prev ? { ...prev, messages: [...prev.messages, chatMsg] } : prev);
-              // 只在收到 message 时刷新状态（状态变化通常伴随消息）
-              syncResearchStatus(researchId);
-            }
+          // 连接时服务端先发一帧快照（缺失的时间线），之后是逐条增量
+          const items = data.kind === 'snapshot' ? (data.items ?? []) : [data];
+          for (const item of items) {
+            applyTimelineItem(researchId, item);
           }
         } catch (e) {}
       },
@@ -769,7 +776,7 @@ function ResearchPage({ sidebarOpen = true }: { sidebarOpen?: boolean }) {
         scheduleReconnect();
       }
     });
-  }, [clientId, syncResearchStatus]);
+  }, [clientId, applyTimelineItem, syncResearchStatus]);
 
   const sendMessage = async () => {
     if (!inputValue.trim()) return;
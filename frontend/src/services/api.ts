@@ -51,6 +51,9 @@ export interface ChatMessage {
   researchId: string;
   role: 'user' | 'assistant';
   content: string;
+  // Set when the body lives in the blob store; content is then null and fetched on demand
+  contentLength?: number;
+  contentUrl?: string;
   sequenceNo?: number;
   createTime: string;
 }
@@ -61,6 +64,8 @@ export interface WorkflowEvent {
   type: string; // e.g., 'SCOPE', 'SUPERVISOR', 'RESEARCHER'
   title: string;
   content: string;
+  contentLength?: number;
+  contentUrl?: string;
   parentEventId?: number;
   sequenceNo?: number;
   createTime: string;
@@ -205,7 +210,14 @@ export const researchApi = {
     if (response.data.code !== 0) {
       throw new Error(response.data.message || 'Failed to get messages');
     }
-    return response.data.data;
+    const data = response.data.data;
+    // Large assistant replies (the report) come back as a content URL; fetch their bodies
+    data.messages = await Promise.all((data.messages || []).map(async (message) => {
+      if (message.role !== 'assistant' || !message.contentUrl || message.content) return message;
+      const body = await researchClient.get<string>(`${API_ROOT}${message.contentUrl}`, { responseType: 'text' });
+      return { ...message, content: body.data };
+    }));
+    return data;
   },
 
   getHistory: async (): Promise<ResearchStatusResponse[]> => {
@@ -0,0 +1,60 @@
+package dev.chanler.researcher.application.agent;
+
+import dev.chanler.researcher.application.state.SearchContext;
+import dev.chanler.researcher.application.state.SourceRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * String assembly of SearchAgent.summarize()
+ * @author: Chanler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SearchRenderBenchmark {
+
+    @Param({"3", "10", "30"})
+    public int notes;
+
+    private SearchContext context;
+
+    @Setup
+    public void setup() {
+        context = SearchContext.builder()
+                .query("benchmark query")
+                .maxResults(notes)
+                .topic("general")
+                .build();
+        SourceRegistry registry = new SourceRegistry();
+        String summary = "<summary>" + "摘要 summary ".repeat(150) + "</summary>";
+        for (int i = 0; i < notes; i++) {
+            String url = "https://example.com/" + i;
+            SourceRegistry.Source source = registry.register(url, "Title " + i, summary, 1L).source();
+            if (i % 5 == 4) {
+                context.getReusedSources().add(source);
+            } else {
+                context.getSearchNotes().add("\n--- SOURCE " + source.tag() + " ---\n[Title " + i + "]\nURL: " + url + "\n" + summary);
+            }
+        }
+    }
+
+    @Benchmark
+    public String render() {
+        return SearchAgent.render(context);
+    }
+}
@@ -0,0 +1,55 @@
+package dev.chanler.researcher.application.prompt;
+
+import cn.hutool.core.util.StrUtil;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static dev.chanler.researcher.application.prompt.SearchPrompts.SUMMARIZE_WEBPAGE_PROMPT;
+
+/**
+ * StrUtil.format rendering of the webpage summary prompt with large page content
+ * @author: Chanler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class PromptRenderBenchmark {
+
+    @Param({"10000", "100000", "500000"})
+    public int contentLength;
+
+    private Map<String, Object> params;
+
+    @Setup
+    public void setup() {
+        String content = "网页正文 webpage body text. ".repeat(Math.max(1, contentLength / 25));
+        params = Map.of("webpage_content", content, "date", "2025-01-01");
+    }
+
+    @Benchmark
+    public String strUtilFormat() {
+        return StrUtil.format(SUMMARIZE_WEBPAGE_PROMPT, params);
+    }
+
+    @Benchmark
+    public String stringReplace() {
+        return SUMMARIZE_WEBPAGE_PROMPT
+                .replace("{date}", (String) params.get("date"))
+                .replace("{webpage_content}", (String) params.get("webpage_content"));
+    }
+}
@@ -0,0 +1,84 @@
+package dev.chanler.researcher.infra.sse;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import dev.chanler.researcher.domain.entity.WorkflowEvent;
+import dev.chanler.researcher.infra.data.TimelineItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost of fanning one timeline item out to N SSE clients: building the event and
+ * serializing its payload per client versus once
+ * @author: Chanler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class SseEventBenchmark {
+
+    @Param({"1", "10", "100"})
+    public int clients;
+
+    private ObjectMapper objectMapper;
+    private TimelineItem item;
+
+    @Setup
+    public void setup() {
+        objectMapper = JsonMapper.builder().findAndAddModules().build();
+        WorkflowEvent event = WorkflowEvent.builder()
+                .id(42L)
+                .researchId("0123456789abcdef0123456789abcdef")
+                .type("RESEARCH")
+                .title("分析中...")
+                .content("研究内容 research content ".repeat(100))
+                .sequenceNo(42)
+                .createTime(LocalDateTime.of(2025, 1, 1, 12, 0))
+                .build();
+        item = TimelineItem.builder()
+                .kind("event")
+                .researchId(event.getResearchId())
+                .sequenceNo(42)
+                .event(event)
+                .build();
+    }
+
+    @Benchmark
+    public void buildPerClient(Blackhole blackhole) {
+        for (int i = 0; i < clients; i++) {
+            blackhole.consume(SseHub.timelineEvent(item).build());
+        }
+    }
+
+    @Benchmark
+    public void serializePerClient(Blackhole blackhole) throws JsonProcessingException {
+        for (int i = 0; i < clients; i++) {
+            blackhole.consume(objectMapper.writeValueAsString(item));
+        }
+    }
+
+    @Benchmark
+    public void serializeOnce(Blackhole blackhole) throws JsonProcessingException {
+        String json = objectMapper.writeValueAsString(item);
+        for (int i = 0; i < clients; i++) {
+            blackhole.consume(json);
+        }
+    }
+}
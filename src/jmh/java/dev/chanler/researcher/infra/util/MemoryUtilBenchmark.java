@@ -0,0 +1,65 @@
+package dev.chanler.researcher.infra.util;
+
+import dev.langchain4j.agent.tool.ToolExecutionRequest;
+import dev.langchain4j.data.message.AiMessage;
+import dev.langchain4j.data.message.ToolExecutionResultMessage;
+import dev.langchain4j.data.message.UserMessage;
+import dev.langchain4j.memory.ChatMemory;
+import dev.langchain4j.memory.chat.MessageWindowChatMemory;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * MemoryUtil.toBufferString over a chat memory of mixed message types
+ * @author: Chanler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class MemoryUtilBenchmark {
+
+    @Param({"10", "100"})
+    public int messages;
+
+    @Param({"2000"})
+    public int messageLength;
+
+    private ChatMemory memory;
+
+    @Setup
+    public void setup() {
+        memory = MessageWindowChatMemory.withMaxMessages(messages + 1);
+        String text = "研究发现 finding ".repeat(Math.max(1, messageLength / 14));
+        ToolExecutionRequest request = ToolExecutionRequest.builder()
+                .id("call_1")
+                .name("tavilySearch")
+                .arguments("{\"query\":\"benchmark\"}")
+                .build();
+        for (int i = 0; i < messages; i++) {
+            switch (i % 3) {
+                case 0 -> memory.add(UserMessage.from(text));
+                case 1 -> memory.add(AiMessage.from(text));
+                default -> memory.add(ToolExecutionResultMessage.from(request, text));
+            }
+        }
+    }
+
+    @Benchmark
+    public String toBufferString() {
+        return MemoryUtil.toBufferString(memory);
+    }
+}
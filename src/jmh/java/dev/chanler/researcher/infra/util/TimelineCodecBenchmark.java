@@ -0,0 +1,94 @@
+package dev.chanler.researcher.infra.util;
+
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import dev.chanler.researcher.domain.entity.WorkflowEvent;
+import dev.chanler.researcher.infra.data.TimelineItem;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * CacheUtil TimelineItem JSON codec and the decode + sort done by readFromRedis
+ * @author: Chanler
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+public class TimelineCodecBenchmark {
+
+    @Param({"200", "20000"})
+    public int contentLength;
+
+    @Param({"50", "500"})
+    public int timelineSize;
+
+    private CacheUtil cacheUtil;
+    private TimelineItem item;
+    private String json;
+    private Set<String> timeline;
+
+    @Setup
+    public void setup() {
+        cacheUtil = new CacheUtil(null, null, null, null,
+                JsonMapper.builder().findAndAddModules().build(), null, null, null, null, null, null, null, null);
+        item = event(1, contentLength);
+        json = cacheUtil.serialize(item);
+        // ZSET rangeByScore 返回的集合不保证顺序
+        timeline = new HashSet<>();
+        for (int seq = timelineSize; seq >= 1; seq--) {
+            timeline.add(cacheUtil.serialize(event(seq, contentLength)));
+        }
+    }
+
+    @Benchmark
+    public String serialize() {
+        return cacheUtil.serialize(item);
+    }
+
+    @Benchmark
+    public TimelineItem deserialize() {
+        return cacheUtil.deserialize(json);
+    }
+
+    @Benchmark
+    public List<TimelineItem> decodeSorted() {
+        return cacheUtil.decodeSorted(new ArrayList<>(timeline));
+    }
+
+    static TimelineItem event(int seq, int contentLength) {
+        WorkflowEvent event = WorkflowEvent.builder()
+                .id((long) seq)
+                .researchId("0123456789abcdef0123456789abcdef")
+                .type("SEARCH")
+                .title("找到 3 个相关结果 #" + seq)
+                .content("研究内容 research content ".repeat(Math.max(1, contentLength / 22)))
+                .parentEventId(1L)
+                .sequenceNo(seq)
+                .createTime(LocalDateTime.of(2025, 1, 1, 12, 0))
+                .build();
+        return TimelineItem.builder()
+                .kind("event")
+                .researchId(event.getResearchId())
+                .sequenceNo(seq)
+                .event(event)
+                .build();
+    }
+}
@@ -4,22 +4,44 @@ import org.springframework.stereotype.Component;
 
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chanler.researcher.infra.async.AgentTaskExecutor;
 import dev.chanler.researcher.infra.data.EventType;
+import dev.chanler.researcher.infra.exception.TokenBudgetExceededException;
+import dev.chanler.researcher.infra.exception.WorkflowException;
+import dev.chanler.researcher.application.data.ReportMode;
+import dev.chanler.researcher.application.data.TokenStage;
+import dev.chanler.researcher.application.data.ModelRole;
 import dev.chanler.researcher.application.data.WorkflowStatus;
 import dev.chanler.researcher.infra.util.EventPublisher;
+import dev.chanler.researcher.infra.util.TraceUtil;
 import dev.chanler.researcher.application.model.ModelHandler;
+import dev.chanler.researcher.application.model.TokenMeter;
+import dev.chanler.researcher.application.schema.ReportSchema;
 import dev.chanler.researcher.application.state.DeepResearchState;
+import dev.chanler.researcher.application.state.ResearchUnit;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ResponseFormat;
+import dev.langchain4j.model.chat.request.ResponseFormatType;
+import dev.langchain4j.model.chat.request.json.JsonSchema;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.output.TokenUsage;
+import dev.langchain4j.service.output.JsonSchemas;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 import static dev.chanler.researcher.application.prompt.ReportPrompts.REPORT_AGENT_PROMPT;
+import static dev.chanler.researcher.application.prompt.ReportPrompts.REPORT_MERGE_PROMPT;
+import static dev.chanler.researcher.application.prompt.ReportPrompts.REPORT_SECTION_PROMPT;
 
 /**
  * Report Agent - generates a final report based on researchers' notes
@@ -30,25 +52,61 @@ import static dev.chanler.researcher.application.prompt.ReportPrompts.REPORT_AGE
 @Slf4j
 public class ReportAgent {
     private final ModelHandler modelHandler;
+    private final ObjectMapper objectMapper;
     private final EventPublisher eventPublisher;
+    private final TraceUtil traceUtil;
+    private final TokenMeter tokenMeter;
+    private final AgentTaskExecutor agentTaskExecutor;
+
+    private static final int DIGEST_LENGTH = 800;
 
     public String run(DeepResearchState state) {
         state.setStatus(WorkflowStatus.IN_REPORT);
-        eventPublisher.publishEvent(state.getResearchId(), 
+        Long reportEventId = eventPublisher.publishEvent(state.getResearchId(),
                 EventType.REPORT, "正在生成研究报告...", null);
-        AgentAbility agent = AgentAbility.builder()
-                .memory(MessageWindowChatMemory.withMaxMessages(100))
-                .chatModel(modelHandler.getModel(state.getResearchId()))
-                .streamingChatModel(modelHandler.getStreamModel(state.getResearchId()))
-                .build();
-        UserMessage userMessage = UserMessage.from(
-            StrUtil.format(REPORT_AGENT_PROMPT, Map.of(
-                "research_brief", state.getResearchBrief(),
-                "date", DateUtil.today(),
-                "findings", StrUtil.join("\n", state.getSupervisorNotes())
-            )));
-        agent.getMemory().add(userMessage);
-        action(agent, state);
+        state.setCurrentReportEventId(reportEventId);
+        try {
+            List<ResearchUnit> units = state.getResearchUnits();
+            String reportMode = state.getBudget().getReportMode();
+            if (ReportMode.INCREMENTAL.equals(reportMode) && !units.isEmpty()) {
+                merge(state, units.stream().map(ResearchUnit::sectionDraft).toList());
+                return state.getReport();
+            }
+            if (ReportMode.MAP_REDUCE.equals(reportMode) && !units.isEmpty()) {
+                eventPublisher.publishEvent(state.getResearchId(), EventType.REPORT,
+                        "按 " + units.size() + " 个研究单元分章节撰写", null, reportEventId);
+                merge(state, draftSections(state, units));
+                return state.getReport();
+            }
+
+            String prompt = StrUtil.format(REPORT_AGENT_PROMPT, Map.of(
+                    "research_brief", state.getResearchBrief(),
+                    "date", DateUtil.today(),
+                    "findings", StrUtil.join("\n", state.getSupervisorNotes()),
+                    "sources", state.getSourceRegistry().toReferenceList()
+            ));
+            long estimatedTokens = TokenMeter.estimate(prompt);
+            long threshold = state.getBudget().getReportMapReduceThresholdTokens();
+            if (threshold > 0 && estimatedTokens > threshold && units.size() > 1) {
+                // 研究发现过大时一次性撰写接近上下文上限且是最慢的单次调用，改为按研究单元并行起草
+                log.info("Report switches to map-reduce: researchId={}, estimatedTokens={}, threshold={}, units={}",
+                        state.getResearchId(), estimatedTokens, threshold, units.size());
+                eventPublisher.publishEvent(state.getResearchId(), EventType.REPORT,
+                        "研究发现较多，按 " + units.size() + " 个研究单元分章节撰写", null, reportEventId);
+                merge(state, draftSections(state, units));
+                return state.getReport();
+            }
+
+            AgentAbility agent = AgentAbility.builder()
+                    .memory(MessageWindowChatMemory.withMaxMessages(100))
+                    .chatModel(modelHandler.getModel(state.getResearchId(), ModelRole.WRITER))
+                    .streamingChatModel(modelHandler.getStreamModel(state.getResearchId(), ModelRole.WRITER))
+                    .build();
+            agent.getMemory().add(UserMessage.from(prompt));
+            action(agent, state);
+        } finally {
+            traceUtil.closeSpan(reportEventId);
+        }
         return state.getReport();
     }
 
@@ -57,13 +115,158 @@ public class ReportAgent {
                 .messages(agent.getMemory().messages())
                 .build();
         ChatResponse chatResponse = agent.getChatModel().chat(chatRequest);
-        TokenUsage tokenUsage = chatResponse.tokenUsage();
-        state.setTotalInputTokens(state.getTotalInputTokens() + tokenUsage.inputTokenCount());
-        state.setTotalOutputTokens(state.getTotalOutputTokens() + tokenUsage.outputTokenCount());
+        traceUtil.attachUsage(state.getCurrentReportEventId(), chatResponse);
+        tokenMeter.record(state, TokenStage.REPORT, chatResponse);
         agent.getMemory().add(chatResponse.aiMessage());
-        state.setReport(chatResponse.aiMessage().text());
+        complete(state, chatResponse.aiMessage().text());
+    }
+
+    /**
+     * 研究单元完成后在后台起草对应章节，与后续研究单元重叠执行
+     */
+    public CompletableFuture<String> draftSectionAsync(DeepResearchState state, String topic,
+                                                       String findings, Long eventId) {
+        return state.track(agentTaskExecutor.supply(() -> draftSection(state, topic, findings, eventId)));
+    }
+
+    private String draftSection(DeepResearchState state, String topic, String findings, Long eventId) {
+        // 研究已结束（失败或预算耗尽）时不再调用模型，模型也可能已被移除
+        if (state.isFinished()) {
+            throw new CancellationException("Research finished before section draft started");
+        }
+        ChatRequest chatRequest = ChatRequest.builder()
+                .messages(UserMessage.from(StrUtil.format(REPORT_SECTION_PROMPT, Map.of(
+                        "research_brief", state.getResearchBrief(),
+                        "research_topic", topic,
+                        "findings", findings,
+                        "sources", state.getSourceRegistry().toReferenceList(),
+                        "date", DateUtil.today()
+                ))))
+                .build();
+        ChatResponse chatResponse = modelHandler.getModel(state.getResearchId(), ModelRole.WRITER).chat(chatRequest);
+        if (state.isFinished()) {
+            throw new CancellationException("Research finished while drafting section");
+        }
+        traceUtil.attachUsage(eventId, chatResponse);
+        tokenMeter.record(state, TokenStage.REPORT_SECTION, chatResponse);
+        return chatResponse.aiMessage().text();
+    }
+
+    /**
+     * map-reduce 模式：限制同时起草的章节数，许可在提交线程上获取，不占用子任务线程
+     */
+    private List<CompletableFuture<String>> draftSections(DeepResearchState state, List<ResearchUnit> units) {
+        Semaphore permits = new Semaphore(Math.max(1, state.getBudget().getReportMaxConcurrentSections()));
+        List<CompletableFuture<String>> drafts = new ArrayList<>(units.size());
+        for (ResearchUnit unit : units) {
+            permits.acquireUninterruptibly();
+            CompletableFuture<String> draft = draftSectionAsync(state, unit.topic(), unit.findings(), unit.eventId());
+            draft.whenComplete((section, e) -> permits.release());
+            drafts.add(draft);
+        }
+        return drafts;
+    }
+
+    /**
+     * 收齐各章节草稿，只生成标题、概述和结论，章节原文直接拼接
+     */
+    private void merge(DeepResearchState state, List<CompletableFuture<String>> drafts) {
+        List<ResearchUnit> units = state.getResearchUnits();
+        List<String> sections = new ArrayList<>(units.size());
+        for (int i = 0; i < units.size(); i++) {
+            sections.add(awaitSection(state, units.get(i), drafts.get(i)));
+        }
+        eventPublisher.publishEvent(state.getResearchId(), EventType.REPORT,
+                "正在合并 " + sections.size() + " 个章节...", null, state.getCurrentReportEventId());
+
+        // 章节合计过大时，合并阶段只需把握各章节要点
+        String sectionsText = StrUtil.join("\n\n", sections);
+        if (TokenMeter.estimate(sectionsText) > state.getBudget().getReportStitchThresholdTokens()) {
+            sectionsText = sections.stream()
+                    .map(ReportAgent::digest)
+                    .collect(Collectors.joining("\n\n"));
+        }
+
+        // 思考笔记与研究单元发现一同记在 supervisorNotes 中，这里只保留前者
+        List<String> findings = units.stream().map(ResearchUnit::findings).toList();
+        String planningNotes = state.getSupervisorNotes().stream()
+                .filter(note -> !findings.contains(note))
+                .collect(Collectors.joining("\n"));
+
+        JsonSchema jsonSchema = JsonSchemas.jsonSchemaFrom(ReportSchema.Framing.class)
+                .orElseThrow(() -> new IllegalStateException("Failed to generate JSON schema for Framing"));
+        ChatRequest chatRequest = ChatRequest.builder()
+                .messages(UserMessage.from(StrUtil.format(REPORT_MERGE_PROMPT, Map.of(
+                        "research_brief", state.getResearchBrief(),
+                        "planning_notes", planningNotes,
+                        "sections", sectionsText,
+                        "sources", state.getSourceRegistry().toReferenceList(),
+                        "date", DateUtil.today()
+                ))))
+                .responseFormat(ResponseFormat.builder()
+                        .type(ResponseFormatType.JSON)
+                        .jsonSchema(jsonSchema)
+                        .build())
+                .build();
+        ChatResponse chatResponse = modelHandler.getModel(state.getResearchId(), ModelRole.WRITER).chat(chatRequest);
+        traceUtil.attachUsage(state.getCurrentReportEventId(), chatResponse);
+        tokenMeter.record(state, TokenStage.REPORT, chatResponse);
+
+        ReportSchema.Framing framing;
+        try {
+            framing = objectMapper.readValue(chatResponse.aiMessage().text(), ReportSchema.Framing.class);
+        } catch (Exception e) {
+            log.error("Failed to parse report framing: {}", chatResponse.aiMessage().text(), e);
+            throw new WorkflowException("Failed to parse report framing", e);
+        }
+
+        if (framing == null) {
+            throw new WorkflowException("Report framing is empty");
+        }
+
+        // 结构化输出缺字段时不中断报告，缺失部分直接省略
+        StringBuilder body = new StringBuilder();
+        body.append("# ").append(StrUtil.blankToDefault(StrUtil.trim(framing.title()),
+                StrUtil.maxLength(state.getResearchBrief(), 40))).append("\n\n");
+        if (StrUtil.isNotBlank(framing.introduction())) {
+            body.append(framing.introduction().strip()).append("\n\n");
+        }
+        for (String section : sections) {
+            body.append(section.strip()).append("\n\n");
+        }
+        if (StrUtil.isNotBlank(framing.conclusion())) {
+            body.append(framing.conclusion().strip());
+        }
+        complete(state, state.getSourceRegistry().renderCitations(body.toString()));
+    }
+
+    private String awaitSection(DeepResearchState state, ResearchUnit unit, CompletableFuture<String> draft) {
+        if (draft != null) {
+            try {
+                return AgentTaskExecutor.join(draft);
+            } catch (TokenBudgetExceededException e) {
+                throw e;
+            } catch (Exception e) {
+                // 后台起草失败时同步重试一次
+                log.warn("Section draft failed, retrying: researchId={}, topic='{}'",
+                        state.getResearchId(), unit.topic(), e);
+            }
+        }
+        return draftSection(state, unit.topic(), unit.findings(), unit.eventId());
+    }
+
+    /**
+     * 章节摘录：保留标题与开头部分
+     */
+    static String digest(String section) {
+        String text = section.strip();
+        return text.length() <= DIGEST_LENGTH ? text : text.substring(0, DIGEST_LENGTH) + "...";
+    }
+
+    private void complete(DeepResearchState state, String report) {
+        state.setReport(report);
         eventPublisher.publishEvent(state.getResearchId(), EventType.REPORT,
                 "研究报告已完成", null);
-        eventPublisher.publishMessage(state.getResearchId(), "assistant", chatResponse.aiMessage().text());
+        eventPublisher.publishMessage(state.getResearchId(), "assistant", report);
     }
 }
@@ -3,10 +3,19 @@ package dev.chanler.researcher.application.agent;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chanler.researcher.application.data.TokenStage;
+import dev.chanler.researcher.application.data.ModelRole;
 import dev.chanler.researcher.infra.data.EventType;
 import dev.chanler.researcher.application.model.ModelHandler;
+import dev.chanler.researcher.application.model.TokenMeter;
+import dev.chanler.researcher.application.state.ConvergenceDetector;
 import dev.chanler.researcher.application.state.DeepResearchState;
+import dev.chanler.researcher.application.state.SearchContext;
+import dev.chanler.researcher.application.state.SourceRegistry;
+import dev.chanler.researcher.infra.async.AgentTaskExecutor;
 import dev.chanler.researcher.infra.util.EventPublisher;
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import dev.chanler.researcher.infra.util.TraceUtil;
 import dev.chanler.researcher.application.tool.annotation.ResearcherTool;
 import dev.chanler.researcher.infra.exception.WorkflowException;
 import dev.chanler.researcher.application.tool.ToolRegistry;
@@ -20,15 +29,17 @@ import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.request.ToolChoice;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 
 import static dev.chanler.researcher.application.prompt.ResearcherPrompts.*;
@@ -46,6 +57,10 @@ public class ResearcherAgent {
     private final ObjectMapper objectMapper;
     private final SearchAgent searchAgent;
     private final EventPublisher eventPublisher;
+    private final AgentTaskExecutor agentTaskExecutor;
+    private final MetricsUtil metricsUtil;
+    private final TraceUtil traceUtil;
+    private final TokenMeter tokenMeter;
 
     private static final String RESEARCHER_STAGE = ResearcherTool.class.getSimpleName();
 
@@ -66,9 +81,21 @@ public class ResearcherAgent {
         );
         agent.getMemory().add(systemMessage);
         agent.getMemory().add(UserMessage.from(state.getResearchTopic()));
+
+        // 会话内已收录的来源不计为新增信息
+        ConvergenceDetector convergence = new ConvergenceDetector(
+                state.getBudget().getNoveltyThreshold(), state.getBudget().getNoveltyPatience());
+        convergence.markSeen(state.getSourceRegistry().list().stream()
+                .map(SourceRegistry.Source::url)
+                .collect(Collectors.toList()));
+        state.setResearcherConvergence(convergence);
         
-        plan(agent, state);
-        return compressResearch(agent, state);
+        try {
+            plan(agent, state);
+            return compressResearch(agent, state);
+        } finally {
+            traceUtil.closeSpan(researchEventId);
+        }
     }
 
     private void plan(AgentAbility agent, DeepResearchState state) {
@@ -78,91 +105,152 @@ public class ResearcherAgent {
         int maxIterations = maxSearchCount * 2;
         while (state.getSearchCount() < maxSearchCount 
                 && state.getResearcherIterations() < maxIterations) {
-            // 1. 获取决策
-            List<ToolSpecification> toolSpecifications = toolRegistry.getToolSpecifications(RESEARCHER_STAGE);
-            ChatRequest chatRequest = ChatRequest.builder()
-                    .messages(agent.getMemory().messages())
-                    .toolSpecifications(toolSpecifications)
-                    .toolChoice(ToolChoice.REQUIRED)
-                    .build();
-            ChatResponse chatResponse = agent.getChatModel().chat(chatRequest);
-            TokenUsage tokenUsage = chatResponse.tokenUsage();
-            state.setTotalInputTokens(state.getTotalInputTokens() + tokenUsage.inputTokenCount());
-            state.setTotalOutputTokens(state.getTotalOutputTokens() + tokenUsage.outputTokenCount());
-            agent.getMemory().add(chatResponse.aiMessage());
+            Timer.Sample iteration = metricsUtil.start();
+            try {
+                // 1. 获取决策
+                List<ToolSpecification> toolSpecifications = toolRegistry.getToolSpecifications(RESEARCHER_STAGE);
+                ChatRequest chatRequest = ChatRequest.builder()
+                        .messages(agent.getMemory().messages())
+                        .toolSpecifications(toolSpecifications)
+                        .toolChoice(ToolChoice.REQUIRED)
+                        .build();
+                ChatResponse chatResponse = agent.getChatModel().chat(chatRequest);
+                traceUtil.attachUsage(state.getCurrentResearchEventId(), chatResponse);
+                tokenMeter.record(state, TokenStage.RESEARCHER, chatResponse);
+                agent.getMemory().add(chatResponse.aiMessage());
 
-            // 2. 执行工具
-            action(agent, chatResponse.aiMessage().toolExecutionRequests(), state);
+                // 2. 执行工具
+                action(agent, chatResponse.aiMessage().toolExecutionRequests(), state);
             
-            // 3. 检查是否继续
-            if (!chatResponse.aiMessage().hasToolExecutionRequests()) {
-                break;
-            }
+                // 3. 检查是否继续
+                if (!chatResponse.aiMessage().hasToolExecutionRequests()) {
+                    break;
+                }
             
-            state.setResearcherIterations(state.getResearcherIterations() + 1);
+                state.setResearcherIterations(state.getResearcherIterations() + 1);
+
+                // 4. 信息增益趋于饱和时提前结束
+                if (state.getResearcherConvergence().converged()) {
+                    stopEarly(state, maxSearchCount);
+                    break;
+                }
+            } finally {
+                metricsUtil.stop(iteration, MetricsUtil.AGENT_ITERATION, "agent", "researcher");
+            }
         }
     }
 
+    private void stopEarly(DeepResearchState state, int maxSearchCount) {
+        int saved = Math.max(0, maxSearchCount - state.getSearchCount());
+        state.setSavedSearchCount(state.getSavedSearchCount() + saved);
+        double novelty = state.getResearcherConvergence().getLastNovelty();
+        log.info("Researcher converged early: researchId='{}', topic='{}', novelty={}, savedSearches={}",
+                state.getResearchId(), state.getResearchTopic(), novelty, saved);
+        eventPublisher.publishEvent(state.getResearchId(), EventType.RESEARCH,
+                "信息增益趋于饱和，提前结束搜索",
+                String.format("新增信息占比 %.2f 低于阈值 %.2f，节省 %d 次搜索配额",
+                        novelty, state.getResearcherConvergence().getThreshold(), saved),
+                state.getCurrentResearchEventId());
+    }
+
     private void action(AgentAbility agent, List<ToolExecutionRequest> toolExecutionRequests, DeepResearchState state) {
         if (toolExecutionRequests == null || toolExecutionRequests.isEmpty()) {
             return;
         }
         
-        for (ToolExecutionRequest toolExecutionRequest : toolExecutionRequests) {
-            String result;
-            
-            if ("tavilySearch".equals(toolExecutionRequest.name())) {
-                // 检查 tavilySearch 调用次数限制
-                int maxSearchCount = state.getBudget().getMaxSearchCount();
-                if (state.getSearchCount() >= maxSearchCount) {
-                    log.warn("tavilySearch count limit reached: {}/{}",
-                            state.getSearchCount(), maxSearchCount);
-                    result = "已达到搜索配额限制，请根据已有信息完成研究";
-                    agent.getMemory().add(ToolExecutionResultMessage.from(toolExecutionRequest, result));
-                    continue;
-                }
+        // 1. 同一条 AI 消息中的工具调用互不依赖，搜索全部提交并行执行
+        List<PendingCall> pendingCalls = new ArrayList<>(toolExecutionRequests.size());
+        try {
+            for (ToolExecutionRequest toolExecutionRequest : toolExecutionRequests) {
+                if ("tavilySearch".equals(toolExecutionRequest.name())) {
+                    // 检查 tavilySearch 调用次数限制，提交时即占用配额
+                    int maxSearchCount = state.getBudget().getMaxSearchCount();
+                    if (state.getSearchCount() >= maxSearchCount) {
+                        log.warn("tavilySearch count limit reached: {}/{}",
+                                state.getSearchCount(), maxSearchCount);
+                        pendingCalls.add(new PendingCall(toolExecutionRequest, null,
+                                CompletableFuture.completedFuture("已达到搜索配额限制，请根据已有信息完成研究"), false));
+                        continue;
+                    }
                 
-                try {
-                    var argsNode = objectMapper.readTree(toolExecutionRequest.arguments());
-                    String query = argsNode.get("query").asText();
-                    int maxResults = argsNode.has("maxResults") ? argsNode.get("maxResults").asInt() : 3;
-                    String topic = argsNode.has("topic") ? argsNode.get("topic").asText() : "general";
-                    
-                    // 设置 search 相关字段
-                    state.setQuery(query);
-                    state.setMaxResults(maxResults);
-                    state.setTopic(topic);
-                    state.setSearchResults(new HashMap<>());
-                    state.setSearchNotes(new ArrayList<>());
-
-                    result = searchAgent.run(state);
-                    
-                    // 增加 searchCount
+                    SearchContext context = parseSearchArguments(toolExecutionRequest);
                     state.setSearchCount(state.getSearchCount() + 1);
-                } catch (Exception e) {
-                    log.error("Failed to parse tavilySearch arguments", e);
-                    throw new WorkflowException("Failed to parse tavilySearch arguments", e);
+                    pendingCalls.add(new PendingCall(toolExecutionRequest, context,
+                            agentTaskExecutor.supply(() -> metricsUtil.time(MetricsUtil.TOOL_EXECUTION,
+                                    () -> searchAgent.run(state, context),
+                                    "agent", "researcher", "tool", toolExecutionRequest.name())), true));
+                } else {
+                    var executor = toolRegistry.getExecutor(toolExecutionRequest.name());
+                    if (executor == null) {
+                        log.warn("No executor found for tool {} in stage {}", toolExecutionRequest.name(), RESEARCHER_STAGE);
+                        continue;
+                    }
+                    // thinkTool 等本地工具直接执行，与进行中的搜索重叠
+                    pendingCalls.add(new PendingCall(toolExecutionRequest, null,
+                            CompletableFuture.completedFuture(metricsUtil.time(MetricsUtil.TOOL_EXECUTION,
+                                    () -> executor.execute(toolExecutionRequest, null),
+                                    "agent", "researcher", "tool", toolExecutionRequest.name())), true));
                 }
-            } else {
-                var executor = toolRegistry.getExecutor(toolExecutionRequest.name());
-                if (executor == null) {
-                    log.warn("No executor found for tool {} in stage {}", toolExecutionRequest.name(), RESEARCHER_STAGE);
-                    continue;
-                }
-                result = executor.execute(toolExecutionRequest, null);
             }
+        
+            // 2. 按请求顺序回收结果，保证 memory 中的工具结果顺序与调用顺序一致
+            // 本轮所有搜索的 URL 与结果合并后只记录一次新增信息，耐心值按迭代而不是按搜索次数计算
+            Set<String> roundUrls = new LinkedHashSet<>();
+            List<String> roundResults = new ArrayList<>();
+            for (PendingCall pendingCall : pendingCalls) {
+                ToolExecutionRequest toolExecutionRequest = pendingCall.request();
+                String result = AgentTaskExecutor.join(pendingCall.result());
             
-            // 收集 rawNotes 即工具执行结果 ThinkTool 和 Search 结果
-            if ("thinkTool".equals(toolExecutionRequest.name())) {
-                eventPublisher.publishEvent(state.getResearchId(), EventType.RESEARCH,
-                        "分析中...", result, state.getCurrentResearchEventId());
-            }
-            state.getResearcherNotes().add(String.format("[%s] %s", toolExecutionRequest.name(), result));
+                if (pendingCall.search() != null) {
+                    // 已被之前轮次收录的来源计为重叠
+                    roundUrls.addAll(pendingCall.search().getSearchResults().keySet());
+                    pendingCall.search().getReusedSources().forEach(source -> roundUrls.add(source.url()));
+                    roundResults.add(result);
+                }
             
-            agent.getMemory().add(ToolExecutionResultMessage.from(toolExecutionRequest, result));
+                if (pendingCall.recordNote()) {
+                    // 收集 rawNotes 即工具执行结果 ThinkTool 和 Search 结果
+                    if ("thinkTool".equals(toolExecutionRequest.name())) {
+                        eventPublisher.publishEvent(state.getResearchId(), EventType.RESEARCH,
+                                "分析中...", result, state.getCurrentResearchEventId());
+                    }
+                    state.getResearcherNotes().add(String.format("[%s] %s", toolExecutionRequest.name(), result));
+                }
+            
+                agent.getMemory().add(ToolExecutionResultMessage.from(toolExecutionRequest, result));
+            }
+            // 只有思考、没有搜索的轮次不计入
+            if (!roundResults.isEmpty()) {
+                state.getResearcherConvergence().observe(roundUrls, String.join("\n", roundResults));
+            }
+        } catch (RuntimeException e) {
+            // 任一调用失败（如预算耗尽）时取消仍在进行的搜索，避免继续消耗 Token
+            pendingCalls.forEach(pendingCall -> pendingCall.result().cancel(true));
+            throw e;
         }
     }
 
+    private SearchContext parseSearchArguments(ToolExecutionRequest toolExecutionRequest) {
+        try {
+            var argsNode = objectMapper.readTree(toolExecutionRequest.arguments());
+            return SearchContext.builder()
+                    .query(argsNode.get("query").asText())
+                    .maxResults(argsNode.has("maxResults") ? argsNode.get("maxResults").asInt() : 3)
+                    .topic(argsNode.has("topic") ? argsNode.get("topic").asText() : "general")
+                    .build();
+        } catch (Exception e) {
+            log.error("Failed to parse tavilySearch arguments", e);
+            throw new WorkflowException("Failed to parse tavilySearch arguments", e);
+        }
+    }
+
+    /**
+     * 一次工具调用及其 (可能仍在执行的) 结果
+     */
+    private record PendingCall(ToolExecutionRequest request, SearchContext search,
+                               CompletableFuture<String> result, boolean recordNote) {
+    }
+
     private String compressResearch(AgentAbility agent, DeepResearchState state) {
         String systemPrompt = StrUtil.format(COMPRESS_RESEARCH_SYSTEM_PROMPT, Map.of("date", DateUtil.today()));
         
@@ -177,10 +265,11 @@ public class ResearcherAgent {
                 .messages(messages)
                 .build();
         
-        ChatResponse compressResponse = agent.getChatModel().chat(compressRequest);
-        TokenUsage tokenUsage = compressResponse.tokenUsage();
-        state.setTotalInputTokens(state.getTotalInputTokens() + tokenUsage.inputTokenCount());
-        state.setTotalOutputTokens(state.getTotalOutputTokens() + tokenUsage.outputTokenCount());
+        // 压缩是长输入、逐字整理的任务，使用快速模型
+        ChatResponse compressResponse = modelHandler.getModel(state.getResearchId(), ModelRole.COMPRESSOR)
+                .chat(compressRequest);
+        traceUtil.attachUsage(state.getCurrentResearchEventId(), compressResponse);
+        tokenMeter.record(state, TokenStage.COMPRESS, compressResponse);
         String compressedResearch = compressResponse.aiMessage().text();
         
         state.setCompressedResearch(compressedResearch);
@@ -6,11 +6,14 @@ import cn.hutool.core.util.StrUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.chanler.researcher.infra.data.EventType;
 import dev.chanler.researcher.application.model.ModelHandler;
+import dev.chanler.researcher.application.model.TokenMeter;
 import dev.chanler.researcher.application.schema.ScopeSchema;
 import dev.chanler.researcher.application.state.DeepResearchState;
+import dev.chanler.researcher.application.data.TokenStage;
 import dev.chanler.researcher.application.data.WorkflowStatus;
 import dev.chanler.researcher.infra.util.EventPublisher;
 import dev.chanler.researcher.infra.util.MemoryUtil;
+import dev.chanler.researcher.infra.util.TraceUtil;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
@@ -19,7 +22,6 @@ import dev.langchain4j.model.chat.request.ResponseFormat;
 import dev.langchain4j.model.chat.request.ResponseFormatType;
 import dev.langchain4j.model.chat.request.json.JsonSchema;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.service.output.JsonSchemas;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -40,6 +42,8 @@ public class ScopeAgent {
     private final ModelHandler modelHandler;
     private final ObjectMapper objectMapper;
     private final EventPublisher eventPublisher;
+    private final TraceUtil traceUtil;
+    private final TokenMeter tokenMeter;
 
     public void run(DeepResearchState state) {
         state.setStatus(WorkflowStatus.IN_SCOPE);
@@ -53,11 +57,15 @@ public class ScopeAgent {
                 .streamingChatModel(modelHandler.getStreamModel(state.getResearchId()))
                 .build();
         agent.getMemory().add(state.getChatHistory());
-        clarifyUserInstructions(agent, state);
-        if (state.getClarifyWithUserSchema().needClarification()) {
-            return;
+        try {
+            clarifyUserInstructions(agent, state);
+            if (state.getClarifyWithUserSchema().needClarification()) {
+                return;
+            }
+            writeResearchBrief(agent, state);
+        } finally {
+            traceUtil.closeSpan(scopeEventId);
         }
-        writeResearchBrief(agent, state);
     }
 
     private void clarifyUserInstructions(AgentAbility agent, DeepResearchState state) {
@@ -79,9 +87,8 @@ public class ScopeAgent {
                 .responseFormat(responseFormat)
                 .build();
         ChatResponse chatResponse = agent.getChatModel().chat(chatRequest);
-        TokenUsage tokenUsage = chatResponse.tokenUsage();
-        state.setTotalInputTokens(state.getTotalInputTokens() + tokenUsage.inputTokenCount());
-        state.setTotalOutputTokens(state.getTotalOutputTokens() + tokenUsage.outputTokenCount());
+        traceUtil.attachUsage(state.getCurrentScopeEventId(), chatResponse);
+        tokenMeter.record(state, TokenStage.SCOPE, chatResponse);
         String jsonResponse = chatResponse.aiMessage().text();
         try {
             ScopeSchema.ClarifyWithUserSchema clarifyResult = objectMapper.readValue(
@@ -123,9 +130,8 @@ public class ScopeAgent {
                 .responseFormat(responseFormat)
                 .build();
         ChatResponse chatResponse = agent.getChatModel().chat(chatRequest);
-        TokenUsage tokenUsage = chatResponse.tokenUsage();
-        state.setTotalInputTokens(state.getTotalInputTokens() + tokenUsage.inputTokenCount());
-        state.setTotalOutputTokens(state.getTotalOutputTokens() + tokenUsage.outputTokenCount());
+        traceUtil.attachUsage(state.getCurrentScopeEventId(), chatResponse);
+        tokenMeter.record(state, TokenStage.SCOPE, chatResponse);
         String jsonResponse = chatResponse.aiMessage().text();
         try {
             ScopeSchema.ResearchQuestion researchQuestion = objectMapper.readValue(
@@ -3,12 +3,19 @@ package dev.chanler.researcher.application.agent;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chanler.researcher.application.data.TokenStage;
+import dev.chanler.researcher.application.data.ModelRole;
 import dev.chanler.researcher.infra.data.EventType;
 import dev.chanler.researcher.application.model.ModelHandler;
+import dev.chanler.researcher.application.model.TokenMeter;
 import dev.chanler.researcher.infra.util.EventPublisher;
+import dev.chanler.researcher.infra.util.TraceUtil;
 import dev.chanler.researcher.application.schema.SummarySchema;
 import dev.chanler.researcher.application.state.DeepResearchState;
-import dev.chanler.researcher.infra.client.TavilyClient;
+import dev.chanler.researcher.application.state.SearchContext;
+import dev.chanler.researcher.application.state.SourceRegistry;
+import dev.chanler.researcher.infra.client.SearchProvider;
+import dev.chanler.researcher.infra.exception.TokenBudgetExceededException;
 import dev.langchain4j.data.message.UserMessage;
 import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
@@ -16,13 +23,14 @@ import dev.langchain4j.model.chat.request.ResponseFormat;
 import dev.langchain4j.model.chat.request.ResponseFormatType;
 import dev.langchain4j.model.chat.request.json.JsonSchema;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.output.TokenUsage;
 import dev.langchain4j.service.output.JsonSchemas;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
 
-import java.util.HashMap;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
 import static dev.chanler.researcher.application.prompt.SearchPrompts.SUMMARIZE_WEBPAGE_PROMPT;
@@ -36,70 +44,96 @@ import static dev.chanler.researcher.application.prompt.SearchPrompts.SUMMARIZE_
 @Slf4j
 public class SearchAgent {
     private final ModelHandler modelHandler;
-    private final TavilyClient tavilyClient;
+    private final SearchProvider searchProvider;
     private final ObjectMapper objectMapper;
     private final EventPublisher eventPublisher;
+    private final TraceUtil traceUtil;
+    private final TokenMeter tokenMeter;
     
-    public String run(DeepResearchState state) {
+    /**
+     * 执行一次搜索，本次搜索的中间结果保存在 context 中，可与其他搜索并行
+     */
+    public String run(DeepResearchState state, SearchContext context) {
         Long searchEventId = eventPublisher.publishEvent(state.getResearchId(), EventType.SEARCH,
-                "正在搜索: " + state.getQuery(), null, state.getCurrentResearchEventId());
-        state.setCurrentSearchEventId(searchEventId);
+                "正在搜索: " + context.getQuery(), null, state.getCurrentResearchEventId());
+        context.setSearchEventId(searchEventId);
+        context.setUnitEventId(state.getCurrentResearchEventId());
         
         AgentAbility agent = AgentAbility.builder()
                 .memory(MessageWindowChatMemory.withMaxMessages(100))
-                .chatModel(modelHandler.getModel(state.getResearchId()))
-                .streamingChatModel(modelHandler.getStreamModel(state.getResearchId()))
+                .chatModel(modelHandler.getModel(state.getResearchId(), ModelRole.SUMMARIZER))
+                .streamingChatModel(modelHandler.getStreamModel(state.getResearchId(), ModelRole.SUMMARIZER))
                 .build();
             
-        plan(state);
-        action(agent, state);
-        return summarize(agent, state);
+        try {
+            plan(state, context);
+            action(agent, state, context);
+            return summarize(state, context);
+        } finally {
+            traceUtil.closeSpan(searchEventId);
+        }
     }
     
-    private void plan(DeepResearchState state) {
-        // execute Tavily search
-        TavilyClient.TavilyResponse response = tavilyClient.search(
-            state.getQuery(),
-            state.getMaxResults(),
-            state.getTopic(),
+    private void plan(DeepResearchState state, SearchContext context) {
+        // execute search on the configured provider(s)
+        SearchProvider.SearchResponse response = searchProvider.search(
+            context.getQuery(),
+            context.getMaxResults(),
+            context.getTopic(),
             true
         );
         
         if (response.results().isEmpty()) {
-            log.warn("No search results for: {}", state.getQuery());
+            log.warn("No search results for: {}", context.getQuery());
             return;
         }
         
-        // 利用 URL 去重
-        Map<String, TavilyClient.SearchResult> uniqueResults = new HashMap<>();
-        for (TavilyClient.SearchResult result : response.results()) {
-            if (result.url() != null && !uniqueResults.containsKey(result.url())) {
-                uniqueResults.put(result.url(), result);
+        // 利用 URL 去重，已被本会话其他搜索收录的来源不重复总结
+        SourceRegistry registry = state.getSourceRegistry();
+        Map<String, SearchProvider.SearchResult> uniqueResults = new LinkedHashMap<>();
+        List<SourceRegistry.Source> reusedSources = new ArrayList<>();
+        for (SearchProvider.SearchResult result : response.results()) {
+            if (result.url() == null || uniqueResults.containsKey(result.url())) {
+                continue;
+            }
+            SourceRegistry.Source known = registry.get(result.url());
+            if (known != null) {
+                if (!reusedSources.contains(known)) {
+                    reusedSources.add(known);
+                }
+                continue;
             }
+            uniqueResults.put(result.url(), result);
         }
         
-        state.setSearchResults(uniqueResults);
+        context.setSearchResults(uniqueResults);
+        context.setReusedSources(reusedSources);
+        String title = reusedSources.isEmpty()
+                ? "找到 " + uniqueResults.size() + " 个相关结果"
+                : "找到 " + (uniqueResults.size() + reusedSources.size()) + " 个相关结果，其中 "
+                        + reusedSources.size() + " 个已收录";
         eventPublisher.publishEvent(state.getResearchId(), EventType.SEARCH,
-                "找到 " + uniqueResults.size() + " 个相关结果", null, state.getCurrentSearchEventId());
+                title, null, context.getSearchEventId());
     }
     
-    private void action(AgentAbility agent, DeepResearchState state) {
+    private void action(AgentAbility agent, DeepResearchState state, SearchContext context) {
         // 空值判断
-        if (state.getSearchResults().isEmpty()) {
-            log.warn("No search results to process");
+        if (context.getSearchResults().isEmpty()) {
+            log.warn("No new search results to process");
             return;
         }
         
         // 处理并总结结果
-        for (TavilyClient.SearchResult result : state.getSearchResults().values()) {
+        for (SearchProvider.SearchResult result : context.getSearchResults().values()) {
             String content = result.rawContent() != null && !result.rawContent().isEmpty()
                 ? result.rawContent()
                 : result.content();
             
+            String note;
             if (content != null && content.length() > 500) {
                 try {
-                    SummarySchema summary = summarizeWebpage(agent, state, content);
-                    String formatted = StrUtil.format(
+                    SummarySchema summary = summarizeWebpage(agent, state, context, content);
+                    note = StrUtil.format(
                         "[{title}]\nURL: {url}\n<summary>{summary}</summary>\n<key_excerpts>{key_excerpts}</key_excerpts>",
                         Map.of(
                             "title", result.title(),
@@ -108,28 +142,41 @@ public class SearchAgent {
                             "key_excerpts", summary.getKeyExcerpts()
                         )
                     );
-                    state.getSearchNotes().add(formatted);
+                } catch (TokenBudgetExceededException e) {
+                    throw e;
                 } catch (Exception e) {
                     log.warn("Failed to summarize {}", result.url());
-                    state.getSearchNotes().add(StrUtil.format("[{title}]\nURL: {url}\n{content}",
+                    note = StrUtil.format("[{title}]\nURL: {url}\n{content}",
                         Map.of(
                             "title", result.title(),
                             "url", result.url(),
                             "content", result.content()
-                        )));
+                        ));
                 }
             } else {
-                state.getSearchNotes().add(StrUtil.format("[{title}]\nURL: {url}\n{content}",
+                note = StrUtil.format("[{title}]\nURL: {url}\n{content}",
                     Map.of(
                         "title", result.title(),
                         "url", result.url(),
                         "content", content
-                    )));
+                    ));
             }
+
+            SourceRegistry.Registration registration = state.getSourceRegistry().register(result.url(),
+                    result.title(), note, context.getUnitEventId());
+            SourceRegistry.Source source = registration.source();
+            if (!registration.created()) {
+                // 并发搜索先一步收录了同一 URL，按已收录来源引用
+                context.getReusedSources().add(source);
+                continue;
+            }
+            context.getSearchNotes().add(StrUtil.format("\n--- SOURCE {tag} ---\n{note}",
+                    Map.of("tag", source.tag(), "note", note)));
         }
     }
     
-    private SummarySchema summarizeWebpage(AgentAbility agent, DeepResearchState state, String webpageContent) {
+    private SummarySchema summarizeWebpage(AgentAbility agent, DeepResearchState state,
+                                           SearchContext context, String webpageContent) {
         try {
             String prompt = StrUtil.format(SUMMARIZE_WEBPAGE_PROMPT, Map.of(
                 "webpage_content", webpageContent,
@@ -150,11 +197,13 @@ public class SearchAgent {
                 .build();
             
             ChatResponse chatResponse = agent.getChatModel().chat(chatRequest);
-            TokenUsage tokenUsage = chatResponse.tokenUsage();
-            state.setTotalInputTokens(state.getTotalInputTokens() + tokenUsage.inputTokenCount());
-            state.setTotalOutputTokens(state.getTotalOutputTokens() + tokenUsage.outputTokenCount());
+            traceUtil.attachUsage(context.getSearchEventId(), chatResponse);
+            tokenMeter.record(state, TokenStage.SEARCH_SUMMARIZE, chatResponse);
             return objectMapper.readValue(chatResponse.aiMessage().text(), SummarySchema.class);
             
+        } catch (TokenBudgetExceededException e) {
+            // 预算耗尽需要终止研究，不能降级为截断摘要
+            throw e;
         } catch (Exception e) {
             log.error("Webpage summarization failed", e);
             SummarySchema fallback = new SummarySchema();
@@ -164,24 +213,36 @@ public class SearchAgent {
         }
     }
     
-    private String summarize(AgentAbility agent, DeepResearchState state) {
-        if (state.getSearchNotes().isEmpty()) {
-            return "No search results found for: " + state.getQuery();
+    private String summarize(DeepResearchState state, SearchContext context) {
+        if (context.getSearchNotes().isEmpty() && context.getReusedSources().isEmpty()) {
+            return "No search results found for: " + context.getQuery();
         }
         eventPublisher.publishEvent(state.getResearchId(), EventType.SEARCH,
-                "已分析并整理搜索结果", null, state.getCurrentSearchEventId());
-        
+                "已分析并整理搜索结果", null, context.getSearchEventId());
+        return render(context);
+    }
+
+    static String render(SearchContext context) {
         StringBuilder output = new StringBuilder();
         output.append(StrUtil.format("Search results for query: '{query}'\n\n",
-                Map.of("query", state.getQuery())));
+                Map.of("query", context.getQuery())));
         
-        int num = 1;
-        for (String result : state.getSearchNotes()) {
-            output.append(StrUtil.format("\n--- SOURCE {index} ---\n",
-                    Map.of("index", num++)));
+        for (String result : context.getSearchNotes()) {
             output.append(result);
             output.append("\n").append("-".repeat(80)).append("\n");
         }
+
+        // 本单元已收录的来源只给出引用；其他单元收录的来源本单元未见过，需带上已有摘要
+        for (SourceRegistry.Source source : context.getReusedSources()) {
+            if (source.retrievedBy(context.getUnitEventId())) {
+                output.append(StrUtil.format("\n--- SOURCE {tag} (already retrieved, see earlier results) ---\n[{title}]\nURL: {url}\n",
+                        Map.of("tag", source.tag(), "title", source.title(), "url", source.url())));
+            } else {
+                output.append(StrUtil.format("\n--- SOURCE {tag} ---\n{note}",
+                        Map.of("tag", source.tag(), "note", source.note())));
+                output.append("\n").append("-".repeat(80)).append("\n");
+            }
+        }
         
         return output.toString();
     }
@@ -3,14 +3,21 @@ package dev.chanler.researcher.application.agent;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import cn.hutool.core.date.DateUtil;
 import cn.hutool.core.util.StrUtil;
+import dev.chanler.researcher.application.data.TokenStage;
+import dev.chanler.researcher.application.data.ReportMode;
 import dev.chanler.researcher.application.data.WorkflowStatus;
 import dev.chanler.researcher.application.model.ModelHandler;
+import dev.chanler.researcher.application.model.TokenMeter;
+import dev.chanler.researcher.application.state.ConvergenceDetector;
 import dev.chanler.researcher.application.state.DeepResearchState;
+import dev.chanler.researcher.application.state.ResearchUnit;
 import dev.chanler.researcher.application.tool.ToolRegistry;
 import dev.chanler.researcher.application.tool.annotation.SupervisorTool;
 import dev.chanler.researcher.infra.data.EventType;
 import dev.chanler.researcher.infra.exception.WorkflowException;
 import dev.chanler.researcher.infra.util.EventPublisher;
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import dev.chanler.researcher.infra.util.TraceUtil;
 import dev.langchain4j.agent.tool.ToolExecutionRequest;
 import dev.langchain4j.agent.tool.ToolSpecification;
 import dev.langchain4j.data.message.SystemMessage;
@@ -20,7 +27,7 @@ import dev.langchain4j.memory.chat.MessageWindowChatMemory;
 import dev.langchain4j.model.chat.request.ChatRequest;
 import dev.langchain4j.model.chat.request.ToolChoice;
 import dev.langchain4j.model.chat.response.ChatResponse;
-import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -42,7 +49,11 @@ public class SupervisorAgent {
     private final ObjectMapper objectMapper;
     private final ToolRegistry toolRegistry;
     private final ResearcherAgent researcherAgent;
+    private final ReportAgent reportAgent;
     private final EventPublisher eventPublisher;
+    private final MetricsUtil metricsUtil;
+    private final TraceUtil traceUtil;
+    private final TokenMeter tokenMeter;
 
     private static final String SUPERVISOR_STAGE = SupervisorTool.class.getSimpleName();
     private static final String TOOL_REMINDER = "上一轮未实际调用任何工具。请用 think_tool 先做规划，再以工具调用形式触发 conductResearch，想要结束时使用 researchComplete 结束。";
@@ -65,7 +76,13 @@ public class SupervisorAgent {
                 )));
         agent.getMemory().add(systemMessage);
         agent.getMemory().add(UserMessage.from(state.getResearchBrief()));
-        plan(agent, state);
+        state.setSupervisorConvergence(new ConvergenceDetector(
+                state.getBudget().getNoveltyThreshold(), state.getBudget().getNoveltyPatience()));
+        try {
+            plan(agent, state);
+        } finally {
+            traceUtil.closeSpan(supervisorEventId);
+        }
     }
 
     private void plan(AgentAbility agent, DeepResearchState state) {
@@ -75,39 +92,68 @@ public class SupervisorAgent {
         int maxIterations = maxConductCount * 2;
         while (state.getConductCount() < maxConductCount
                 && state.getSupervisorIterations() < maxIterations) {
-            // 1. 获取决策
-            List<ToolSpecification> toolSpecifications = toolRegistry.getToolSpecifications(SUPERVISOR_STAGE);
-            ChatRequest chatRequest = ChatRequest.builder()
-                    .toolSpecifications(toolSpecifications)
-                    .toolChoice(ToolChoice.REQUIRED)
-                    .messages(agent.getMemory().messages())
-                    .build();
-            ChatResponse chatResponse = agent.getChatModel().chat(chatRequest);
-            TokenUsage tokenUsage = chatResponse.tokenUsage();
-            state.setTotalInputTokens(state.getTotalInputTokens() + tokenUsage.inputTokenCount());
-            state.setTotalOutputTokens(state.getTotalOutputTokens() + tokenUsage.outputTokenCount());
-            agent.getMemory().add(chatResponse.aiMessage());
-
-            List<ToolExecutionRequest> toolExecutionRequests = chatResponse.aiMessage().toolExecutionRequests();
-            if (toolExecutionRequests == null || toolExecutionRequests.isEmpty()) {
-                agent.getMemory().add(UserMessage.from(TOOL_REMINDER));
-                state.setSupervisorIterations(state.getSupervisorIterations() + 1);
-                continue;
-            }
+            Timer.Sample iteration = metricsUtil.start();
+            try {
+                // 1. 获取决策
+                List<ToolSpecification> toolSpecifications = toolRegistry.getToolSpecifications(SUPERVISOR_STAGE);
+                ChatRequest chatRequest = ChatRequest.builder()
+                        .toolSpecifications(toolSpecifications)
+                        .toolChoice(ToolChoice.REQUIRED)
+                        .messages(agent.getMemory().messages())
+                        .build();
+                ChatResponse chatResponse = agent.getChatModel().chat(chatRequest);
+                traceUtil.attachUsage(state.getCurrentSupervisorEventId(), chatResponse);
+                tokenMeter.record(state, TokenStage.SUPERVISOR, chatResponse);
+                agent.getMemory().add(chatResponse.aiMessage());
+
+                List<ToolExecutionRequest> toolExecutionRequests = chatResponse.aiMessage().toolExecutionRequests();
+                if (toolExecutionRequests == null || toolExecutionRequests.isEmpty()) {
+                    // 未调用工具的轮次没有任何信息增益
+                    state.getSupervisorConvergence().observeNothing();
+                    if (state.getConductCount() > 0 && state.getSupervisorConvergence().converged()) {
+                        stopEarly(state, maxConductCount);
+                        break;
+                    }
+                    agent.getMemory().add(UserMessage.from(TOOL_REMINDER));
+                    state.setSupervisorIterations(state.getSupervisorIterations() + 1);
+                    continue;
+                }
 
-            // 2. 执行工具
-            action(agent, toolExecutionRequests, state);
+                // 2. 执行工具
+                action(agent, toolExecutionRequests, state);
 
-            // 3. 是否终止
-            if (toolExecutionRequests.stream()
-                    .anyMatch(toolRequest -> "researchComplete".equals(toolRequest.name()))) {
-                break;
-            }
+                // 3. 是否终止
+                if (toolExecutionRequests.stream()
+                        .anyMatch(toolRequest -> "researchComplete".equals(toolRequest.name()))) {
+                    break;
+                }
+
+                state.setSupervisorIterations(state.getSupervisorIterations() + 1);
 
-            state.setSupervisorIterations(state.getSupervisorIterations() + 1);
+                // 4. 研究发现趋于饱和时提前结束
+                if (state.getSupervisorConvergence().converged()) {
+                    stopEarly(state, maxConductCount);
+                    break;
+                }
+            } finally {
+                metricsUtil.stop(iteration, MetricsUtil.AGENT_ITERATION, "agent", "supervisor");
+            }
         }
     }
 
+    private void stopEarly(DeepResearchState state, int maxConductCount) {
+        int saved = Math.max(0, maxConductCount - state.getConductCount());
+        state.setSavedConductCount(state.getSavedConductCount() + saved);
+        double novelty = state.getSupervisorConvergence().getLastNovelty();
+        log.info("Supervisor converged early: researchId='{}', novelty={}, savedConducts={}",
+                state.getResearchId(), novelty, saved);
+        eventPublisher.publishEvent(state.getResearchId(), EventType.SUPERVISOR,
+                "研究发现趋于饱和，提前结束研究",
+                String.format("新增信息占比 %.2f 低于阈值 %.2f，节省 %d 次研究任务配额",
+                        novelty, state.getSupervisorConvergence().getThreshold(), saved),
+                state.getCurrentSupervisorEventId());
+    }
+
     private void action(AgentAbility agent, List<ToolExecutionRequest> toolExecutionRequests, DeepResearchState state) {
         if (toolExecutionRequests == null || toolExecutionRequests.isEmpty()) {
             return;
@@ -145,17 +191,30 @@ public class SupervisorAgent {
                 state.setSearchCount(0);  // 重置搜索计数
                 state.setResearcherNotes(new ArrayList<>());
 
-                result = researcherAgent.run(state);
+                try {
+                    result = metricsUtil.time(MetricsUtil.TOOL_EXECUTION, () -> researcherAgent.run(state),
+                            "agent", "supervisor", "tool", toolExecutionRequest.name());
+                } finally {
+                    traceUtil.closeSpan(planEventId);
+                }
+
+                // 增量报告模式下立即在后台起草本单元的章节
+                state.getResearchUnits().add(new ResearchUnit(researchTopic, result, planEventId,
+                        ReportMode.INCREMENTAL.equals(state.getBudget().getReportMode())
+                                ? reportAgent.draftSectionAsync(state, researchTopic, result, planEventId)
+                                : null));
 
                 // 增加 conductCount
                 state.setConductCount(state.getConductCount() + 1);
+                state.getSupervisorConvergence().observe(result);
             } else {
                 var executor = toolRegistry.getExecutor(toolExecutionRequest.name());
                 if (executor == null) {
                     log.warn("No executor found for tool {} in stage {}", toolExecutionRequest.name(), SUPERVISOR_STAGE);
                     continue;
                 }
-                result = executor.execute(toolExecutionRequest, null);
+                result = metricsUtil.time(MetricsUtil.TOOL_EXECUTION, () -> executor.execute(toolExecutionRequest, null),
+                        "agent", "supervisor", "tool", toolExecutionRequest.name());
             }
 
             if (toolExecutionRequest.name().equals("thinkTool")) {
@@ -0,0 +1,12 @@
+package dev.chanler.researcher.application.data;
+
+/**
+ * 模型角色，每个模型配置可为不同角色指定同一接口下的子模型
+ * @author: Chanler
+ */
+public class ModelRole {
+    public static final String PLANNER = "PLANNER";         // 工具路由、规划 (Scope/Supervisor/Researcher)
+    public static final String SUMMARIZER = "SUMMARIZER";   // 网页摘要
+    public static final String COMPRESSOR = "COMPRESSOR";   // 研究结果压缩，未配置时沿用 SUMMARIZER
+    public static final String WRITER = "WRITER";           // 最终报告撰写
+}
@@ -0,0 +1,11 @@
+package dev.chanler.researcher.application.data;
+
+/**
+ * 报告生成方式
+ * @author: Chanler
+ */
+public class ReportMode {
+    public static final String BARRIER = "BARRIER";           // 全部研究单元完成后一次性撰写
+    public static final String INCREMENTAL = "INCREMENTAL";   // 研究单元完成即后台起草章节，最后合并
+    public static final String MAP_REDUCE = "MAP_REDUCE";     // 报告阶段按研究单元并行起草章节后合并，BARRIER 模式下研究发现超过阈值时也会自动启用
+}
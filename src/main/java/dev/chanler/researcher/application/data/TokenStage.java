@@ -0,0 +1,15 @@
+package dev.chanler.researcher.application.data;
+
+/**
+ * Token 记账阶段，用于按阶段和模型拆分用量
+ * @author: Chanler
+ */
+public class TokenStage {
+    public static final String SCOPE = "scope";                        // 需求澄清与研究简报
+    public static final String SUPERVISOR = "supervisor";              // 研究规划决策
+    public static final String RESEARCHER = "researcher";              // 研究员工具路由
+    public static final String SEARCH_SUMMARIZE = "search-summarize";  // 网页摘要
+    public static final String COMPRESS = "compress";                  // 研究结果压缩
+    public static final String REPORT_SECTION = "report-section";      // 报告章节起草
+    public static final String REPORT = "report";                      // 最终报告撰写或合并
+}
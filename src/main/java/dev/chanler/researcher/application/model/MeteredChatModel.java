@@ -0,0 +1,71 @@
+package dev.chanler.researcher.application.model;
+
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.ChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+
+import java.util.Set;
+
+/**
+ * ChatModel decorator recording latency and token usage of one model role
+ * @author: Chanler
+ */
+public class MeteredChatModel implements ChatModel {
+
+    private final ChatModel delegate;
+    private final String role;
+    private final String modelName;
+    private final ModelRoleStats stats;
+    private final MetricsUtil metricsUtil;
+
+    public MeteredChatModel(ChatModel delegate, String role, String modelName,
+                            ModelRoleStats stats, MetricsUtil metricsUtil) {
+        this.delegate = delegate;
+        this.role = role;
+        this.modelName = modelName;
+        this.stats = stats;
+        this.metricsUtil = metricsUtil;
+    }
+
+    @Override
+    public ChatResponse chat(ChatRequest chatRequest) {
+        long start = System.currentTimeMillis();
+        ChatResponse chatResponse = metricsUtil.time(MetricsUtil.LLM_CALL, () -> delegate.chat(chatRequest),
+                "model", modelName, "role", role);
+        TokenUsage tokenUsage = chatResponse.tokenUsage();
+        Integer inputTokens = tokenUsage == null ? null : tokenUsage.inputTokenCount();
+        Integer outputTokens = tokenUsage == null ? null : tokenUsage.outputTokenCount();
+        stats.record(role, modelName, System.currentTimeMillis() - start, inputTokens, outputTokens);
+        if (inputTokens != null) {
+            metricsUtil.count(MetricsUtil.LLM_TOKENS, inputTokens,
+                    "model", modelName, "role", role, "direction", "input");
+        }
+        if (outputTokens != null) {
+            metricsUtil.count(MetricsUtil.LLM_TOKENS, outputTokens,
+                    "model", modelName, "role", role, "direction", "output");
+        }
+        return chatResponse;
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+}
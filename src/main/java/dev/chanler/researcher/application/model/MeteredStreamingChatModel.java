@@ -0,0 +1,162 @@
+package dev.chanler.researcher.application.model;
+
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import dev.langchain4j.model.chat.Capability;
+import dev.langchain4j.model.chat.StreamingChatModel;
+import dev.langchain4j.model.chat.request.ChatRequest;
+import dev.langchain4j.model.chat.request.ChatRequestParameters;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.chat.response.CompleteToolCall;
+import dev.langchain4j.model.chat.response.PartialResponse;
+import dev.langchain4j.model.chat.response.PartialResponseContext;
+import dev.langchain4j.model.chat.response.PartialThinking;
+import dev.langchain4j.model.chat.response.PartialThinkingContext;
+import dev.langchain4j.model.chat.response.PartialToolCall;
+import dev.langchain4j.model.chat.response.PartialToolCallContext;
+import dev.langchain4j.model.chat.response.StreamingChatResponseHandler;
+import dev.langchain4j.model.output.TokenUsage;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.Set;
+
+/**
+ * StreamingChatModel decorator recording latency and token usage of one model role,
+ * measured when the stream completes or fails
+ * @author: Chanler
+ */
+public class MeteredStreamingChatModel implements StreamingChatModel {
+
+    private final StreamingChatModel delegate;
+    private final String role;
+    private final String modelName;
+    private final ModelRoleStats stats;
+    private final MetricsUtil metricsUtil;
+
+    public MeteredStreamingChatModel(StreamingChatModel delegate, String role, String modelName,
+                                     ModelRoleStats stats, MetricsUtil metricsUtil) {
+        this.delegate = delegate;
+        this.role = role;
+        this.modelName = modelName;
+        this.stats = stats;
+        this.metricsUtil = metricsUtil;
+    }
+
+    @Override
+    public void chat(ChatRequest chatRequest, StreamingChatResponseHandler handler) {
+        MeteredHandler meteredHandler = new MeteredHandler(handler);
+        try {
+            delegate.chat(chatRequest, meteredHandler);
+        } catch (RuntimeException e) {
+            meteredHandler.recordError();
+            throw e;
+        }
+    }
+
+    @Override
+    public ChatRequestParameters defaultRequestParameters() {
+        return delegate.defaultRequestParameters();
+    }
+
+    @Override
+    public Set<Capability> supportedCapabilities() {
+        return delegate.supportedCapabilities();
+    }
+
+    public String getRole() {
+        return role;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    /**
+     * 转发所有回调，首次 onCompleteResponse / onError 时记录一次
+     */
+    private class MeteredHandler implements StreamingChatResponseHandler {
+
+        private final StreamingChatResponseHandler delegate;
+        private final Timer.Sample sample = metricsUtil.start();
+        private final long start = System.currentTimeMillis();
+        private boolean recorded;
+
+        MeteredHandler(StreamingChatResponseHandler delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onPartialResponse(String partialResponse) {
+            delegate.onPartialResponse(partialResponse);
+        }
+
+        @Override
+        public void onPartialResponse(PartialResponse partialResponse, PartialResponseContext context) {
+            delegate.onPartialResponse(partialResponse, context);
+        }
+
+        @Override
+        public void onPartialThinking(PartialThinking partialThinking) {
+            delegate.onPartialThinking(partialThinking);
+        }
+
+        @Override
+        public void onPartialThinking(PartialThinking partialThinking, PartialThinkingContext context) {
+            delegate.onPartialThinking(partialThinking, context);
+        }
+
+        @Override
+        public void onPartialToolCall(PartialToolCall partialToolCall) {
+            delegate.onPartialToolCall(partialToolCall);
+        }
+
+        @Override
+        public void onPartialToolCall(PartialToolCall partialToolCall, PartialToolCallContext context) {
+            delegate.onPartialToolCall(partialToolCall, context);
+        }
+
+        @Override
+        public void onCompleteToolCall(CompleteToolCall completeToolCall) {
+            delegate.onCompleteToolCall(completeToolCall);
+        }
+
+        @Override
+        public void onCompleteResponse(ChatResponse chatResponse) {
+            recordSuccess(chatResponse);
+            delegate.onCompleteResponse(chatResponse);
+        }
+
+        @Override
+        public void onError(Throwable error) {
+            recordError();
+            delegate.onError(error);
+        }
+
+        private synchronized void recordSuccess(ChatResponse chatResponse) {
+            if (recorded) {
+                return;
+            }
+            recorded = true;
+            metricsUtil.stop(sample, MetricsUtil.LLM_CALL, "model", modelName, "role", role, "outcome", "success");
+            TokenUsage tokenUsage = chatResponse == null ? null : chatResponse.tokenUsage();
+            Integer inputTokens = tokenUsage == null ? null : tokenUsage.inputTokenCount();
+            Integer outputTokens = tokenUsage == null ? null : tokenUsage.outputTokenCount();
+            stats.record(role, modelName, System.currentTimeMillis() - start, inputTokens, outputTokens);
+            if (inputTokens != null) {
+                metricsUtil.count(MetricsUtil.LLM_TOKENS, inputTokens,
+                        "model", modelName, "role", role, "direction", "input");
+            }
+            if (outputTokens != null) {
+                metricsUtil.count(MetricsUtil.LLM_TOKENS, outputTokens,
+                        "model", modelName, "role", role, "direction", "output");
+            }
+        }
+
+        private synchronized void recordError() {
+            if (recorded) {
+                return;
+            }
+            recorded = true;
+            metricsUtil.stop(sample, MetricsUtil.LLM_CALL, "model", modelName, "role", role, "outcome", "error");
+        }
+    }
+}
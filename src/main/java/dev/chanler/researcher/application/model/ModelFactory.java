@@ -38,53 +38,64 @@ public class ModelFactory {
     private int timeout;
 
     public ChatModel createChatModel(Model model) {
+        return createChatModel(model, model == null ? null : model.getModel());
+    }
+
+    /**
+     * 使用模型配置的接口地址和 Key 创建指定 modelName 的模型，用于角色子模型
+     */
+    public ChatModel createChatModel(Model model, String modelName) {
         if (model == null || model.getId() == null) {
             throw new ResearchException("模型不应为空");
         }
         if (isGlobalModel(model)) {
-            return chatModelCache.computeIfAbsent(model.getId(), key -> {
-                log.info("初始化模型 {} ({})", model.getName(), model.getId());
-                return buildChatModel(model);
+            return chatModelCache.computeIfAbsent(model.getId() + ":" + modelName, key -> {
+                log.info("初始化模型 {} ({}): {}", model.getName(), model.getId(), modelName);
+                return buildChatModel(model, modelName);
             });
         }
-        log.info("初始化自定义模型 {} ({})", model.getName(), model.getId());
-        return buildChatModel(model);
+        log.info("初始化自定义模型 {} ({}): {}", model.getName(), model.getId(), modelName);
+        return buildChatModel(model, modelName);
     }
 
     public StreamingChatModel createStreamingChatModel(Model model) {
+        return createStreamingChatModel(model, model == null ? null : model.getModel());
+    }
+
+    public StreamingChatModel createStreamingChatModel(Model model, String modelName) {
         if (model == null || model.getId() == null) {
             throw new ResearchException("模型不应为空");
         }
         if (isGlobalModel(model)) {
-            return streamingChatModelCache.computeIfAbsent(model.getId(), key -> {
-                log.info("初始化流式模型 {} ({})", model.getName(), model.getId());
-                return buildStreamingChatModel(model);
+            return streamingChatModelCache.computeIfAbsent(model.getId() + ":" + modelName, key -> {
+                log.info("初始化流式模型 {} ({}): {}", model.getName(), model.getId(), modelName);
+                return buildStreamingChatModel(model, modelName);
             });
         }
-        log.info("初始化自定义流式模型 {} ({})", model.getName(), model.getId());
-        return buildStreamingChatModel(model);
+        log.info("初始化自定义流式模型 {} ({}): {}", model.getName(), model.getId(), modelName);
+        return buildStreamingChatModel(model, modelName);
     }
     
     private boolean isGlobalModel(Model model) {
         return model != null && GLOBAL_MODEL_TYPE.equalsIgnoreCase(model.getType());
     }
 
-    private ChatModel buildChatModel(Model model) {
+    private ChatModel buildChatModel(Model model, String modelName) {
         return OpenAiChatModel.builder()
                 .baseUrl(model.getBaseUrl())
                 .apiKey(model.getApiKey())
-                .modelName(model.getModel())
+                .modelName(modelName)
                 .timeout(Duration.ofSeconds(timeout))
                 .logRequests(logRequestsEnabled)
                 .logResponses(logResponsesEnabled)
                 .build();
     }
 
-    private StreamingChatModel buildStreamingChatModel(Model model) {
+    private StreamingChatModel buildStreamingChatModel(Model model, String modelName) {
         return OpenAiStreamingChatModel.builder()
                 .baseUrl(model.getBaseUrl())
                 .apiKey(model.getApiKey())
-                .modelName(model.getModel())
+                .modelName(modelName)
                 .timeout(Duration.ofSeconds(timeout))
                 .logRequests(logRequestsEnabled)
                 .logResponses(logResponsesEnabled)
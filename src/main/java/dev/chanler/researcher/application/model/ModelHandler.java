@@ -1,43 +1,103 @@
 package dev.chanler.researcher.application.model;
 
+import dev.chanler.researcher.application.data.ModelRole;
 import dev.chanler.researcher.domain.entity.Model;
+import dev.chanler.researcher.infra.util.MetricsUtil;
 import dev.langchain4j.model.chat.ChatModel;
 import dev.langchain4j.model.chat.StreamingChatModel;
 import org.springframework.stereotype.Component;
 
+import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
+ * 按 researchId 持有模型，每个角色可路由到不同的子模型
  * @author: Chanler
  */
 @Component
 public class ModelHandler {
+    private static final List<String> ROLES = List.of(
+            ModelRole.PLANNER, ModelRole.SUMMARIZER, ModelRole.COMPRESSOR, ModelRole.WRITER);
+
     private final ModelFactory modelFactory;
-    private final Map<String, ChatModel> modelPool = new ConcurrentHashMap<>();
-    private final Map<String, StreamingChatModel> streamingModelPool = new ConcurrentHashMap<>();
+    private final MetricsUtil metricsUtil;
+    private final Map<String, Map<String, ChatModel>> modelPool = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, StreamingChatModel>> streamingModelPool = new ConcurrentHashMap<>();
+    private final Map<String, ModelRoleStats> statsPool = new ConcurrentHashMap<>();
 
-    public ModelHandler(ModelFactory modelFactory) {
+    public ModelHandler(ModelFactory modelFactory, MetricsUtil metricsUtil) {
         this.modelFactory = modelFactory;
+        this.metricsUtil = metricsUtil;
     }
 
     public ChatModel getModel(String researchId) {
-        return modelPool.get(researchId);
+        return getModel(researchId, ModelRole.PLANNER);
+    }
+
+    public ChatModel getModel(String researchId, String role) {
+        Map<String, ChatModel> models = modelPool.get(researchId);
+        return models == null ? null : models.get(role);
     }
 
     public StreamingChatModel getStreamModel(String researchId) {
-        return streamingModelPool.get(researchId);
+        return getStreamModel(researchId, ModelRole.PLANNER);
+    }
+
+    public StreamingChatModel getStreamModel(String researchId, String role) {
+        Map<String, StreamingChatModel> models = streamingModelPool.get(researchId);
+        return models == null ? null : models.get(role);
+    }
+
+    public ModelRoleStats getRoleStats(String researchId) {
+        return statsPool.get(researchId);
     }
 
     public void addModel(String researchId, Model model) {
-        ChatModel chatModel = modelFactory.createChatModel(model);
-        StreamingChatModel streamingChatModel = modelFactory.createStreamingChatModel(model);
-        modelPool.put(researchId, chatModel);
-        streamingModelPool.put(researchId, streamingChatModel);
+        ModelRoleStats stats = new ModelRoleStats();
+        Map<String, ChatModel> models = new HashMap<>();
+        Map<String, StreamingChatModel> streamingModels = new HashMap<>();
+        // 多个角色常路由到同一子模型，每个不同的 modelName 只创建一个客户端
+        Map<String, ChatModel> clients = new HashMap<>();
+        Map<String, StreamingChatModel> streamingClients = new HashMap<>();
+        for (String role : ROLES) {
+            String modelName = resolveModelName(model, role);
+            ChatModel chatModel = clients.computeIfAbsent(modelName,
+                    name -> modelFactory.createChatModel(model, name));
+            models.put(role, new MeteredChatModel(chatModel, role, modelName, stats, metricsUtil));
+            StreamingChatModel streamingChatModel = streamingClients.computeIfAbsent(modelName,
+                    name -> modelFactory.createStreamingChatModel(model, name));
+            streamingModels.put(role, new MeteredStreamingChatModel(streamingChatModel, role, modelName,
+                    stats, metricsUtil));
+        }
+        statsPool.put(researchId, stats);
+        modelPool.put(researchId, models);
+        streamingModelPool.put(researchId, streamingModels);
     }
 
     public void removeModel(String researchId) {
         modelPool.remove(researchId);
         streamingModelPool.remove(researchId);
+        statsPool.remove(researchId);
+    }
+
+    /**
+     * 角色子模型未配置时回退: COMPRESSOR -> SUMMARIZER -> 默认模型
+     */
+    static String resolveModelName(Model model, String role) {
+        String modelName = switch (role) {
+            case ModelRole.PLANNER -> model.getPlannerModel();
+            case ModelRole.SUMMARIZER -> model.getSummarizerModel();
+            case ModelRole.COMPRESSOR -> isBlank(model.getCompressorModel())
+                    ? model.getSummarizerModel() : model.getCompressorModel();
+            case ModelRole.WRITER -> model.getWriterModel();
+            default -> null;
+        };
+        return isBlank(modelName) ? model.getModel() : modelName;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
     }
 }
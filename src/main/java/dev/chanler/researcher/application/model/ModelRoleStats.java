@@ -0,0 +1,80 @@
+package dev.chanler.researcher.application.model;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Per-research latency and token usage, grouped by model role
+ * @author: Chanler
+ */
+public class ModelRoleStats {
+
+    private final Map<String, RoleStats> roles = new ConcurrentHashMap<>();
+
+    public void record(String role, String modelName, long latencyMs, Integer inputTokens, Integer outputTokens) {
+        RoleStats stats = roles.computeIfAbsent(role, key -> new RoleStats(modelName));
+        stats.calls.increment();
+        stats.latencyMs.add(latencyMs);
+        if (inputTokens != null) {
+            stats.inputTokens.add(inputTokens);
+        }
+        if (outputTokens != null) {
+            stats.outputTokens.add(outputTokens);
+        }
+    }
+
+    public Map<String, RoleStats> getRoles() {
+        return new TreeMap<>(roles);
+    }
+
+    /**
+     * 单行汇总，用于日志
+     */
+    public String summary() {
+        return getRoles().entrySet().stream()
+                .map(entry -> entry.getKey() + "(" + entry.getValue() + ")")
+                .collect(Collectors.joining(", "));
+    }
+
+    public static class RoleStats {
+        private final String modelName;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder latencyMs = new LongAdder();
+        private final LongAdder inputTokens = new LongAdder();
+        private final LongAdder outputTokens = new LongAdder();
+
+        RoleStats(String modelName) {
+            this.modelName = modelName;
+        }
+
+        public String getModelName() {
+            return modelName;
+        }
+
+        public long getCalls() {
+            return calls.sum();
+        }
+
+        public long getLatencyMs() {
+            return latencyMs.sum();
+        }
+
+        public long getInputTokens() {
+            return inputTokens.sum();
+        }
+
+        public long getOutputTokens() {
+            return outputTokens.sum();
+        }
+
+        @Override
+        public String toString() {
+            long count = getCalls();
+            return String.format("model=%s, calls=%d, avgLatencyMs=%d, inputTokens=%d, outputTokens=%d",
+                    modelName, count, count == 0 ? 0 : getLatencyMs() / count, getInputTokens(), getOutputTokens());
+        }
+    }
+}
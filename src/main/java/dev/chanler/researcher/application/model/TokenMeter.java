@@ -0,0 +1,118 @@
+package dev.chanler.researcher.application.model;
+
+import dev.chanler.researcher.application.state.DeepResearchState;
+import dev.chanler.researcher.application.state.TokenLedger;
+import dev.chanler.researcher.domain.mapper.ResearchTokenUsageMapper;
+import dev.chanler.researcher.infra.data.TokenUsageDelta;
+import dev.chanler.researcher.infra.exception.TokenBudgetExceededException;
+import dev.chanler.researcher.infra.sse.SseHub;
+import dev.chanler.researcher.infra.util.SessionStateUtil;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Records every LLM call into the run's TokenLedger, streams usage deltas over SSE,
+ * flushes incrementally and enforces the budget's token cap
+ * @author: Chanler
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TokenMeter {
+
+    private static final String UNKNOWN_MODEL = "unknown";
+    // 未刷盘调用数或间隔达到任一阈值即刷盘
+    private static final int FLUSH_MAX_PENDING_CALLS = 8;
+    private static final long FLUSH_INTERVAL_MS = 5_000L;
+
+    private final ResearchTokenUsageMapper researchTokenUsageMapper;
+    private final SessionStateUtil sessionStateUtil;
+    private final SseHub sseHub;
+
+    /**
+     * 记录一次 LLM 调用，超过预算时抛出 TokenBudgetExceededException
+     */
+    public void record(DeepResearchState state, String stage, ChatResponse chatResponse) {
+        TokenUsage tokenUsage = chatResponse.tokenUsage();
+        state.addTokenUsage(tokenUsage);
+        long inputTokens = tokenUsage == null || tokenUsage.inputTokenCount() == null
+                ? 0 : tokenUsage.inputTokenCount();
+        long outputTokens = tokenUsage == null || tokenUsage.outputTokenCount() == null
+                ? 0 : tokenUsage.outputTokenCount();
+        String modelName = chatResponse.modelName() != null ? chatResponse.modelName() : UNKNOWN_MODEL;
+
+        TokenLedger ledger = state.getTokenLedger();
+        long usedTokens = ledger.record(stage, modelName, inputTokens, outputTokens);
+        long maxTotalTokens = state.getBudget().getMaxTotalTokens();
+        sseHub.sendTokenUsage(state.getResearchId(), TokenUsageDelta.builder()
+                .stage(stage)
+                .modelName(modelName)
+                .inputTokens(inputTokens)
+                .outputTokens(outputTokens)
+                .totalInputTokens(ledger.getTotalInputTokens())
+                .totalOutputTokens(ledger.getTotalOutputTokens())
+                .maxTotalTokens(maxTotalTokens)
+                .build());
+
+        if (ledger.shouldFlush(FLUSH_MAX_PENDING_CALLS, FLUSH_INTERVAL_MS)) {
+            Flushed flushed = persist(state.getResearchId(), ledger.drain());
+            if (flushed.inputTokens() > 0 || flushed.outputTokens() > 0) {
+                // 会话合计进入状态缓存，随状态批量刷盘
+                sessionStateUtil.addTokens(state.getResearchId(),
+                        flushed.inputTokens(), flushed.outputTokens());
+            }
+        }
+
+        if (maxTotalTokens > 0 && usedTokens > maxTotalTokens) {
+            log.warn("Token budget exceeded: researchId={}, used={}, max={}",
+                    state.getResearchId(), usedTokens, maxTotalTokens);
+            throw new TokenBudgetExceededException(usedTokens, maxTotalTokens);
+        }
+    }
+
+    /**
+     * 写入剩余的按阶段用量，返回尚未计入 research_session 的合计，由调用方随状态更新一起写入
+     */
+    public Flushed drain(DeepResearchState state) {
+        if (state.getTokenLedger() == null) {
+            return new Flushed(0, 0);
+        }
+        return persist(state.getResearchId(), state.getTokenLedger().drain());
+    }
+
+    /**
+     * 粗略估算文本 Token 数：汉字约 1 token/字，其余约 4 字符/token，用于选择报告策略
+     */
+    public static long estimate(String text) {
+        if (text == null || text.isEmpty()) {
+            return 0;
+        }
+        long han = 0;
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.UnicodeScript.of(text.charAt(i)) == Character.UnicodeScript.HAN) {
+                han++;
+            }
+        }
+        return han + (text.length() - han + 3) / 4;
+    }
+
+    private Flushed persist(String researchId, List<TokenLedger.Entry> entries) {
+        long inputTokens = 0;
+        long outputTokens = 0;
+        for (TokenLedger.Entry entry : entries) {
+            researchTokenUsageMapper.upsertUsage(researchId, entry.stage(), entry.modelName(),
+                    entry.calls(), entry.inputTokens(), entry.outputTokens());
+            inputTokens += entry.inputTokens();
+            outputTokens += entry.outputTokens();
+        }
+        return new Flushed(inputTokens, outputTokens);
+    }
+
+    public record Flushed(long inputTokens, long outputTokens) {
+    }
+}
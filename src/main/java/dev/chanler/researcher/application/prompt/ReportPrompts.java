@@ -23,6 +23,10 @@ public class ReportPrompts {
             {findings}
             </Research Findings>
 
+            <Sources>
+            {sources}
+            </Sources>
+
             <Language Rule>
             【强制】报告语言必须与用户原始请求的语言一致。
             - 用户用中文提问 → 报告用中文
@@ -103,12 +107,88 @@ public class ReportPrompts {
             [3] [来源标题](URL)
 
             **引用原则**：
+            - <Sources> 是本次研究去重后的来源清单，研究发现中的 [S编号] 与其对应
+            - 同一 URL 只分配一个引用编号，来源列表中不得重复出现
             - 【强制】所有事实性陈述必须有来源支撑
             - 【强制】引用编号必须连续（1,2,3...不跳号）
             - 【强制】来源列表必须包含所有引用的URL
             - 【强制】URL必须完整、可点击
             </Citation Rules>
 
+            今天的日期是 {date}。
+            """;
+
+    public final static String REPORT_SECTION_PROMPT = """
+            你是专业的研究报告撰写专员，负责将一个研究单元的发现写成最终报告中的一个章节。
+
+            <Research Brief>
+            {research_brief}
+            </Research Brief>
+
+            <Section Topic>
+            {research_topic}
+            </Section Topic>
+
+            <Research Findings>
+            {findings}
+            </Research Findings>
+
+            <Sources>
+            {sources}
+            </Sources>
+
+            <Language Rule>
+            【强制】章节语言必须与 <Research Brief> 的语言一致，研究发现可能是英文，但章节必须使用该语言。
+            </Language Rule>
+
+            <Section Rules>
+            - 只输出一个章节：以二级标题 ## 开头，可使用 ### 小节、表格和项目符号
+            - 不写报告标题、概述、结论，也不写来源列表，这些由最终合并步骤完成
+            - 引用研究发现中的具体数据、事实、数字，提供分析而不只是罗列
+            - 不使用第一人称，不写"本章将讨论..."等元描述
+            </Section Rules>
+
+            <Citation Rules>
+            - 研究发现中的来源带有会话内唯一编号，如 [S3]，与 <Sources> 对应，引用时原样沿用 [S编号]，不要重新编号
+            - 【强制】所有事实性陈述必须有来源支撑
+            </Citation Rules>
+
+            今天的日期是 {date}。
+            """;
+
+    public final static String REPORT_MERGE_PROMPT = """
+            你是专业的研究报告撰写专员。报告的各个章节已经写好，你需要为整份报告撰写标题、概述和结论。
+
+            <Research Brief>
+            {research_brief}
+            </Research Brief>
+
+            <Planning Notes>
+            {planning_notes}
+            </Planning Notes>
+
+            <Sections>
+            {sections}
+            </Sections>
+
+            <Sources>
+            {sources}
+            </Sources>
+
+            <Language Rule>
+            【强制】输出语言必须与 <Research Brief> 的语言一致。
+            </Language Rule>
+
+            <Output Rules>
+            - title：报告标题，不带 # 号
+            - introduction：以 "## " 二级标题开头的概述章节，交代研究背景并概括各章节的核心发现
+            - conclusion：以 "## " 二级标题开头的结论章节，给出跨章节的关键洞察、结论与建议
+            - 不要复述章节原文，不写来源列表
+            - 引用章节中的事实时原样沿用其中的 [S编号]，编号与 <Sources> 对应
+            - <Planning Notes> 是研究规划阶段的思考，可用于组织概述和结论
+            - 不使用第一人称，直接、专业、权威的语气
+            </Output Rules>
+
             今天的日期是 {date}。
             """;
 }
@@ -124,23 +124,23 @@ public class ResearcherPrompts {
 
             ### {主题/方面 1}
 
-            {详细内容，包含具体事实、数据、引用}[1][2]
+            {详细内容，包含具体事实、数据、引用}[S1][S2]
 
             ### {主题/方面 2}
 
-            {详细内容}[3]
+            {详细内容}[S3]
 
             ## 来源列表
 
-            [1] {来源标题}: {URL}
-            [2] {来源标题}: {URL}
+            [S1] {来源标题}: {URL}
+            [S2] {来源标题}: {URL}
             </Output Format>
 
             <Citation Rules>
-            1. 为每个唯一 URL 分配连续编号 [1], [2], [3]...
-            2. 在正文中使用行内引用标记信息来源
-            3. 在文末"来源列表"中列出所有引用的 URL
-            4. 格式：[n] 来源标题: URL
+            1. 搜索结果中的来源已带有会话内唯一编号（如 SOURCE S3），直接沿用 [S3] 作为引用编号，不要重新编号
+            2. 标注 already retrieved 的来源已在其他搜索中总结过，只保留其编号和 URL，不要臆造内容
+            3. 在正文中使用行内引用标记信息来源
+            4. 在文末"来源列表"中列出所有引用的 URL，格式：[S编号] 来源标题: URL
             5. 【重要】不得丢失任何来源——下游报告生成依赖完整的引用
             </Citation Rules>
 
@@ -0,0 +1,25 @@
+package dev.chanler.researcher.application.schema;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import dev.langchain4j.model.output.structured.Description;
+
+/**
+ * @author: Chanler
+ */
+public class ReportSchema {
+
+    public record Framing(
+            @JsonProperty(required = true)
+            @Description("Report title without the leading # mark.")
+            String title,
+
+            @JsonProperty(required = true)
+            @Description("Overview section of the report, starting with a level-2 markdown heading.")
+            String introduction,
+
+            @JsonProperty(required = true)
+            @Description("Conclusion section of the report, starting with a level-2 markdown heading.")
+            String conclusion
+    ) {
+    }
+}
@@ -0,0 +1,141 @@
+package dev.chanler.researcher.application.state;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Tracks marginal information gain of a research loop using cheap signals:
+ * URL overlap and shingled text similarity against what has been seen so far
+ * @author: Chanler
+ */
+public class ConvergenceDetector {
+
+    private static final int SHINGLE_SIZE = 5;
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\p{IsHan}|[\\p{L}\\p{N}]+");
+    private static final Pattern URL_PATTERN = Pattern.compile("https?://[^\\s)\\]>\"']+");
+
+    private final double threshold;
+    private final int patience;
+    private final Set<String> seenUrls = new HashSet<>();
+    private final Set<Long> seenShingles = new HashSet<>();
+
+    private int staleRounds;
+    private double lastNovelty = 1.0;
+
+    /**
+     * @param threshold 新增信息占比低于该值视为无增益
+     * @param patience  连续无增益轮数达到该值判定收敛，0 表示关闭
+     */
+    public ConvergenceDetector(double threshold, int patience) {
+        this.threshold = threshold;
+        this.patience = patience;
+    }
+
+    /**
+     * 标记已知 URL，不计入新增信息
+     */
+    public synchronized void markSeen(Collection<String> urls) {
+        seenUrls.addAll(urls);
+    }
+
+    /**
+     * 记录一轮结果并返回其新增信息占比 (0~1)
+     */
+    public synchronized double observe(Collection<String> urls, String text) {
+        int totalUrls = 0;
+        int newUrls = 0;
+        for (String url : urls) {
+            totalUrls++;
+            if (seenUrls.add(url)) {
+                newUrls++;
+            }
+        }
+
+        Set<Long> shingles = shingles(text);
+        int newShingles = 0;
+        for (Long shingle : shingles) {
+            if (seenShingles.add(shingle)) {
+                newShingles++;
+            }
+        }
+
+        double textNovelty = shingles.isEmpty() ? 0.0 : (double) newShingles / shingles.size();
+        double novelty = totalUrls == 0
+                ? textNovelty
+                : 0.5 * newUrls / totalUrls + 0.5 * textNovelty;
+        record(novelty);
+        return novelty;
+    }
+
+    /**
+     * 记录一轮结果，URL 从文本中提取
+     */
+    public double observe(String text) {
+        Set<String> urls = new HashSet<>();
+        if (text != null) {
+            Matcher matcher = URL_PATTERN.matcher(text);
+            while (matcher.find()) {
+                urls.add(matcher.group());
+            }
+        }
+        return observe(urls, text);
+    }
+
+    /**
+     * 记录一轮没有产出的迭代
+     */
+    public synchronized void observeNothing() {
+        record(0.0);
+    }
+
+    public synchronized boolean converged() {
+        return patience > 0 && staleRounds >= patience;
+    }
+
+    public synchronized double getLastNovelty() {
+        return lastNovelty;
+    }
+
+    public double getThreshold() {
+        return threshold;
+    }
+
+    private void record(double novelty) {
+        lastNovelty = novelty;
+        staleRounds = novelty < threshold ? staleRounds + 1 : 0;
+    }
+
+    private static Set<Long> shingles(String text) {
+        Set<Long> shingles = new HashSet<>();
+        if (text == null || text.isEmpty()) {
+            return shingles;
+        }
+        Matcher matcher = TOKEN_PATTERN.matcher(text.toLowerCase(Locale.ROOT));
+        long[] window = new long[SHINGLE_SIZE];
+        int count = 0;
+        while (matcher.find()) {
+            window[count % SHINGLE_SIZE] = fnv1a(matcher.group());
+            count++;
+            if (count >= SHINGLE_SIZE) {
+                long hash = 0xcbf29ce484222325L;
+                for (int i = count - SHINGLE_SIZE; i < count; i++) {
+                    hash = (hash ^ window[i % SHINGLE_SIZE]) * 0x100000001b3L;
+                }
+                shingles.add(hash);
+            }
+        }
+        return shingles;
+    }
+
+    private static long fnv1a(String token) {
+        long hash = 0xcbf29ce484222325L;
+        for (int i = 0; i < token.length(); i++) {
+            hash = (hash ^ token.charAt(i)) * 0x100000001b3L;
+        }
+        return hash;
+    }
+}
@@ -1,12 +1,13 @@
 package dev.chanler.researcher.application.state;
 
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import dev.chanler.researcher.application.schema.ScopeSchema;
-import dev.chanler.researcher.infra.client.TavilyClient;
 import dev.chanler.researcher.infra.config.BudgetProps;
 import dev.langchain4j.data.message.ChatMessage;
+import dev.langchain4j.model.output.TokenUsage;
 import lombok.Builder;
 import lombok.Data;
 
@@ -20,6 +21,7 @@ public class DeepResearchState {
 
     // === 基础信息 ===
     private String researchId;
+    private Long userId;
     private List<ChatMessage> chatHistory;  // 包含历史消息 + 本次消息
     private String status;
 
@@ -35,31 +37,76 @@ public class DeepResearchState {
     private Integer supervisorIterations; // 当前迭代次数
     private Integer conductCount;         // 当前 conductResearch 调用次数
     private List<String> supervisorNotes;
+    private ConvergenceDetector supervisorConvergence;
 
     // === Researcher 阶段 ===
     private String researchTopic;
     private Integer researcherIterations; // 当前迭代次数
     private Integer searchCount;          // 当前 tavilySearch 调用次数
     private List<String> researcherNotes;
+    private ConvergenceDetector researcherConvergence;
     private String compressedResearch;
 
-    // === Search 阶段 ===
-    private String query;
-    private Integer maxResults;
-    private String topic;
-    private Map<String, TavilyClient.SearchResult> searchResults;
-    private List<String> searchNotes;
+    // === 来源登记 (整个研究会话共享) ===
+    private SourceRegistry sourceRegistry;
 
     // === Report 阶段 ===
+    private List<ResearchUnit> researchUnits;  // 按完成顺序记录的研究单元
     private String report;
 
+    // === 后台子任务 (章节起草等)，研究结束时统一取消 ===
+    @Builder.Default
+    private List<CompletableFuture<?>> backgroundTasks = new CopyOnWriteArrayList<>();
+    private volatile boolean finished;
+
     // === 事件层级追踪 (用于 parentEventId) ===
     private Long currentScopeEventId;
     private Long currentSupervisorEventId;
     private Long currentResearchEventId;
-    private Long currentSearchEventId;
+    private Long currentReportEventId;
+
+    // === 提前终止统计 (节省的配额) ===
+    private Integer savedSearchCount;
+    private Integer savedConductCount;
 
     // === Token 统计 ===
     private Long totalInputTokens;
     private Long totalOutputTokens;
+    private TokenLedger tokenLedger;  // 按阶段和模型拆分，增量刷盘
+
+    /**
+     * 登记后台子任务；研究已结束时立即取消
+     */
+    public <T> CompletableFuture<T> track(CompletableFuture<T> task) {
+        backgroundTasks.add(task);
+        if (finished) {
+            task.cancel(true);
+        }
+        return task;
+    }
+
+    /**
+     * 研究结束时调用，取消仍在运行的后台子任务，之后登记的任务也会被立即取消
+     */
+    public void cancelBackgroundTasks() {
+        finished = true;
+        for (CompletableFuture<?> task : backgroundTasks) {
+            task.cancel(true);
+        }
+    }
+
+    /**
+     * 累加 token 用量，工具调用可能并行执行
+     */
+    public synchronized void addTokenUsage(TokenUsage tokenUsage) {
+        if (tokenUsage == null) {
+            return;
+        }
+        if (tokenUsage.inputTokenCount() != null) {
+            totalInputTokens += tokenUsage.inputTokenCount();
+        }
+        if (tokenUsage.outputTokenCount() != null) {
+            totalOutputTokens += tokenUsage.outputTokenCount();
+        }
+    }
 }
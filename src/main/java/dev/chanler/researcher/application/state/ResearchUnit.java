@@ -0,0 +1,15 @@
+package dev.chanler.researcher.application.state;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 一个 conductResearch 研究单元的产出
+ * @param topic        研究主题
+ * @param findings     压缩后的研究发现
+ * @param eventId      该单元的 Supervisor 事件，章节起草的用量挂在其上
+ * @param sectionDraft 后台起草中的章节，非增量模式下为空
+ * @author: Chanler
+ */
+public record ResearchUnit(String topic, String findings, Long eventId,
+                           CompletableFuture<String> sectionDraft) {
+}
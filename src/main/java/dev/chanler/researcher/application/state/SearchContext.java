@@ -0,0 +1,32 @@
+package dev.chanler.researcher.application.state;
+
+import dev.chanler.researcher.infra.client.SearchProvider;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * State of a single tavilySearch call. Kept apart from DeepResearchState so that
+ * several searches of one AI message can run concurrently
+ * @author: Chanler
+ */
+@Data
+@Builder
+public class SearchContext {
+    private String query;
+    private Integer maxResults;
+    private String topic;
+    private Long searchEventId;
+    private Long unitEventId;  // 所属研究单元的事件 id
+
+    @Builder.Default
+    private Map<String, SearchProvider.SearchResult> searchResults = new LinkedHashMap<>();
+    @Builder.Default
+    private List<SourceRegistry.Source> reusedSources = new ArrayList<>();  // 已被其他搜索收录的来源
+    @Builder.Default
+    private List<String> searchNotes = new ArrayList<>();
+}
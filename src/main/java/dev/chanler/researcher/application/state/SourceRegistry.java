@@ -0,0 +1,106 @@
+package dev.chanler.researcher.application.state;
+
+import cn.hutool.core.util.StrUtil;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Session-wide registry of retrieved sources, shared by all research units.
+ * Each URL is summarized once and referenced by its id afterwards
+ * @author: Chanler
+ */
+public class SourceRegistry {
+
+    private static final Pattern SOURCE_TAG = Pattern.compile("\\[S(\\d+)]");
+
+    private final Map<String, Source> sourcesByUrl = new ConcurrentHashMap<>();
+    private final AtomicInteger nextId = new AtomicInteger(1);
+
+    public Source get(String url) {
+        return url == null ? null : sourcesByUrl.get(url);
+    }
+
+    /**
+     * 登记来源，URL 已存在时返回先登记的来源，created 为 false
+     * @param unitEventId 收录该来源的研究单元事件 id
+     */
+    public Registration register(String url, String title, String note, Long unitEventId) {
+        boolean[] created = new boolean[1];
+        Source source = sourcesByUrl.computeIfAbsent(url, key -> {
+            created[0] = true;
+            return new Source(nextId.getAndIncrement(), url, title, note, unitEventId);
+        });
+        return new Registration(source, created[0]);
+    }
+
+    public int size() {
+        return sourcesByUrl.size();
+    }
+
+    public List<Source> list() {
+        return sourcesByUrl.values().stream()
+                .sorted(Comparator.comparingInt(Source::id))
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * 去重后的来源清单，供报告阶段引用
+     */
+    public String toReferenceList() {
+        return list().stream()
+                .map(source -> StrUtil.format("[{}] {} - {}", source.tag(), source.title(), source.url()))
+                .collect(Collectors.joining("\n"));
+    }
+
+    /**
+     * 将正文中的 [S编号] 按首次出现顺序重编号为 [1] [2] ...，并追加来源列表
+     */
+    public String renderCitations(String body) {
+        Map<Integer, Source> sourcesById = sourcesByUrl.values().stream()
+                .collect(Collectors.toMap(Source::id, source -> source));
+        Map<Integer, Integer> numbers = new LinkedHashMap<>();
+        Matcher matcher = SOURCE_TAG.matcher(body);
+        StringBuilder output = new StringBuilder(body.length());
+        while (matcher.find()) {
+            int id = Integer.parseInt(matcher.group(1));
+            if (!sourcesById.containsKey(id)) {
+                // 模型编造的编号无法对应来源，直接去掉
+                matcher.appendReplacement(output, "");
+                continue;
+            }
+            int number = numbers.computeIfAbsent(id, key -> numbers.size() + 1);
+            matcher.appendReplacement(output, "[" + number + "]");
+        }
+        matcher.appendTail(output);
+
+        output.append("\n\n## 来源\n\n");
+        numbers.forEach((id, number) -> {
+            Source source = sourcesById.get(id);
+            output.append(StrUtil.format("[{}] [{}]({})\n", number, source.title(), source.url()));
+        });
+        return output.toString();
+    }
+
+    public record Registration(Source source, boolean created) {}
+
+    public record Source(int id, String url, String title, String note, Long unitEventId) {
+        public String tag() {
+            return "S" + id;
+        }
+
+        /**
+         * 是否由指定研究单元收录，同一单元的 researcher memory 中已有其内容
+         */
+        public boolean retrievedBy(Long eventId) {
+            return unitEventId != null && unitEventId.equals(eventId);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dev.chanler.researcher.application.state;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Per-run token ledger keyed by (stage, model), keeps running totals and the deltas not yet flushed
+ * @author: Chanler
+ */
+public class TokenLedger {
+
+    private final Map<Key, Usage> totals = new LinkedHashMap<>();
+    private final Map<Key, Usage> pending = new LinkedHashMap<>();
+    private long totalInputTokens;
+    private long totalOutputTokens;
+    private int pendingCalls;
+    private long lastFlushMs = System.currentTimeMillis();
+
+    /**
+     * 记录一次 LLM 调用，返回记录后的累计用量
+     */
+    public synchronized long record(String stage, String modelName, long inputTokens, long outputTokens) {
+        Key key = new Key(stage, modelName);
+        totals.computeIfAbsent(key, k -> new Usage()).add(inputTokens, outputTokens);
+        pending.computeIfAbsent(key, k -> new Usage()).add(inputTokens, outputTokens);
+        totalInputTokens += inputTokens;
+        totalOutputTokens += outputTokens;
+        pendingCalls++;
+        return totalInputTokens + totalOutputTokens;
+    }
+
+    /**
+     * 未刷盘调用数达到阈值或距上次刷盘超过间隔时需要刷盘
+     */
+    public synchronized boolean shouldFlush(int maxPendingCalls, long flushIntervalMs) {
+        return pendingCalls > 0 && (pendingCalls >= maxPendingCalls
+                || System.currentTimeMillis() - lastFlushMs >= flushIntervalMs);
+    }
+
+    /**
+     * 取出并清空未刷盘的增量，每条增量只会被取出一次
+     */
+    public synchronized List<Entry> drain() {
+        List<Entry> entries = new ArrayList<>(pending.size());
+        pending.forEach((key, usage) -> entries.add(usage.toEntry(key)));
+        pending.clear();
+        pendingCalls = 0;
+        lastFlushMs = System.currentTimeMillis();
+        return entries;
+    }
+
+    public synchronized List<Entry> snapshot() {
+        List<Entry> entries = new ArrayList<>(totals.size());
+        totals.forEach((key, usage) -> entries.add(usage.toEntry(key)));
+        return entries;
+    }
+
+    public synchronized long getTotalInputTokens() {
+        return totalInputTokens;
+    }
+
+    public synchronized long getTotalOutputTokens() {
+        return totalOutputTokens;
+    }
+
+    public record Entry(String stage, String modelName, int calls, long inputTokens, long outputTokens) {
+    }
+
+    private record Key(String stage, String modelName) {
+    }
+
+    private static class Usage {
+        private int calls;
+        private long inputTokens;
+        private long outputTokens;
+
+        void add(long input, long output) {
+            calls++;
+            inputTokens += input;
+            outputTokens += output;
+        }
+
+        Entry toEntry(Key key) {
+            return new Entry(key.stage(), key.modelName(), calls, inputTokens, outputTokens);
+        }
+    }
+}
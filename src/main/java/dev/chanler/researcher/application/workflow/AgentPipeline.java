@@ -4,18 +4,22 @@ import dev.chanler.researcher.application.agent.ScopeAgent;
 import dev.chanler.researcher.application.agent.SupervisorAgent;
 import dev.chanler.researcher.application.agent.ReportAgent;
 import dev.chanler.researcher.application.model.ModelHandler;
+import dev.chanler.researcher.application.model.ModelRoleStats;
+import dev.chanler.researcher.application.model.TokenMeter;
 import dev.chanler.researcher.infra.data.EventType;
 import dev.chanler.researcher.application.data.WorkflowStatus;
 import dev.chanler.researcher.application.state.DeepResearchState;
-import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
+import dev.chanler.researcher.infra.exception.TokenBudgetExceededException;
 import dev.chanler.researcher.infra.exception.WorkflowException;
 import dev.chanler.researcher.infra.sse.SseHub;
 import dev.chanler.researcher.infra.util.EventPublisher;
+import dev.chanler.researcher.infra.util.SessionStateUtil;
 import dev.chanler.researcher.infra.util.SequenceUtil;
 
 import dev.chanler.researcher.infra.async.QueuedAsync;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.stereotype.Component;
 
 /**
@@ -30,19 +34,23 @@ public class AgentPipeline {
     private final ReportAgent reportAgent;
     private final SequenceUtil sequenceUtil;
     private final SseHub sseHub;
-    private final ResearchSessionMapper researchSessionMapper;
     private final EventPublisher eventPublisher;
     private final ModelHandler modelHandler;
+    private final TokenMeter tokenMeter;
+    private final SessionStateUtil sessionStateUtil;
+    private final ObjectProvider<PipelineStageListener> stageListeners;
 
     @QueuedAsync
     public void run(DeepResearchState state) {
         String researchId = state.getResearchId();
+        long pipelineStart = System.currentTimeMillis();
+        fireStageStart(researchId, PipelineStageListener.PIPELINE);
         try {
             state.setStatus(WorkflowStatus.START);
             updateResearchSession(researchId, WorkflowStatus.START, state);
 
             // Phase 1: Scope - 确定研究范围和问题
-            scopeAgent.run(state);
+            runStage(state, PipelineStageListener.SCOPE, () -> scopeAgent.run(state));
 
             String status = state.getStatus();
             if (WorkflowStatus.FAILED.equals(status)) {
@@ -65,7 +73,7 @@ public class AgentPipeline {
             }
 
             // Phase 2: Supervisor - 执行研究并收集信息
-            supervisorAgent.run(state);
+            runStage(state, PipelineStageListener.SUPERVISOR, () -> supervisorAgent.run(state));
 
             status = state.getStatus();
             if (WorkflowStatus.FAILED.equals(status)) {
@@ -83,7 +91,7 @@ public class AgentPipeline {
             }
 
             // Phase 3: Report - 生成最终报告
-            reportAgent.run(state);
+            runStage(state, PipelineStageListener.REPORT, () -> reportAgent.run(state));
 
             status = state.getStatus();
             if (WorkflowStatus.FAILED.equals(status)) {
@@ -102,7 +110,15 @@ public class AgentPipeline {
 
             state.setStatus(WorkflowStatus.COMPLETED);
             updateResearchSession(researchId, WorkflowStatus.COMPLETED, state);
-            log.info("Final report generated for researchId={}", researchId);
+            log.info("Final report generated for researchId={}, savedSearches={}, savedConducts={}",
+                    researchId, state.getSavedSearchCount(), state.getSavedConductCount());
+        } catch (TokenBudgetExceededException e) {
+            state.setStatus(WorkflowStatus.FAILED);
+            eventPublisher.publishEvent(researchId, EventType.ERROR, "Token 预算已用尽，研究已停止",
+                    String.format("已使用 %d tokens，预算上限 %d tokens", e.getUsedTokens(), e.getMaxTokens()));
+            updateResearchSession(researchId, WorkflowStatus.FAILED, state);
+            log.warn("Token budget exceeded for researchId={}, used={}, max={}",
+                    researchId, e.getUsedTokens(), e.getMaxTokens());
         } catch (WorkflowException e) {
             state.setStatus(WorkflowStatus.FAILED);
             eventPublisher.publishEvent(researchId, EventType.ERROR,
@@ -116,18 +132,54 @@ public class AgentPipeline {
             updateResearchSession(researchId, WorkflowStatus.FAILED, state);
             log.error("Unexpected error for researchId={}", researchId, e);
         } finally {
+            // 失败或预算耗尽时后台章节起草可能仍在进行，先取消再清理序列号和模型
+            state.cancelBackgroundTasks();
             sequenceUtil.reset(researchId);
             sseHub.complete(researchId, state.getStatus());
+            ModelRoleStats roleStats = modelHandler.getRoleStats(researchId);
+            if (roleStats != null) {
+                log.info("Model usage by role for researchId={}: {}", researchId, roleStats.summary());
+            }
             modelHandler.removeModel(researchId);
+            fireStageEnd(researchId, PipelineStageListener.PIPELINE,
+                    System.currentTimeMillis() - pipelineStart, state.getStatus());
+        }
+    }
+
+    private void runStage(DeepResearchState state, String stage, Runnable body) {
+        long start = System.currentTimeMillis();
+        fireStageStart(state.getResearchId(), stage);
+        try {
+            body.run();
+        } finally {
+            fireStageEnd(state.getResearchId(), stage, System.currentTimeMillis() - start, state.getStatus());
         }
     }
 
+    private void fireStageStart(String researchId, String stage) {
+        stageListeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onStageStart(researchId, stage);
+            } catch (Exception e) {
+                log.warn("Stage listener failed on start: researchId={}, stage={}", researchId, stage, e);
+            }
+        });
+    }
+
+    private void fireStageEnd(String researchId, String stage, long elapsedMs, String status) {
+        stageListeners.orderedStream().forEach(listener -> {
+            try {
+                listener.onStageEnd(researchId, stage, elapsedMs, status);
+            } catch (Exception e) {
+                log.warn("Stage listener failed on end: researchId={}, stage={}", researchId, stage, e);
+            }
+        });
+    }
+
     private void updateResearchSession(String researchId, String status, DeepResearchState state) {
-        boolean setStartTime = WorkflowStatus.START.equals(status);
-        boolean setCompleteTime = WorkflowStatus.COMPLETED.equals(status)
-                || WorkflowStatus.FAILED.equals(status)
-                || WorkflowStatus.NEED_CLARIFICATION.equals(status);
-        researchSessionMapper.updateSession(researchId, status, setStartTime, setCompleteTime,
-                state.getTotalInputTokens(), state.getTotalOutputTokens());
+        // 研究过程中已增量刷盘的部分不再重复累加；非终态合并到状态缓存批量写入，终态同步落库
+        TokenMeter.Flushed remaining = tokenMeter.drain(state);
+        sessionStateUtil.transition(researchId, state.getUserId(), status,
+                remaining.inputTokens(), remaining.outputTokens());
     }
 }
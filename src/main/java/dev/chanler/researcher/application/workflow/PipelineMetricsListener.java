@@ -0,0 +1,40 @@
+package dev.chanler.researcher.application.workflow;
+
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Records AgentPipeline stage timings and the number of running pipelines
+ * @author: Chanler
+ */
+@Component
+@RequiredArgsConstructor
+public class PipelineMetricsListener implements PipelineStageListener {
+
+    private final MetricsUtil metricsUtil;
+    private final AtomicInteger activePipelines = new AtomicInteger();
+
+    @PostConstruct
+    public void init() {
+        metricsUtil.gauge(MetricsUtil.PIPELINE_ACTIVE, activePipelines, AtomicInteger::get);
+    }
+
+    @Override
+    public void onStageStart(String researchId, String stage) {
+        if (PIPELINE.equals(stage)) {
+            activePipelines.incrementAndGet();
+        }
+    }
+
+    @Override
+    public void onStageEnd(String researchId, String stage, long elapsedMs, String status) {
+        if (PIPELINE.equals(stage)) {
+            activePipelines.decrementAndGet();
+        }
+        metricsUtil.record(MetricsUtil.PIPELINE_STAGE, elapsedMs, "stage", stage, "status", String.valueOf(status));
+    }
+}
@@ -0,0 +1,21 @@
+package dev.chanler.researcher.application.workflow;
+
+/**
+ * Callback for AgentPipeline stage boundaries, used by load testing and metrics
+ * @author: Chanler
+ */
+public interface PipelineStageListener {
+    String PIPELINE = "pipeline";
+    String SCOPE = "scope";
+    String SUPERVISOR = "supervisor";
+    String REPORT = "report";
+
+    default void onStageStart(String researchId, String stage) {
+    }
+
+    /**
+     * @param status 阶段结束后的研究状态
+     */
+    default void onStageEnd(String researchId, String stage, long elapsedMs, String status) {
+    }
+}
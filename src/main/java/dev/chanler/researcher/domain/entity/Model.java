@@ -26,6 +26,11 @@ public class Model {
     private String model;
     private String baseUrl;
     private String apiKey;
+    // 角色子模型，与 model 共用 baseUrl/apiKey，为空时使用 model
+    private String plannerModel;
+    private String summarizerModel;
+    private String compressorModel;
+    private String writerModel;
     private LocalDateTime createTime;
     private LocalDateTime updateTime;
 }
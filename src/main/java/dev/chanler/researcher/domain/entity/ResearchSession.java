@@ -31,4 +31,5 @@ public class ResearchSession {
     private LocalDateTime completeTime;
     private Long totalInputTokens;
     private Long totalOutputTokens;
+    private Integer version;
 }
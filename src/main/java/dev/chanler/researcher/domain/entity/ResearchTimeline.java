@@ -0,0 +1,53 @@
+package dev.chanler.researcher.domain.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import dev.chanler.researcher.infra.codec.CompressedTextTypeHandler;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Append-only fused timeline row, primary key (research_id, sequence_no). Carries the
+ * fields of a message or event, including the span timing and usage of events
+ * @author: Chanler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@TableName(autoResultMap = true)
+public class ResearchTimeline {
+
+    // MyBatis-Plus 不支持联合主键，这里只标注首列；按 (research_id, sequence_no) 定位的读写均使用自定义 SQL，不使用 *ById
+    @TableId(value = "research_id", type = IdType.INPUT)
+    private String researchId;
+    private Integer sequenceNo;
+    // message / event
+    private String kind;
+    // chat_message.id 或 workflow_event.id
+    private Long itemId;
+    private String role;
+    private String type;
+    private String title;
+    private Long parentEventId;
+    // 与源表相同的存储格式（压缩或 blob 引用）
+    @TableField(typeHandler = CompressedTextTypeHandler.class)
+    private String content;
+    // 写入时按原文计算，摘要分页直接读取，无需解压或读取 blob
+    private Integer contentLength;
+    private String preview;
+    private LocalDateTime createTime;
+    // 事件 span，与 workflow_event 同步更新
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long durationMs;
+    private Long inputTokens;
+    private Long outputTokens;
+    private String modelName;
+}
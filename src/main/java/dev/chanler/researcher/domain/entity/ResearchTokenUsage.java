@@ -0,0 +1,27 @@
+package dev.chanler.researcher.domain.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 研究按阶段和模型拆分的 Token 用量，主键 (research_id, stage, model_name)
+ * @author: Chanler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResearchTokenUsage {
+
+    private String researchId;
+    private String stage;
+    private String modelName;
+    private Integer callCount;
+    private Long inputTokens;
+    private Long outputTokens;
+    private LocalDateTime updateTime;
+}
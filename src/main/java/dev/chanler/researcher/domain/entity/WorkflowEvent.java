@@ -1,7 +1,10 @@
 package dev.chanler.researcher.domain.entity;
 
 import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import dev.chanler.researcher.infra.codec.CompressedTextTypeHandler;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -16,6 +19,7 @@ import java.time.LocalDateTime;
 @Builder
 @NoArgsConstructor
 @AllArgsConstructor
+@TableName(autoResultMap = true)
 public class WorkflowEvent {
 
     @TableId(value = "id", type = IdType.AUTO)
@@ -23,8 +27,23 @@ public class WorkflowEvent {
     private String researchId;
     private String type;
     private String title;
+    // 超过阈值的正文压缩存储，读写透明
+    @TableField(typeHandler = CompressedTextTypeHandler.class)
     private String content;
+    // 写入时按原文计算，摘要分页直接读取，无需解压或读取 blob
+    private Integer contentLength;
+    private String preview;
+    // 正文存放在 blob 中时 content 为空，客户端通过该地址流式读取
+    @TableField(exist = false)
+    private String contentUrl;
     private Long parentEventId;
     private Integer sequenceNo;
     private LocalDateTime createTime;
+    // span 语义：事件开始到对应阶段结束的耗时，以及挂在该事件上的 LLM 调用用量
+    private LocalDateTime startTime;
+    private LocalDateTime endTime;
+    private Long durationMs;
+    private Long inputTokens;
+    private Long outputTokens;
+    private String modelName;
 }
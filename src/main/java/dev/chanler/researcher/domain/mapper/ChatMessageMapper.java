@@ -2,10 +2,13 @@ package dev.chanler.researcher.domain.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import dev.chanler.researcher.domain.entity.ChatMessage;
+import dev.chanler.researcher.infra.data.TimelineSummary;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.List;
+
 /**
  * @author: Chanler
  */
@@ -20,4 +23,26 @@ public interface ChatMessageMapper extends BaseMapper<ChatMessage> {
             ) t
             """)
     Integer selectMaxSequenceByResearchId(@Param("researchId") String researchId);
+
+    // 时间线摘要分页：两张表各自沿 idx_research_seq 取前 limit 条再合并，不读取正文
+    // 长度和预览在写入时按原文计算（见 CacheUtil），无需在库内解压
+    @Select("""
+            SELECT * FROM (
+                (SELECT 'message' AS kind, id, sequence_no, role, NULL AS type, NULL AS title,
+                        NULL AS parent_event_id, NULL AS duration_ms, create_time, content_length, preview
+                 FROM chat_message
+                 WHERE research_id = #{researchId} AND sequence_no > #{afterSeq}
+                 ORDER BY sequence_no LIMIT #{limit})
+                UNION ALL
+                (SELECT 'event' AS kind, id, sequence_no, NULL AS role, type, title,
+                        parent_event_id, duration_ms, create_time, content_length, preview
+                 FROM workflow_event
+                 WHERE research_id = #{researchId} AND sequence_no > #{afterSeq}
+                 ORDER BY sequence_no LIMIT #{limit})
+            ) t
+            ORDER BY sequence_no
+            LIMIT #{limit}
+            """)
+    List<TimelineSummary> selectTimelineSummaries(@Param("researchId") String researchId,
+                                                  @Param("afterSeq") int afterSeq, @Param("limit") int limit);
 }
@@ -2,11 +2,15 @@ package dev.chanler.researcher.domain.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import dev.chanler.researcher.domain.entity.ResearchSession;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 import org.apache.ibatis.annotations.Update;
 
+import java.time.LocalDateTime;
+import java.util.List;
+
 /**
  * @author: Chanler
  */
@@ -25,6 +29,7 @@ public interface ResearchSessionMapper extends BaseMapper<ResearchSession> {
                 <if test="setCompleteTime">, complete_time = NOW()</if>
                 , total_input_tokens = COALESCE(total_input_tokens, 0) + #{inputTokens}
                 , total_output_tokens = COALESCE(total_output_tokens, 0) + #{outputTokens}
+                , version = version + 1
             WHERE id = #{id}
             </script>
             """)
@@ -32,28 +37,96 @@ public interface ResearchSessionMapper extends BaseMapper<ResearchSession> {
                        @Param("setStartTime") boolean setStartTime, @Param("setCompleteTime") boolean setCompleteTime,
                        @Param("inputTokens") long inputTokens, @Param("outputTokens") long outputTokens);
 
-    // 后续支持历史研究继续研究
+    // 研究过程中增量累加 token，终态更新时只补齐剩余部分
     @Update("""
             UPDATE research_session
-            SET status = 'QUEUE', update_time = NOW()
-            WHERE id = #{id} AND user_id = #{userId}
-              AND status IN ('NEW', 'NEED_CLARIFICATION')
+            SET total_input_tokens = COALESCE(total_input_tokens, 0) + #{inputTokens},
+                total_output_tokens = COALESCE(total_output_tokens, 0) + #{outputTokens}
+            WHERE id = #{id}
             """)
-    int casUpdateToQueue(@Param("id") String id, @Param("userId") Long userId);
+    void addTokens(@Param("id") String id, @Param("inputTokens") long inputTokens,
+                   @Param("outputTokens") long outputTokens);
+
+    // 按会话状态缓存批量刷盘：版本号不一致说明有其他写入者，由调用方重读后重试
+    @Update("""
+            <script>
+            UPDATE research_session
+            SET status = #{status},
+                update_time = NOW(),
+                version = version + 1
+                <if test="startTime != null">, start_time = #{startTime}</if>
+                <if test="completeTime != null">, complete_time = #{completeTime}</if>
+                , total_input_tokens = COALESCE(total_input_tokens, 0) + #{inputTokens}
+                , total_output_tokens = COALESCE(total_output_tokens, 0) + #{outputTokens}
+            WHERE id = #{id} AND version = #{version}
+            </script>
+            """)
+    int flushState(@Param("id") String id, @Param("status") String status,
+                   @Param("startTime") LocalDateTime startTime, @Param("completeTime") LocalDateTime completeTime,
+                   @Param("inputTokens") long inputTokens, @Param("outputTokens") long outputTokens,
+                   @Param("version") int version);
+
+    @Select("SELECT id, status, version FROM research_session WHERE id = #{id}")
+    ResearchSession selectVersion(@Param("id") String id);
+
+    @Select("SELECT user_id FROM research_session WHERE id = #{id}")
+    Long selectUserId(@Param("id") String id);
 
-    // 首次发言时记录模型、预算和标题
+    // 后续支持历史研究继续研究；首次发言时一并记录模型、预算和标题，已有值不覆盖
     @Update("""
             <script>
             UPDATE research_session
-            SET update_time = NOW()
-            <if test="modelId != null">, model_id = #{modelId}</if>
-            <if test="budget != null">, budget = #{budget}</if>
-            <if test="title != null">, title = #{title}</if>
-            WHERE id = #{id} AND model_id IS NULL
+            SET status = 'QUEUE', update_time = NOW(), version = version + 1
+            <if test="modelId != null">, model_id = COALESCE(model_id, #{modelId})</if>
+            <if test="budget != null">, budget = COALESCE(budget, #{budget})</if>
+            <if test="title != null">, title = COALESCE(title, #{title})</if>
+            WHERE id = #{id} AND user_id = #{userId}
+              AND status IN ('NEW', 'NEED_CLARIFICATION')
+            </script>
+            """)
+    int casUpdateToQueue(@Param("id") String id, @Param("userId") Long userId, @Param("modelId") String modelId,
+                         @Param("budget") String budget, @Param("title") String title);
+
+    // 游标分页：按 (update_time, id) 倒序走 idx_user_update（二级索引隐含主键 id），只取列表所需列
+    @Select("""
+            <script>
+            SELECT id, status, title, model_id, budget, start_time, update_time, complete_time,
+                   total_input_tokens, total_output_tokens
+            FROM research_session
+            WHERE user_id = #{userId}
+            <if test="status != null">AND status = #{status}</if>
+            <if test="title != null">AND title LIKE CONCAT('%', #{title}, '%')</if>
+            <if test="cursorTime != null">
+              AND (update_time &lt; #{cursorTime}
+                   OR (update_time = #{cursorTime} AND id &lt; #{cursorId}))
+            </if>
+            ORDER BY update_time DESC, id DESC
+            LIMIT #{limit}
+            </script>
+            """)
+    List<ResearchSession> selectPage(@Param("userId") Long userId, @Param("status") String status,
+                                     @Param("title") String title, @Param("cursorTime") LocalDateTime cursorTime,
+                                     @Param("cursorId") String cursorId, @Param("limit") int limit);
+
+    // 未使用的 NEW 会话按创建顺序取出，只取主键
+    @Select("""
+            SELECT id FROM research_session
+            WHERE user_id = #{userId} AND status = 'NEW'
+            ORDER BY create_time, id
+            """)
+    List<String> selectNewIds(@Param("userId") Long userId);
+
+    // 多行插入，主键由调用方预先生成
+    @Insert("""
+            <script>
+            INSERT INTO research_session (id, user_id, status, create_time, update_time)
+            VALUES
+            <foreach collection="sessions" item="s" separator=",">
+              (#{s.id}, #{s.userId}, #{s.status}, #{s.createTime}, #{s.updateTime})
+            </foreach>
             </script>
             """)
-    int setInfoIfNull(@Param("id") String id, @Param("modelId") String modelId, 
-                                 @Param("budget") String budget, @Param("title") String title);
+    int insertBatch(@Param("sessions") List<ResearchSession> sessions);
 
     @Select("""
             SELECT COUNT(*) FROM research_session 
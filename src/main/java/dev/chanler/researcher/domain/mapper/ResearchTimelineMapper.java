@@ -0,0 +1,57 @@
+package dev.chanler.researcher.domain.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import dev.chanler.researcher.domain.entity.ResearchTimeline;
+import dev.chanler.researcher.infra.data.TimelineSummary;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultMap;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * @author: Chanler
+ */
+@Mapper
+public interface ResearchTimelineMapper extends BaseMapper<ResearchTimeline> {
+
+    // 主键 (research_id, sequence_no) 即聚簇索引，MAX 只需一次索引定位
+    @Select("SELECT COALESCE(MAX(sequence_no), 0) FROM research_timeline WHERE research_id = #{researchId}")
+    Integer selectMaxSequence(@Param("researchId") String researchId);
+
+    // 沿主键顺序范围扫描，无需排序；结果映射复用实体的 autoResultMap 以解压正文
+    @Select("""
+            SELECT research_id, sequence_no, kind, item_id, role, type, title, parent_event_id, content,
+                   content_length, preview, create_time,
+                   start_time, end_time, duration_ms, input_tokens, output_tokens, model_name
+            FROM research_timeline
+            WHERE research_id = #{researchId} AND sequence_no > #{afterSeq}
+            ORDER BY sequence_no
+            """)
+    @ResultMap("mybatis-plus_ResearchTimeline")
+    List<ResearchTimeline> selectRange(@Param("researchId") String researchId, @Param("afterSeq") int afterSeq);
+
+    // 时间线摘要分页：单表范围扫描，事件耗时、正文长度和预览随行存储，不读取正文
+    @Select("""
+            SELECT kind, item_id AS id, sequence_no, role, type, title, parent_event_id,
+                   duration_ms, create_time, content_length, preview
+            FROM research_timeline
+            WHERE research_id = #{researchId} AND sequence_no > #{afterSeq}
+            ORDER BY sequence_no
+            LIMIT #{limit}
+            """)
+    List<TimelineSummary> selectSummaries(@Param("researchId") String researchId, @Param("afterSeq") int afterSeq,
+                                          @Param("limit") int limit);
+
+    // 从 workflow_event 复制 span 字段，经源表的 (research_id, sequence_no) 按主键定位时间线行
+    @Update("""
+            UPDATE research_timeline t
+            JOIN workflow_event e ON t.research_id = e.research_id AND t.sequence_no = e.sequence_no
+            SET t.start_time = e.start_time, t.end_time = e.end_time, t.duration_ms = e.duration_ms,
+                t.input_tokens = e.input_tokens, t.output_tokens = e.output_tokens, t.model_name = e.model_name
+            WHERE e.id = #{eventId}
+            """)
+    int syncSpan(@Param("eventId") Long eventId);
+}
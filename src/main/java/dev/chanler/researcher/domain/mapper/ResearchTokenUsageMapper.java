@@ -0,0 +1,33 @@
+package dev.chanler.researcher.domain.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import dev.chanler.researcher.domain.entity.ResearchTokenUsage;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * @author: Chanler
+ */
+@Mapper
+public interface ResearchTokenUsageMapper extends BaseMapper<ResearchTokenUsage> {
+
+    // 增量累加，同一 (研究, 阶段, 模型) 只有一行
+    @Insert("""
+            INSERT INTO research_token_usage (research_id, stage, model_name, call_count, input_tokens, output_tokens)
+            VALUES (#{researchId}, #{stage}, #{modelName}, #{calls}, #{inputTokens}, #{outputTokens})
+            ON DUPLICATE KEY UPDATE
+                call_count = call_count + VALUES(call_count),
+                input_tokens = input_tokens + VALUES(input_tokens),
+                output_tokens = output_tokens + VALUES(output_tokens)
+            """)
+    void upsertUsage(@Param("researchId") String researchId, @Param("stage") String stage,
+                     @Param("modelName") String modelName, @Param("calls") int calls,
+                     @Param("inputTokens") long inputTokens, @Param("outputTokens") long outputTokens);
+
+    @Select("SELECT * FROM research_token_usage WHERE research_id = #{researchId} ORDER BY stage, model_name")
+    List<ResearchTokenUsage> selectByResearchId(@Param("researchId") String researchId);
+}
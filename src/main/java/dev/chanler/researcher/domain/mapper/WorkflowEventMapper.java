@@ -3,10 +3,51 @@ package dev.chanler.researcher.domain.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import dev.chanler.researcher.domain.entity.WorkflowEvent;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * @author: Chanler
  */
 @Mapper
 public interface WorkflowEventMapper extends BaseMapper<WorkflowEvent> {
+
+    // 只关闭一次，重复调用不覆盖首次的结束时间
+    @Update("""
+            UPDATE workflow_event
+            SET end_time = #{endTime},
+                duration_ms = TIMESTAMPDIFF(MICROSECOND, start_time, #{endTime}) DIV 1000
+            WHERE id = #{id} AND end_time IS NULL
+            """)
+    int closeSpan(@Param("id") Long id, @Param("endTime") LocalDateTime endTime);
+
+    // 累加 LLM 用量，模型名去重后逗号拼接
+    @Update("""
+            UPDATE workflow_event
+            SET input_tokens = COALESCE(input_tokens, 0) + #{inputTokens},
+                output_tokens = COALESCE(output_tokens, 0) + #{outputTokens},
+                model_name = CASE
+                    WHEN #{modelName} IS NULL THEN model_name
+                    WHEN model_name IS NULL THEN #{modelName}
+                    WHEN FIND_IN_SET(#{modelName}, model_name) > 0 THEN model_name
+                    ELSE CONCAT(model_name, ',', #{modelName})
+                END
+            WHERE id = #{id}
+            """)
+    int addUsage(@Param("id") Long id, @Param("inputTokens") long inputTokens,
+                 @Param("outputTokens") long outputTokens, @Param("modelName") String modelName);
+
+    // trace 只需要结构与耗时，不读取 content
+    @Select("""
+            SELECT id, research_id, type, title, parent_event_id, sequence_no, create_time,
+                   start_time, end_time, duration_ms, input_tokens, output_tokens, model_name
+            FROM workflow_event
+            WHERE research_id = #{researchId}
+            ORDER BY sequence_no
+            """)
+    List<WorkflowEvent> selectSpans(@Param("researchId") String researchId);
 }
@@ -0,0 +1,88 @@
+package dev.chanler.researcher.infra.async;
+
+import dev.chanler.researcher.infra.config.AsyncProp;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Supplier;
+
+/**
+ * 研究流程内部子任务执行器 (工具调用等)，与研究任务队列隔离
+ * 提交的任务不应再等待本执行器中的其他任务，避免线程池耗尽时死锁
+ *
+ * @author Chanler
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class AgentTaskExecutor {
+
+    private final AsyncProp asyncProp;
+    private ThreadPoolTaskExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(asyncProp.getAgentPoolSize());
+        executor.setMaxPoolSize(asyncProp.getAgentPoolSize());
+        executor.setQueueCapacity(asyncProp.getAgentQueueCapacity());
+        executor.setThreadNamePrefix("agent-");
+        // 队列满时由调用方线程执行，退化为串行而不是失败
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.initialize();
+        log.info("子任务执行器初始化完成: poolSize={}, queueCapacity={}",
+                asyncProp.getAgentPoolSize(), asyncProp.getAgentQueueCapacity());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (executor != null) {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 提交子任务；取消返回的 future 会中断正在执行的任务，尚未开始的任务不再执行
+     */
+    public <T> CompletableFuture<T> supply(Supplier<T> task) {
+        CompletableFuture<T> result = new CompletableFuture<>();
+        Future<?> running = executor.submit(() -> {
+            if (result.isDone()) {
+                return;
+            }
+            try {
+                result.complete(task.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        });
+        result.whenComplete((value, e) -> {
+            if (result.isCancelled()) {
+                running.cancel(true);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * 等待结果，还原子任务抛出的原始异常
+     */
+    public static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+}
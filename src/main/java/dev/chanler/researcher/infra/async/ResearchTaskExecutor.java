@@ -5,6 +5,7 @@ import dev.chanler.researcher.infra.config.AsyncProp;
 import dev.chanler.researcher.infra.data.EventType;
 import dev.chanler.researcher.infra.exception.ResearchException;
 import dev.chanler.researcher.infra.util.EventPublisher;
+import dev.chanler.researcher.infra.util.MetricsUtil;
 import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -26,6 +27,7 @@ public class ResearchTaskExecutor {
 
     private final AsyncProp asyncProp;
     private final EventPublisher eventPublisher;
+    private final MetricsUtil metricsUtil;
     private ThreadPoolTaskExecutor executor;
 
     @PostConstruct
@@ -37,6 +39,9 @@ public class ResearchTaskExecutor {
         executor.setThreadNamePrefix("research-");
         executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
         executor.initialize();
+        metricsUtil.gauge(MetricsUtil.QUEUE_DEPTH, executor,
+                e -> e.getThreadPoolExecutor().getQueue().size());
+        metricsUtil.gauge(MetricsUtil.QUEUE_ACTIVE, executor, ThreadPoolTaskExecutor::getActiveCount);
         log.info("研究任务执行器初始化完成: maxPoolSize={}, queueCapacity={}",
                 asyncProp.getMaxPoolSize(), asyncProp.getQueueCapacity());
     }
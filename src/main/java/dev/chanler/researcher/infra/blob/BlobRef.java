@@ -0,0 +1,54 @@
+package dev.chanler.researcher.infra.blob;
+
+import dev.chanler.researcher.infra.codec.ContentCodec;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Inline reference to a blob, stored in place of the content: {@code PREFIX + sha256 + ":" + chars}.
+ * Inline content that starts with the control-character sentinel is escaped on write, so user
+ * text can never be read back as a reference
+ * @author: Chanler
+ */
+public record BlobRef(String hash, int length) {
+
+    public static final String PREFIX = ContentCodec.SENTINEL + "BLOB:";
+    public static final String ESCAPE = ContentCodec.SENTINEL + "INLINE:";
+    private static final Pattern REF = Pattern.compile("([0-9a-f]{64}):(\\d{1,10})");
+
+    public static boolean isRef(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    /**
+     * 格式不合法（哈希非 64 位十六进制、长度缺失或越界）时返回 null，按普通文本处理
+     */
+    public static BlobRef parse(String value) {
+        if (!isRef(value)) {
+            return null;
+        }
+        Matcher matcher = REF.matcher(value.substring(PREFIX.length()));
+        if (!matcher.matches()) {
+            return null;
+        }
+        long length = Long.parseLong(matcher.group(2));
+        return length > Integer.MAX_VALUE ? null : new BlobRef(matcher.group(1), (int) length);
+    }
+
+    /**
+     * 行内保存的正文以 SENTINEL 开头时加转义前缀
+     */
+    public static String escapeInline(String content) {
+        return content != null && content.startsWith(ContentCodec.SENTINEL) ? ESCAPE + content : content;
+    }
+
+    public static String unescapeInline(String content) {
+        return content != null && content.startsWith(ESCAPE) ? content.substring(ESCAPE.length()) : content;
+    }
+
+    @Override
+    public String toString() {
+        return PREFIX + hash + ":" + length;
+    }
+}
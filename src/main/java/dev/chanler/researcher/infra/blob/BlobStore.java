@@ -0,0 +1,29 @@
+package dev.chanler.researcher.infra.blob;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Content-addressed blob storage keyed by SHA-256 of the UTF-8 content.
+ * Identical payloads are stored once
+ * @author: Chanler
+ */
+public interface BlobStore {
+
+    /**
+     * 写入内容并返回其 SHA-256，已存在时直接返回
+     */
+    String put(String content);
+
+    String read(String hash);
+
+    InputStream open(String hash) throws IOException;
+
+    /**
+     * 行内内容为引用时读取 blob，否则去掉行内转义后返回
+     */
+    default String resolve(String content) {
+        BlobRef ref = BlobRef.parse(content);
+        return ref == null ? BlobRef.unescapeInline(content) : read(ref.hash());
+    }
+}
@@ -0,0 +1,74 @@
+package dev.chanler.researcher.infra.blob;
+
+import cn.hutool.crypto.digest.DigestUtil;
+import dev.chanler.researcher.infra.config.BlobProp;
+import dev.chanler.researcher.infra.exception.ResearchException;
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+
+/**
+ * Filesystem blob store: {@code root/ab/cd/abcd...}, written via temp file + atomic move
+ * so concurrent writers of the same payload never expose a partial file
+ * @author: Chanler
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class LocalBlobStore implements BlobStore {
+
+    private final BlobProp blobProp;
+    private final MetricsUtil metricsUtil;
+
+    @Override
+    public String put(String content) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        String hash = DigestUtil.sha256Hex(bytes);
+        Path path = path(hash);
+        if (Files.exists(path)) {
+            metricsUtil.count(MetricsUtil.BLOB_WRITE, 1, "outcome", "dedup");
+            return hash;
+        }
+        try {
+            Files.createDirectories(path.getParent());
+            Path temp = Files.createTempFile(path.getParent(), hash, ".tmp");
+            Files.write(temp, bytes);
+            Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            metricsUtil.count(MetricsUtil.BLOB_WRITE, 1, "outcome", "stored");
+            metricsUtil.count(MetricsUtil.BLOB_BYTES, bytes.length);
+            return hash;
+        } catch (IOException e) {
+            throw new ResearchException("Blob 写入失败: " + hash, e);
+        }
+    }
+
+    @Override
+    public String read(String hash) {
+        try {
+            return Files.readString(path(hash), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            log.error("Blob 读取失败 hash={}", hash, e);
+            throw new ResearchException("Blob 读取失败: " + hash, e);
+        }
+    }
+
+    @Override
+    public InputStream open(String hash) throws IOException {
+        return Files.newInputStream(path(hash));
+    }
+
+    private Path path(String hash) {
+        if (!hash.matches("[0-9a-f]{64}")) {
+            throw new ResearchException("非法的 blob 引用");
+        }
+        return Path.of(blobProp.getLocal().getRoot(), hash.substring(0, 2), hash.substring(2, 4), hash);
+    }
+}
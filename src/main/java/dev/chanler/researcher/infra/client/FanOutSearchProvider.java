@@ -0,0 +1,119 @@
+package dev.chanler.researcher.infra.client;
+
+import dev.chanler.researcher.infra.config.SearchProp;
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Queries every enabled provider in parallel, then merges the rankings round-robin
+ * and drops duplicate URLs. With a single provider the call is passed through
+ * @author: Chanler
+ */
+@Primary
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FanOutSearchProvider implements SearchProvider {
+
+    private final SearchProp searchProp;
+    private final ObjectProvider<SearchProvider> providers;
+    private final MetricsUtil metricsUtil;
+
+    private volatile List<SearchProvider> enabledProviders;
+
+    @Override
+    public String name() {
+        return "fan-out";
+    }
+
+    @Override
+    public SearchResponse search(String query, int maxResults, String topic, boolean includeRawContent) {
+        List<SearchProvider> enabled = getEnabledProviders();
+        if (enabled.isEmpty()) {
+            log.warn("No search provider enabled, search.providers={}", searchProp.getProviders());
+            return SearchResponse.empty();
+        }
+        if (enabled.size() == 1) {
+            return timedSearch(enabled.get(0), query, maxResults, topic, includeRawContent);
+        }
+
+        // 各提供方均为阻塞 I/O，使用虚拟线程并行查询
+        List<List<SearchResult>> rankings = new ArrayList<>(enabled.size());
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<SearchResponse>> futures = enabled.stream()
+                    .map(provider -> executor.submit(() -> timedSearch(provider, query, maxResults, topic, includeRawContent)))
+                    .toList();
+            for (int i = 0; i < futures.size(); i++) {
+                rankings.add(resultsOf(enabled.get(i), futures.get(i)));
+            }
+        }
+        return new SearchResponse(merge(rankings, maxResults));
+    }
+
+    /**
+     * 按名次轮流取各提供方结果，URL 重复时保留先出现的一条
+     */
+    static List<SearchResult> merge(List<List<SearchResult>> rankings, int maxResults) {
+        Map<String, SearchResult> merged = new LinkedHashMap<>();
+        int depth = rankings.stream().mapToInt(List::size).max().orElse(0);
+        for (int rank = 0; rank < depth && merged.size() < maxResults; rank++) {
+            for (List<SearchResult> ranking : rankings) {
+                if (rank < ranking.size() && merged.size() < maxResults) {
+                    SearchResult result = ranking.get(rank);
+                    if (result.url() != null) {
+                        merged.putIfAbsent(result.url(), result);
+                    }
+                }
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    private SearchResponse timedSearch(SearchProvider provider, String query, int maxResults,
+                                       String topic, boolean includeRawContent) {
+        return metricsUtil.time(MetricsUtil.SEARCH_PROVIDER,
+                () -> provider.search(query, maxResults, topic, includeRawContent),
+                "provider", provider.name());
+    }
+
+    private List<SearchResult> resultsOf(SearchProvider provider, Future<SearchResponse> future) {
+        try {
+            SearchResponse response = future.get();
+            return response == null || response.results() == null ? List.of() : response.results();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return List.of();
+        } catch (Exception e) {
+            log.error("Search provider {} failed", provider.name(), e);
+            return List.of();
+        }
+    }
+
+    private List<SearchProvider> getEnabledProviders() {
+        if (enabledProviders == null) {
+            // 延迟解析，避免注入自身造成循环依赖
+            List<SearchProvider> resolved = new ArrayList<>();
+            for (String name : searchProp.getProviders()) {
+                providers.orderedStream()
+                        .filter(provider -> provider != this && provider.name().equalsIgnoreCase(name))
+                        .findFirst()
+                        .ifPresentOrElse(resolved::add,
+                                () -> log.warn("Unknown search provider: {}", name));
+            }
+            enabledProviders = List.copyOf(resolved);
+        }
+        return enabledProviders;
+    }
+}
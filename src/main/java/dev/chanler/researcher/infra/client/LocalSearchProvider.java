@@ -0,0 +1,197 @@
+package dev.chanler.researcher.infra.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chanler.researcher.infra.config.SearchProp;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Offline search over a file-backed corpus, ranked with BM25 on an inverted index.
+ * Results are deterministic for the same corpus and query, so it can stand in for
+ * Tavily in load tests
+ * @author: Chanler
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class LocalSearchProvider implements SearchProvider {
+    public static final String NAME = "local";
+    private static final String CLASSPATH_PREFIX = "classpath:";
+
+    // 连续的拉丁字母/数字为一个词，连续的汉字切分为二元组
+    private static final Pattern TOKEN_PATTERN = Pattern.compile("\\p{IsHan}+|[\\p{L}\\p{N}]+");
+
+    private final SearchProp searchProp;
+    private final ObjectMapper objectMapper;
+
+    private volatile Index index = Index.EMPTY;
+
+    @PostConstruct
+    public void init() {
+        String corpusPath = searchProp.getLocal().getCorpusPath();
+        if (corpusPath == null || corpusPath.isBlank()) {
+            return;
+        }
+        try {
+            index = Index.build(load(corpusPath));
+            log.info("本地搜索语料加载完成: path={}, documents={}, terms={}",
+                    corpusPath, index.documents.size(), index.postings.size());
+        } catch (IOException e) {
+            log.error("本地搜索语料加载失败: {}", corpusPath, e);
+        }
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public SearchResponse search(String query, int maxResults, String topic, boolean includeRawContent) {
+        Index current = index;
+        if (current.documents.isEmpty() || maxResults <= 0) {
+            return SearchResponse.empty();
+        }
+        double k1 = searchProp.getLocal().getK1();
+        double b = searchProp.getLocal().getB();
+        int total = current.documents.size();
+
+        Map<Integer, Double> scores = new HashMap<>();
+        for (String term : tokenize(query)) {
+            List<Posting> postings = current.postings.get(term);
+            if (postings == null) {
+                continue;
+            }
+            double idf = Math.log(1 + (total - postings.size() + 0.5) / (postings.size() + 0.5));
+            for (Posting posting : postings) {
+                double lengthNorm = 1 - b + b * current.lengths[posting.docId] / current.averageLength;
+                double tf = posting.frequency * (k1 + 1) / (posting.frequency + k1 * lengthNorm);
+                scores.merge(posting.docId, idf * tf, Double::sum);
+            }
+        }
+
+        // 分数相同按语料顺序，保证结果稳定
+        List<SearchResult> results = scores.entrySet().stream()
+                .sorted(Map.Entry.<Integer, Double>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(maxResults)
+                .map(entry -> {
+                    Document document = current.documents.get(entry.getKey());
+                    return new SearchResult(document.url(), document.title(), document.content(),
+                            includeRawContent ? document.rawContent() : null, entry.getValue());
+                })
+                .toList();
+        log.debug("Local search: query='{}', hits={}", query, scores.size());
+        return new SearchResponse(results);
+    }
+
+    private List<Document> load(String corpusPath) throws IOException {
+        Resource resource = corpusPath.startsWith(CLASSPATH_PREFIX)
+                ? new ClassPathResource(corpusPath.substring(CLASSPATH_PREFIX.length()))
+                : new FileSystemResource(corpusPath);
+        List<Document> documents = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                Document document = objectMapper.readValue(line, Document.class);
+                if (document.url() != null) {
+                    documents.add(document);
+                }
+            }
+        }
+        return documents;
+    }
+
+    static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        Matcher matcher = TOKEN_PATTERN.matcher(text.toLowerCase(Locale.ROOT));
+        while (matcher.find()) {
+            String token = matcher.group();
+            if (Character.UnicodeScript.of(token.codePointAt(0)) != Character.UnicodeScript.HAN) {
+                tokens.add(token);
+            } else if (token.length() == 1) {
+                tokens.add(token);
+            } else {
+                for (int i = 0; i + 1 < token.length(); i++) {
+                    tokens.add(token.substring(i, i + 2));
+                }
+            }
+        }
+        return tokens;
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record Document(
+        String url,
+        String title,
+        String content,
+        @JsonProperty("raw_content") String rawContent
+    ) {}
+
+    record Posting(int docId, int frequency) {}
+
+    static class Index {
+        static final Index EMPTY = new Index(List.of(), Map.of(), new int[0], 0);
+
+        final List<Document> documents;
+        final Map<String, List<Posting>> postings;
+        final int[] lengths;
+        final double averageLength;
+
+        Index(List<Document> documents, Map<String, List<Posting>> postings, int[] lengths, double averageLength) {
+            this.documents = documents;
+            this.postings = postings;
+            this.lengths = lengths;
+            this.averageLength = averageLength;
+        }
+
+        static Index build(List<Document> documents) {
+            Map<String, List<Posting>> postings = new HashMap<>();
+            int[] lengths = new int[documents.size()];
+            long totalLength = 0;
+            for (int docId = 0; docId < documents.size(); docId++) {
+                Document document = documents.get(docId);
+                String body = document.rawContent() != null ? document.rawContent() : document.content();
+                // 缺失的字段直接跳过，避免拼接出 "null" 词项
+                List<String> tokens = tokenize(document.title());
+                tokens.addAll(tokenize(body));
+                Map<String, Integer> frequencies = new HashMap<>();
+                tokens.forEach(token -> frequencies.merge(token, 1, Integer::sum));
+                for (Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+                    postings.computeIfAbsent(entry.getKey(), key -> new ArrayList<>())
+                            .add(new Posting(docId, entry.getValue()));
+                }
+                lengths[docId] = tokens.size();
+                totalLength += tokens.size();
+            }
+            double averageLength = documents.isEmpty() ? 0 : Math.max(1.0, (double) totalLength / documents.size());
+            return new Index(List.copyOf(documents), postings, lengths, averageLength);
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package dev.chanler.researcher.infra.client;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+/**
+ * Web search backend used by SearchAgent
+ * @author: Chanler
+ */
+public interface SearchProvider {
+
+    /**
+     * 提供方名称，对应 search.providers 配置
+     */
+    String name();
+
+    /**
+     * 执行搜索，失败时返回空结果而不是抛出异常
+     */
+    SearchResponse search(String query, int maxResults, String topic, boolean includeRawContent);
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SearchResponse(List<SearchResult> results) {
+        public static SearchResponse empty() {
+            return new SearchResponse(List.of());
+        }
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    record SearchResult(
+        String url,
+        String title,
+        String content,
+        @JsonProperty("raw_content") String rawContent,
+        Double score
+    ) {}
+}
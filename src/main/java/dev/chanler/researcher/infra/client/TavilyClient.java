@@ -1,6 +1,5 @@
 package dev.chanler.researcher.infra.client;
 
-import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.chanler.researcher.infra.config.TavilyProp;
@@ -10,7 +9,6 @@ import okhttp3.*;
 import org.springframework.stereotype.Component;
 
 import java.io.IOException;
-import java.util.List;
 
 /**
  * Client for Tavily Search API
@@ -19,13 +17,21 @@ import java.util.List;
 @Component
 @RequiredArgsConstructor
 @Slf4j
-public class TavilyClient {
+public class TavilyClient implements SearchProvider {
+    public static final String NAME = "tavily";
+
     private final TavilyProp tavilyConfig;
     private final OkHttpClient httpClient = new OkHttpClient();
     private final ObjectMapper objectMapper = new ObjectMapper();
     private static final MediaType JSON = MediaType.parse("application/json");
 
-    public TavilyResponse search(String query, int maxResults, String topic, boolean includeRawContent) {
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public SearchResponse search(String query, int maxResults, String topic, boolean includeRawContent) {
         try {
             TavilyRequest request = new TavilyRequest(
                 query, maxResults, topic, includeRawContent
@@ -45,13 +51,13 @@ public class TavilyClient {
             try (Response response = httpClient.newCall(httpRequest).execute()) {
                 if (!response.isSuccessful() || response.body() == null) {
                     log.error("Tavily API failed: code={}", response.code());
-                    return new TavilyResponse(List.of());
+                    return SearchResponse.empty();
                 }
-                return objectMapper.readValue(response.body().string(), TavilyResponse.class);
+                return objectMapper.readValue(response.body().string(), SearchResponse.class);
             }
         } catch (IOException e) {
             log.error("Tavily search failed for: {}", query, e);
-            return new TavilyResponse(List.of());
+            return SearchResponse.empty();
         }
     }
     
@@ -61,16 +67,4 @@ public class TavilyClient {
         String topic,
         @JsonProperty("include_raw_content") boolean includeRawContent
     ) {}
-    
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record TavilyResponse(List<SearchResult> results) {}
-    
-    @JsonIgnoreProperties(ignoreUnknown = true)
-    public record SearchResult(
-        String url,
-        String title,
-        String content,
-        @JsonProperty("raw_content") String rawContent,
-        Double score
-    ) {}
 }
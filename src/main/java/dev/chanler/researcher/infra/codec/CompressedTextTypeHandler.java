@@ -0,0 +1,41 @@
+package dev.chanler.researcher.infra.codec;
+
+import org.apache.ibatis.type.BaseTypeHandler;
+import org.apache.ibatis.type.JdbcType;
+import org.apache.ibatis.type.MappedJdbcTypes;
+import org.apache.ibatis.type.MappedTypes;
+
+import java.sql.CallableStatement;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * MyBatis type handler that stores large text columns through {@link ContentCodec}
+ * @author: Chanler
+ */
+@MappedTypes(String.class)
+@MappedJdbcTypes(JdbcType.LONGVARCHAR)
+public class CompressedTextTypeHandler extends BaseTypeHandler<String> {
+
+    @Override
+    public void setNonNullParameter(PreparedStatement ps, int i, String parameter, JdbcType jdbcType)
+            throws SQLException {
+        ps.setString(i, ContentCodec.encode(parameter, ContentCodec.TARGET_DB));
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, String columnName) throws SQLException {
+        return ContentCodec.decode(rs.getString(columnName), ContentCodec.TARGET_DB);
+    }
+
+    @Override
+    public String getNullableResult(ResultSet rs, int columnIndex) throws SQLException {
+        return ContentCodec.decode(rs.getString(columnIndex), ContentCodec.TARGET_DB);
+    }
+
+    @Override
+    public String getNullableResult(CallableStatement cs, int columnIndex) throws SQLException {
+        return ContentCodec.decode(cs.getString(columnIndex), ContentCodec.TARGET_DB);
+    }
+}
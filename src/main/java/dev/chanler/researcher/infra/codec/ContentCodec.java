@@ -0,0 +1,134 @@
+package dev.chanler.researcher.infra.codec;
+
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import io.micrometer.core.instrument.Metrics;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Transparent compression for large text values. Encoded values are
+ * {@code PREFIX + base64(uncompressed length, 4 bytes LE + zlib stream)}, the same
+ * layout as MySQL COMPRESS(), so SQL can still read them via UNCOMPRESS(FROM_BASE64(..)).
+ * Values without the prefix are returned unchanged, old rows stay readable. Plain values
+ * that happen to start with {@link #SENTINEL} are wrapped in {@link #ESCAPE} so they are
+ * never mistaken for an encoded value or a blob reference
+ * @author: Chanler
+ */
+@Slf4j
+public final class ContentCodec {
+
+    // 控制字符开头，正常文本不会以此开头；以此开头的用户文本写入时会被转义
+    public static final String SENTINEL = "\u0001";
+    public static final String PREFIX = SENTINEL + "DFL1:";
+    public static final String ESCAPE = SENTINEL + "RAW:";
+    // 解码前校验头部长度，防止损坏或伪造的数据触发超大分配
+    public static final int MAX_DECODED_BYTES = 64 * 1024 * 1024;
+    // 短文本压缩收益小于 base64 膨胀和 CPU 开销
+    public static final int THRESHOLD_CHARS = 4096;
+
+    public static final String TARGET_DB = "db";
+    public static final String TARGET_REDIS = "redis";
+
+    private ContentCodec() {
+    }
+
+    public static boolean isEncoded(String value) {
+        return value != null && value.startsWith(PREFIX);
+    }
+
+    /**
+     * 超过阈值且压缩后更短时编码，否则原样返回（以 SENTINEL 开头的值加 ESCAPE 转义）
+     */
+    public static String encode(String value, String target) {
+        if (value == null || value.length() < THRESHOLD_CHARS) {
+            return escape(value);
+        }
+        long start = System.nanoTime();
+        byte[] raw = value.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 4 + 16);
+            out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(raw.length).array());
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+            String encoded = PREFIX + Base64.getEncoder().encodeToString(out.toByteArray());
+            int storedBytes = encoded.length();
+            record("encode", target, start);
+            if (storedBytes >= raw.length) {
+                return escape(value);
+            }
+            Metrics.counter(MetricsUtil.CODEC_BYTES_SAVED, "target", target).increment(raw.length - storedBytes);
+            return encoded;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解码失败（非法 base64、头部损坏、长度越界、zlib 流损坏）时记录日志并返回原值
+     */
+    public static String decode(String value, String target) {
+        if (value == null || !value.startsWith(SENTINEL)) {
+            return value;
+        }
+        if (value.startsWith(ESCAPE)) {
+            return value.substring(ESCAPE.length());
+        }
+        if (!isEncoded(value)) {
+            return value;
+        }
+        long start = System.nanoTime();
+        Inflater inflater = new Inflater();
+        try {
+            byte[] payload = Base64.getDecoder().decode(value.substring(PREFIX.length()));
+            if (payload.length < 4) {
+                throw new DataFormatException("payload shorter than length header");
+            }
+            int length = ByteBuffer.wrap(payload, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+            if (length < 0 || length > MAX_DECODED_BYTES) {
+                throw new DataFormatException("declared length out of range: " + length);
+            }
+            inflater.setInput(payload, 4, payload.length - 4);
+            byte[] raw = new byte[length];
+            int read = 0;
+            while (read < length && !inflater.finished()) {
+                int n = inflater.inflate(raw, read, length - read);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += n;
+            }
+            return new String(read == length ? raw : Arrays.copyOf(raw, read), StandardCharsets.UTF_8);
+        } catch (DataFormatException | RuntimeException e) {
+            log.error("Failed to decode compressed content, returning raw value", e);
+            return value;
+        } finally {
+            inflater.end();
+            record("decode", target, start);
+        }
+    }
+
+    private static String escape(String value) {
+        return value != null && value.startsWith(SENTINEL) ? ESCAPE + value : value;
+    }
+
+    // TypeHandler 不由 Spring 管理，直接写入 Spring Boot 绑定的全局 registry
+    private static void record(String op, String target, long startNanos) {
+        Metrics.timer(MetricsUtil.CODEC_LATENCY, "op", op, "target", target)
+                .record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    }
+}
@@ -27,4 +27,14 @@ public class AsyncProp {
      * 预估单任务耗时
      */
     private int taskTimeoutMinutes = 3;
+
+    /**
+     * 研究内部子任务 (并行工具调用等) 线程数
+     */
+    private int agentPoolSize = 16;
+
+    /**
+     * 研究内部子任务排队队列长度
+     */
+    private int agentQueueCapacity = 200;
 }
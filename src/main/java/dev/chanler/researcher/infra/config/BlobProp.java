@@ -0,0 +1,23 @@
+package dev.chanler.researcher.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Blob 存储配置
+ * @author: Chanler
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "blob")
+public class BlobProp {
+    // 正文超过该字符数时写入 blob 存储，行内只保存引用；<= 0 关闭
+    private int thresholdChars = 16384;
+    private Local local = new Local();
+
+    @Data
+    public static class Local {
+        private String root = "data/blobs";
+    }
+}
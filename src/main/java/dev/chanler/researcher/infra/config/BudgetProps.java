@@ -1,5 +1,6 @@
 package dev.chanler.researcher.infra.config;
 
+import dev.chanler.researcher.application.data.ReportMode;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Configuration;
@@ -25,6 +26,20 @@ public class BudgetProps {
         private int maxSearchCount;
         // 最大并行研究单元数
         private int maxConcurrentUnits;
+        // 新增信息占比低于该阈值视为无增益 (0~1)
+        private double noveltyThreshold = 0.15;
+        // 连续无增益轮数达到该值时提前终止循环，0 表示关闭
+        private int noveltyPatience = 1;
+        // 单次研究输入输出 Token 总量上限，超出时终止研究，0 表示不限制
+        private long maxTotalTokens;
+        // 报告生成方式: BARRIER 一次性撰写 / INCREMENTAL 研究单元完成即起草章节 / MAP_REDUCE 报告阶段按研究单元并行起草
+        private String reportMode = ReportMode.BARRIER;
+        // BARRIER 模式下一次性撰写的预估输入 Token 超过该值时改为按研究单元 map-reduce，0 表示关闭
+        private long reportMapReduceThresholdTokens = 60_000;
+        // 章节合计超过该值时，合并阶段只提供各章节摘录
+        private long reportStitchThresholdTokens = 30_000;
+        // map-reduce 同时起草的章节数
+        private int reportMaxConcurrentSections = 3;
     }
 
     public BudgetLevel getLevel(String level) {
@@ -0,0 +1,30 @@
+package dev.chanler.researcher.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Configuration properties for search providers
+ * @author: Chanler
+ */
+@Configuration
+@ConfigurationProperties(prefix = "search")
+@Data
+public class SearchProp {
+    // 启用的搜索提供方，多个时并行查询并合并去重
+    private List<String> providers = new ArrayList<>(List.of("tavily"));
+    private Local local = new Local();
+
+    @Data
+    public static class Local {
+        // JSONL 语料文件，每行 {"url","title","content","raw_content"}，支持 classpath: 前缀
+        private String corpusPath;
+        // BM25 参数
+        private double k1 = 1.2;
+        private double b = 0.75;
+    }
+}
@@ -0,0 +1,31 @@
+package dev.chanler.researcher.infra.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 时间线存储配置
+ * @author: Chanler
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "timeline")
+public class TimelineProp {
+    // 只读写 chat_message / workflow_event
+    public static final String LEGACY = "legacy";
+    // 同时追加 research_timeline，读取仍走旧表，用于回填期间
+    public static final String DUAL = "dual";
+    // 同时追加 research_timeline，时间线与序列号从 research_timeline 读取
+    public static final String UNIFIED = "unified";
+
+    private String storage = LEGACY;
+
+    public boolean writeUnified() {
+        return DUAL.equalsIgnoreCase(storage) || UNIFIED.equalsIgnoreCase(storage);
+    }
+
+    public boolean readUnified() {
+        return UNIFIED.equalsIgnoreCase(storage);
+    }
+}
@@ -0,0 +1,17 @@
+package dev.chanler.researcher.infra.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One user/assistant turn of a research conversation, as cached for rebuilding model history
+ * @author: Chanler
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ConversationMessage {
+    private String role;
+    private String content;
+}
@@ -0,0 +1,26 @@
+package dev.chanler.researcher.infra.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Materialized timeline of a research, sent to a connecting SSE client as one frame
+ * @author: Chanler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineSnapshot {
+    public static final String KIND = "snapshot";
+
+    private String kind;
+    private String researchId;
+    // 快照覆盖到的最大序列号，同时作为 SSE 帧 id
+    private Integer lastSeq;
+    private List<TimelineItem> items;
+}
@@ -0,0 +1,34 @@
+package dev.chanler.researcher.infra.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Content-free projection of a timeline entry, message or event
+ * @author: Chanler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TimelineSummary {
+    // message / event
+    private String kind;
+    private Long id;
+    private Integer sequenceNo;
+    // message 专有
+    private String role;
+    // event 专有
+    private String type;
+    private String title;
+    private Long parentEventId;
+    private Long durationMs;
+    private LocalDateTime createTime;
+    // 正文按需通过内容接口获取，这里只给长度和开头
+    private Integer contentLength;
+    private String preview;
+}
@@ -0,0 +1,25 @@
+package dev.chanler.researcher.infra.data;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 单次 LLM 调用的 Token 增量及本次研究累计用量，通过 SSE token-usage 事件推送
+ * @author: Chanler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TokenUsageDelta {
+    private String stage;
+    private String modelName;
+    private Long inputTokens;
+    private Long outputTokens;
+    private Long totalInputTokens;
+    private Long totalOutputTokens;
+    // 0 表示不限制
+    private Long maxTotalTokens;
+}
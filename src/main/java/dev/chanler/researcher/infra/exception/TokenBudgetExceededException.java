@@ -0,0 +1,25 @@
+package dev.chanler.researcher.infra.exception;
+
+/**
+ * 研究累计 Token 超过预算上限
+ * @author: Chanler
+ */
+public class TokenBudgetExceededException extends WorkflowException {
+
+    private final long usedTokens;
+    private final long maxTokens;
+
+    public TokenBudgetExceededException(long usedTokens, long maxTokens) {
+        super("Token budget exceeded: used=" + usedTokens + ", max=" + maxTokens);
+        this.usedTokens = usedTokens;
+        this.maxTokens = maxTokens;
+    }
+
+    public long getUsedTokens() {
+        return usedTokens;
+    }
+
+    public long getMaxTokens() {
+        return maxTokens;
+    }
+}
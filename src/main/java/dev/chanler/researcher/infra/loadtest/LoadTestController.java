@@ -0,0 +1,40 @@
+package dev.chanler.researcher.infra.loadtest;
+
+import dev.chanler.researcher.infra.common.Result;
+import dev.chanler.researcher.infra.common.Results;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Load test entry, only registered with the loadtest profile
+ * @author: Chanler
+ */
+@Profile("loadtest")
+@RestController
+@RequiredArgsConstructor
+public class LoadTestController {
+
+    private final LoadTestDriver loadTestDriver;
+    private final SseConnectionProbe sseConnectionProbe;
+
+    @PostMapping("/loadtest/run")
+    public Result<LoadTestReport> run(
+            @RequestParam(defaultValue = "10") int sessions,
+            @RequestParam(required = false) Integer concurrency,
+            @RequestParam(defaultValue = "MEDIUM") String budget,
+            @RequestParam(defaultValue = "600") long timeoutSeconds) throws InterruptedException {
+        return Results.success(loadTestDriver.run(sessions,
+                concurrency == null ? sessions : concurrency, budget, timeoutSeconds));
+    }
+
+    @PostMapping("/loadtest/sse-probe")
+    public Result<SseProbeReport> sseProbe(
+            @RequestParam(defaultValue = SseConnectionProbe.MVC) String transport,
+            @RequestParam(defaultValue = "1000") int connections,
+            @RequestParam(defaultValue = "30") long connectTimeoutSeconds) throws InterruptedException {
+        return Results.success(sseConnectionProbe.probe(transport, connections, connectTimeoutSeconds));
+    }
+}
@@ -0,0 +1,217 @@
+package dev.chanler.researcher.infra.loadtest;
+
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chanler.researcher.application.data.WorkflowStatus;
+import dev.chanler.researcher.application.workflow.PipelineStageListener;
+import dev.chanler.researcher.domain.entity.Model;
+import dev.chanler.researcher.domain.entity.WorkflowEvent;
+import dev.chanler.researcher.domain.mapper.ModelMapper;
+import dev.chanler.researcher.domain.mapper.WorkflowEventMapper;
+import dev.chanler.researcher.interfaces.dto.req.SendMessageReqDTO;
+import dev.chanler.researcher.interfaces.service.ResearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Runs N research sessions against the mock LLM and collects stage timings,
+ * event throughput and heap usage
+ * @author: Chanler
+ */
+@Slf4j
+@Profile("loadtest")
+@Component
+@RequiredArgsConstructor
+public class LoadTestDriver implements PipelineStageListener {
+
+    private static final String MOCK_MODEL_NAME = "loadtest-mock";
+
+    private final ResearchService researchService;
+    private final ModelMapper modelMapper;
+    private final WorkflowEventMapper workflowEventMapper;
+    private final MockLlmProp mockLlmProp;
+    private final ObjectMapper objectMapper;
+    private final Environment environment;
+
+    private volatile Run current;
+
+    public synchronized LoadTestReport run(int sessions, int concurrency, String budget, long timeoutSeconds)
+            throws InterruptedException {
+        Long userId = mockLlmProp.getUserId();
+        String modelId = ensureMockModel(userId);
+        List<String> researchIds = researchService.createResearch(userId, sessions).getResearchIds();
+        int permits = Math.max(1, Math.min(concurrency, researchIds.size()));
+        Run run = new Run(Set.copyOf(researchIds), permits);
+        current = run;
+
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        long heapStart = memory.getHeapMemoryUsage().getUsed();
+        AtomicLong heapPeak = new AtomicLong(heapStart);
+        ScheduledExecutorService sampler = Executors.newSingleThreadScheduledExecutor();
+        sampler.scheduleAtFixedRate(() -> heapPeak.accumulateAndGet(memory.getHeapMemoryUsage().getUsed(), Math::max),
+                0, 100, TimeUnit.MILLISECONDS);
+
+        long start = System.currentTimeMillis();
+        try {
+            for (int i = 0; i < researchIds.size(); i++) {
+                run.slots.acquire();
+                String researchId = researchIds.get(i);
+                SendMessageReqDTO request = objectMapper.convertValue(Map.of(
+                        "content", "Load test research topic " + (i + 1) + ": research analysis data",
+                        "modelId", modelId,
+                        "budget", budget), SendMessageReqDTO.class);
+                try {
+                    researchService.sendMessage(userId, researchId, request);
+                } catch (Exception e) {
+                    log.warn("Load test session rejected: researchId={}, reason={}", researchId, e.getMessage());
+                    run.rejected.incrementAndGet();
+                    run.finish(researchId);
+                }
+            }
+            boolean finished = run.done.await(timeoutSeconds, TimeUnit.SECONDS);
+            long wallTimeMs = System.currentTimeMillis() - start;
+            return report(run, sessions, permits, wallTimeMs, finished, heapStart, heapPeak.get(),
+                    memory.getHeapMemoryUsage().getUsed());
+        } finally {
+            sampler.shutdownNow();
+            current = null;
+        }
+    }
+
+    @Override
+    public void onStageEnd(String researchId, String stage, long elapsedMs, String status) {
+        Run run = current;
+        if (run == null || !run.researchIds.contains(researchId)) {
+            return;
+        }
+        run.timings.computeIfAbsent(stage, key -> new ConcurrentLinkedQueue<>()).add(elapsedMs);
+        if (PIPELINE.equals(stage)) {
+            if (WorkflowStatus.COMPLETED.equals(status)) {
+                run.completed.incrementAndGet();
+            } else {
+                run.failed.incrementAndGet();
+            }
+            run.finish(researchId);
+        }
+    }
+
+    private LoadTestReport report(Run run, int sessions, int concurrency, long wallTimeMs, boolean finished,
+                                  long heapStart, long heapPeak, long heapEnd) {
+        Map<String, LoadTestReport.StageStats> stages = new TreeMap<>();
+        run.timings.forEach((stage, values) -> stages.put(stage, stats(new ArrayList<>(values))));
+        Long events = workflowEventMapper.selectCount(Wrappers.lambdaQuery(WorkflowEvent.class)
+                .in(WorkflowEvent::getResearchId, run.researchIds));
+        return LoadTestReport.builder()
+                .sessions(sessions)
+                .concurrency(concurrency)
+                .completed(run.completed.get())
+                .failed(run.failed.get())
+                .rejected(run.rejected.get())
+                .timedOut(finished ? 0 : (int) run.done.getCount())
+                .wallTimeMs(wallTimeMs)
+                .stages(stages)
+                .events(events)
+                .eventsPerSecond(wallTimeMs == 0 ? 0.0 : events * 1000.0 / wallTimeMs)
+                .heapStartMb(heapStart >> 20)
+                .heapPeakMb(heapPeak >> 20)
+                .heapEndMb(heapEnd >> 20)
+                .build();
+    }
+
+    private LoadTestReport.StageStats stats(List<Long> values) {
+        values.sort(Long::compareTo);
+        long sum = values.stream().mapToLong(Long::longValue).sum();
+        return LoadTestReport.StageStats.builder()
+                .count(values.size())
+                .p50Ms(percentile(values, 0.50))
+                .p99Ms(percentile(values, 0.99))
+                .maxMs(values.isEmpty() ? 0 : values.get(values.size() - 1))
+                .avgMs(values.isEmpty() ? 0 : sum / values.size())
+                .build();
+    }
+
+    static long percentile(List<Long> sorted, double p) {
+        if (sorted.isEmpty()) {
+            return 0;
+        }
+        int index = (int) Math.ceil(p * sorted.size()) - 1;
+        return sorted.get(Math.max(0, Math.min(sorted.size() - 1, index)));
+    }
+
+    /**
+     * 确保压测用户拥有指向内置 mock 服务的模型配置
+     */
+    private String ensureMockModel(Long userId) {
+        String port = environment.getProperty("local.server.port", environment.getProperty("server.port", "8080"));
+        String baseUrl = "http://127.0.0.1:" + port + "/mock/openai/v1";
+        Model model = modelMapper.selectOne(Wrappers.lambdaQuery(Model.class)
+                .eq(Model::getType, "USER")
+                .eq(Model::getUserId, userId)
+                .eq(Model::getName, MOCK_MODEL_NAME)
+                .last("LIMIT 1"));
+        if (model == null) {
+            model = Model.builder()
+                    .type("USER")
+                    .userId(userId)
+                    .name(MOCK_MODEL_NAME)
+                    .model("mock-large")
+                    .summarizerModel("mock-small")
+                    .baseUrl(baseUrl)
+                    .apiKey("mock")
+                    .createTime(LocalDateTime.now())
+                    .updateTime(LocalDateTime.now())
+                    .build();
+            modelMapper.insert(model);
+        } else if (!baseUrl.equals(model.getBaseUrl())) {
+            model.setBaseUrl(baseUrl);
+            model.setUpdateTime(LocalDateTime.now());
+            modelMapper.updateById(model);
+        }
+        return model.getId();
+    }
+
+    private static class Run {
+        final Set<String> researchIds;
+        final Set<String> finished = ConcurrentHashMap.newKeySet();
+        final Semaphore slots;
+        final CountDownLatch done;
+        final Map<String, ConcurrentLinkedQueue<Long>> timings = new ConcurrentHashMap<>();
+        final AtomicInteger completed = new AtomicInteger();
+        final AtomicInteger failed = new AtomicInteger();
+        final AtomicInteger rejected = new AtomicInteger();
+
+        Run(Set<String> researchIds, int concurrency) {
+            this.researchIds = researchIds;
+            this.slots = new Semaphore(concurrency);
+            this.done = new CountDownLatch(researchIds.size());
+        }
+
+        void finish(String researchId) {
+            if (finished.add(researchId)) {
+                slots.release();
+                done.countDown();
+            }
+        }
+    }
+}
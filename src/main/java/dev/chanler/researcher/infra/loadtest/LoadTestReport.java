@@ -0,0 +1,44 @@
+package dev.chanler.researcher.infra.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+/**
+ * Result of one load test run
+ * @author: Chanler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class LoadTestReport {
+    private Integer sessions;
+    private Integer concurrency;
+    private Integer completed;
+    private Integer failed;
+    private Integer rejected;
+    private Integer timedOut;
+    private Long wallTimeMs;
+    private Map<String, StageStats> stages;
+    private Long events;
+    private Double eventsPerSecond;
+    private Long heapStartMb;
+    private Long heapPeakMb;
+    private Long heapEndMb;
+
+    @Data
+    @Builder
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class StageStats {
+        private Integer count;
+        private Long p50Ms;
+        private Long p99Ms;
+        private Long maxMs;
+        private Long avgMs;
+    }
+}
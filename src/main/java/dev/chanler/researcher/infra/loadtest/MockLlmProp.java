@@ -0,0 +1,42 @@
+package dev.chanler.researcher.infra.loadtest;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+
+/**
+ * Configuration of the in-process mock LLM and the load driver (loadtest profile only)
+ * @author: Chanler
+ */
+@Data
+@Profile("loadtest")
+@Configuration
+@ConfigurationProperties(prefix = "loadtest")
+public class MockLlmProp {
+    // 压测会话所属用户
+    private Long userId = 0L;
+    private MockLlm mockLlm = new MockLlm();
+
+    @Data
+    public static class MockLlm {
+        // 基础延迟 + 均匀抖动
+        private long latencyMs = 200;
+        private long latencyJitterMs = 100;
+        // 长尾延迟：按概率额外等待
+        private double tailRate = 0.01;
+        private long tailLatencyMs = 2000;
+        // 按概率返回错误，模拟限流/服务端故障
+        private double errorRate = 0.0;
+        private int errorStatus = 500;
+        // Supervisor 调用 conductResearch 的总次数，之后调用 researchComplete
+        private int conductCalls = 2;
+        // Researcher 每条消息中并行的 tavilySearch 数量和轮数，之后不再调用工具
+        private int searchesPerMessage = 2;
+        private int searchRounds = 1;
+        // 纯文本回复 (压缩、报告) 的长度
+        private int textLength = 2000;
+        // 流式回复的分块数
+        private int streamChunks = 20;
+    }
+}
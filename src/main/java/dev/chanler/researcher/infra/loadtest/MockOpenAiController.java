@@ -0,0 +1,322 @@
+package dev.chanler.researcher.infra.loadtest;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-process fake of the OpenAI chat completions API. Point a Model's baseUrl at
+ * http://host:port/mock/openai/v1 to run the whole pipeline without a real provider.
+ * Tool calls are scripted from the conversation so far, JSON outputs are generated
+ * from the requested schema, and latency/errors follow MockLlmProp
+ * @author: Chanler
+ */
+@Slf4j
+@Profile("loadtest")
+@RestController
+@RequiredArgsConstructor
+@RequestMapping("/mock/openai/v1")
+public class MockOpenAiController {
+
+    private static final String FILLER = "Mock finding about the research topic with supporting data and analysis [S1]. ";
+
+    private final MockLlmProp mockLlmProp;
+    private final ObjectMapper objectMapper;
+    private final AtomicLong idGenerator = new AtomicLong();
+
+    @PostMapping("/chat/completions")
+    public ResponseEntity<?> chatCompletions(@RequestBody JsonNode request) throws InterruptedException {
+        MockLlmProp.MockLlm config = mockLlmProp.getMockLlm();
+        simulateLatency(config);
+        if (ThreadLocalRandom.current().nextDouble() < config.getErrorRate()) {
+            ObjectNode error = objectMapper.createObjectNode();
+            error.putObject("error")
+                    .put("message", "Injected mock failure")
+                    .put("type", "server_error");
+            return ResponseEntity.status(config.getErrorStatus())
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(error);
+        }
+
+        String id = "chatcmpl-mock-" + idGenerator.incrementAndGet();
+        String model = request.path("model").asText("mock");
+        ObjectNode message = reply(request, config);
+        int promptTokens = estimateTokens(request.path("messages").toString());
+        int completionTokens = estimateTokens(message.toString());
+        String finishReason = message.has("tool_calls") ? "tool_calls" : "stop";
+
+        if (request.path("stream").asBoolean(false)) {
+            StreamingResponseBody body = outputStream -> stream(outputStream, id, model, message,
+                    finishReason, promptTokens, completionTokens, config.getStreamChunks());
+            return ResponseEntity.ok()
+                    .contentType(MediaType.TEXT_EVENT_STREAM)
+                    .body(body);
+        }
+
+        ObjectNode response = envelope(id, model, "chat.completion");
+        ObjectNode choice = response.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.set("message", message);
+        choice.put("finish_reason", finishReason);
+        response.set("usage", usage(promptTokens, completionTokens));
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(response);
+    }
+
+    /**
+     * 按可用工具和历史消息生成回复：Supervisor -> conductResearch/researchComplete,
+     * Researcher -> tavilySearch 若干轮后结束，结构化输出 -> 按 schema 生成，其余 -> 纯文本
+     */
+    private ObjectNode reply(JsonNode request, MockLlmProp.MockLlm config) {
+        ObjectNode message = objectMapper.createObjectNode();
+        message.put("role", "assistant");
+        JsonNode messages = request.path("messages");
+        Set<String> tools = toolNames(request.path("tools"));
+
+        if (tools.contains("conductResearch")) {
+            int conducted = countToolCalls(messages, "conductResearch");
+            message.putNull("content");
+            ArrayNode toolCalls = message.putArray("tool_calls");
+            if (conducted < config.getConductCalls()) {
+                addToolCall(toolCalls, "conductResearch", Map.of("researchTopic",
+                        "Mock research unit " + (conducted + 1) + ": collect facts, data and analysis on the topic"));
+            } else {
+                addToolCall(toolCalls, "researchComplete", Map.of());
+            }
+            return message;
+        }
+
+        if (tools.contains("tavilySearch")) {
+            int rounds = countToolCallMessages(messages, "tavilySearch");
+            if (rounds < config.getSearchRounds()) {
+                message.putNull("content");
+                ArrayNode toolCalls = message.putArray("tool_calls");
+                for (int i = 0; i < config.getSearchesPerMessage(); i++) {
+                    int n = rounds * config.getSearchesPerMessage() + i + 1;
+                    addToolCall(toolCalls, "tavilySearch",
+                            Map.of("query", "research analysis data " + n, "maxResults", 3));
+                }
+                return message;
+            }
+            message.put("content", "Research finished.");
+            return message;
+        }
+
+        JsonNode schema = request.path("response_format").path("json_schema").path("schema");
+        if (!schema.isMissingNode()) {
+            message.put("content", generate(schema, "value").toString());
+            return message;
+        }
+
+        message.put("content", text(config.getTextLength()));
+        return message;
+    }
+
+    /**
+     * 按 JSON Schema 生成示例值，布尔值固定为 false (例如无需澄清)
+     */
+    private JsonNode generate(JsonNode schema, String name) {
+        if (schema.has("anyOf")) {
+            return generate(schema.path("anyOf").path(0), name);
+        }
+        if (schema.has("enum")) {
+            return schema.path("enum").path(0);
+        }
+        String type = schema.path("type").isArray()
+                ? firstNonNullType(schema.path("type"))
+                : schema.path("type").asText("string");
+        switch (type) {
+            case "object" -> {
+                ObjectNode node = objectMapper.createObjectNode();
+                for (Map.Entry<String, JsonNode> field : schema.path("properties").properties()) {
+                    node.set(field.getKey(), generate(field.getValue(), field.getKey()));
+                }
+                return node;
+            }
+            case "array" -> {
+                ArrayNode node = objectMapper.createArrayNode();
+                node.add(generate(schema.path("items"), name));
+                return node;
+            }
+            case "boolean" -> {
+                return objectMapper.getNodeFactory().booleanNode(false);
+            }
+            case "integer" -> {
+                return objectMapper.getNodeFactory().numberNode(1);
+            }
+            case "number" -> {
+                return objectMapper.getNodeFactory().numberNode(1.0);
+            }
+            default -> {
+                return objectMapper.getNodeFactory().textNode("Mock " + name + ": " + FILLER.repeat(3).trim());
+            }
+        }
+    }
+
+    private void stream(OutputStream outputStream, String id, String model, ObjectNode message,
+                        String finishReason, int promptTokens, int completionTokens, int chunks) throws IOException {
+        ObjectNode first = chunk(id, model);
+        ObjectNode delta = (ObjectNode) first.path("choices").path(0).path("delta");
+        delta.put("role", "assistant");
+        if (message.has("tool_calls")) {
+            ArrayNode toolCalls = delta.putArray("tool_calls");
+            int index = 0;
+            for (JsonNode toolCall : message.path("tool_calls")) {
+                ObjectNode copy = toolCall.deepCopy();
+                copy.put("index", index++);
+                toolCalls.add(copy);
+            }
+        }
+        writeEvent(outputStream, first);
+
+        String content = message.path("content").asText("");
+        int size = Math.max(1, (content.length() + Math.max(1, chunks) - 1) / Math.max(1, chunks));
+        for (int start = 0; start < content.length(); start += size) {
+            ObjectNode next = chunk(id, model);
+            ((ObjectNode) next.path("choices").path(0).path("delta"))
+                    .put("content", content.substring(start, Math.min(content.length(), start + size)));
+            writeEvent(outputStream, next);
+        }
+
+        ObjectNode last = chunk(id, model);
+        ((ObjectNode) last.path("choices").path(0)).put("finish_reason", finishReason);
+        last.set("usage", usage(promptTokens, completionTokens));
+        writeEvent(outputStream, last);
+        outputStream.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+    }
+
+    private void writeEvent(OutputStream outputStream, JsonNode data) throws IOException {
+        outputStream.write(("data: " + objectMapper.writeValueAsString(data) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        outputStream.flush();
+    }
+
+    private ObjectNode chunk(String id, String model) {
+        ObjectNode chunk = envelope(id, model, "chat.completion.chunk");
+        ObjectNode choice = chunk.putArray("choices").addObject();
+        choice.put("index", 0);
+        choice.putObject("delta");
+        choice.putNull("finish_reason");
+        return chunk;
+    }
+
+    private ObjectNode envelope(String id, String model, String object) {
+        ObjectNode node = objectMapper.createObjectNode();
+        node.put("id", id);
+        node.put("object", object);
+        node.put("created", System.currentTimeMillis() / 1000);
+        node.put("model", model);
+        return node;
+    }
+
+    private ObjectNode usage(int promptTokens, int completionTokens) {
+        ObjectNode usage = objectMapper.createObjectNode();
+        usage.put("prompt_tokens", promptTokens);
+        usage.put("completion_tokens", completionTokens);
+        usage.put("total_tokens", promptTokens + completionTokens);
+        return usage;
+    }
+
+    private void addToolCall(ArrayNode toolCalls, String name, Map<String, Object> arguments) {
+        ObjectNode toolCall = toolCalls.addObject();
+        toolCall.put("id", "call_" + idGenerator.incrementAndGet());
+        toolCall.put("type", "function");
+        ObjectNode function = toolCall.putObject("function");
+        function.put("name", name);
+        try {
+            function.put("arguments", objectMapper.writeValueAsString(arguments));
+        } catch (Exception e) {
+            function.put("arguments", "{}");
+        }
+    }
+
+    private Set<String> toolNames(JsonNode tools) {
+        Set<String> names = new HashSet<>();
+        for (JsonNode tool : tools) {
+            names.add(tool.path("function").path("name").asText());
+        }
+        return names;
+    }
+
+    private int countToolCalls(JsonNode messages, String name) {
+        int count = 0;
+        for (JsonNode message : messages) {
+            for (JsonNode toolCall : message.path("tool_calls")) {
+                if (name.equals(toolCall.path("function").path("name").asText())) {
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    private int countToolCallMessages(JsonNode messages, String name) {
+        int count = 0;
+        for (JsonNode message : messages) {
+            for (JsonNode toolCall : message.path("tool_calls")) {
+                if (name.equals(toolCall.path("function").path("name").asText())) {
+                    count++;
+                    break;
+                }
+            }
+        }
+        return count;
+    }
+
+    private String firstNonNullType(JsonNode types) {
+        for (JsonNode type : types) {
+            if (!"null".equals(type.asText())) {
+                return type.asText();
+            }
+        }
+        return "string";
+    }
+
+    private String text(int length) {
+        StringBuilder text = new StringBuilder("# Mock Report\n\n## Findings\n\n");
+        while (text.length() < length) {
+            text.append(FILLER);
+        }
+        text.append("\n\n### Sources\n[S1] Mock source: https://example.com/mock\n");
+        return text.toString();
+    }
+
+    private int estimateTokens(String text) {
+        return Math.max(1, text.length() / 4);
+    }
+
+    private void simulateLatency(MockLlmProp.MockLlm config) throws InterruptedException {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long latency = config.getLatencyMs();
+        if (config.getLatencyJitterMs() > 0) {
+            latency += random.nextLong(config.getLatencyJitterMs() + 1);
+        }
+        if (random.nextDouble() < config.getTailRate()) {
+            latency += config.getTailLatencyMs();
+        }
+        if (latency > 0) {
+            Thread.sleep(latency);
+        }
+    }
+}
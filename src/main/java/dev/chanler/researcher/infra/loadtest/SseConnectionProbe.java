@@ -0,0 +1,123 @@
+package dev.chanler.researcher.infra.loadtest;
+
+import dev.chanler.researcher.infra.util.JwtUtil;
+import dev.chanler.researcher.interfaces.service.ResearchService;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.lang.management.ManagementFactory;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds N idle SSE connections against the MVC or reactive endpoint and measures
+ * heap and thread cost per connection
+ * @author: Chanler
+ */
+@Slf4j
+@Profile("loadtest")
+@Component
+@RequiredArgsConstructor
+public class SseConnectionProbe {
+
+    public static final String MVC = "mvc";
+    public static final String REACTIVE = "reactive";
+
+    private static final long SETTLE_MILLIS = 2_000L;
+
+    private final ResearchService researchService;
+    private final MockLlmProp mockLlmProp;
+    private final JwtUtil jwtUtil;
+    private final Environment environment;
+
+    public synchronized SseProbeReport probe(String transport, int connections, long connectTimeoutSeconds)
+            throws InterruptedException {
+        Long userId = mockLlmProp.getUserId();
+        String researchId = researchService.createResearch(userId, 1).getResearchIds().getFirst();
+        String token = jwtUtil.generate(userId);
+        String port = environment.getProperty("local.server.port", environment.getProperty("server.port", "8080"));
+        String path = REACTIVE.equals(transport) ? "/api/v1/research/sse/reactive" : "/api/v1/research/sse";
+        URI uri = URI.create("http://127.0.0.1:" + port + path);
+
+        long heapBefore = usedHeapAfterGc();
+        int threadsBefore = ManagementFactory.getThreadMXBean().getThreadCount();
+
+        ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+        HttpClient client = HttpClient.newBuilder().executor(executor).build();
+        List<CompletableFuture<HttpResponse<InputStream>>> pending = new ArrayList<>(connections);
+        List<InputStream> streams = new ArrayList<>(connections);
+        int failed = 0;
+        try {
+            for (int i = 0; i < connections; i++) {
+                HttpRequest request = HttpRequest.newBuilder(uri)
+                        .header("Authorization", "Bearer " + token)
+                        .header("Accept", "text/event-stream")
+                        .header("X-Research-Id", researchId)
+                        .header("X-Client-Id", "probe-" + i)
+                        .GET()
+                        .build();
+                // ofInputStream 在收到响应头后即完成，连接保持打开
+                pending.add(client.sendAsync(request, HttpResponse.BodyHandlers.ofInputStream()));
+            }
+            for (CompletableFuture<HttpResponse<InputStream>> future : pending) {
+                try {
+                    HttpResponse<InputStream> response = future.get(connectTimeoutSeconds, TimeUnit.SECONDS);
+                    streams.add(response.body());
+                    if (response.statusCode() != 200) {
+                        failed++;
+                    }
+                } catch (Exception e) {
+                    failed++;
+                }
+            }
+            Thread.sleep(SETTLE_MILLIS);
+
+            long heapAfter = usedHeapAfterGc();
+            int threadsAfter = ManagementFactory.getThreadMXBean().getThreadCount();
+            int established = connections - failed;
+            long bytesPerConnection = established == 0 ? 0 : Math.max(0, heapAfter - heapBefore) / established;
+            log.info("SSE probe finished: transport={}, established={}, bytesPerConnection={}",
+                    transport, established, bytesPerConnection);
+            return SseProbeReport.builder()
+                    .transport(transport)
+                    .requested(connections)
+                    .established(established)
+                    .failed(failed)
+                    .heapBeforeMb(heapBefore >> 20)
+                    .heapAfterMb(heapAfter >> 20)
+                    .bytesPerConnection(bytesPerConnection)
+                    .connectionsPerGb(bytesPerConnection == 0 ? 0 : (1L << 30) / bytesPerConnection)
+                    .threadsBefore(threadsBefore)
+                    .threadsAfter(threadsAfter)
+                    .build();
+        } finally {
+            for (InputStream stream : streams) {
+                try {
+                    stream.close();
+                } catch (Exception ignored) {
+                    // 连接可能已被服务端关闭
+                }
+            }
+            client.shutdownNow();
+            executor.shutdownNow();
+        }
+    }
+
+    private static long usedHeapAfterGc() throws InterruptedException {
+        System.gc();
+        Thread.sleep(200);
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+}
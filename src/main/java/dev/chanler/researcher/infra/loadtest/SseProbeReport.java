@@ -0,0 +1,28 @@
+package dev.chanler.researcher.infra.loadtest;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Result of one SSE connection probe
+ * @author: Chanler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class SseProbeReport {
+    private String transport;
+    private Integer requested;
+    private Integer established;
+    private Integer failed;
+    private Long heapBeforeMb;
+    private Long heapAfterMb;
+    // 客户端与服务端同进程，两种端点的客户端开销相同，可直接横向比较
+    private Long bytesPerConnection;
+    private Long connectionsPerGb;
+    private Integer threadsBefore;
+    private Integer threadsAfter;
+}
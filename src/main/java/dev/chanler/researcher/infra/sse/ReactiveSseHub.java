@@ -0,0 +1,190 @@
+package dev.chanler.researcher.infra.sse;
+
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import dev.chanler.researcher.application.data.WorkflowStatus;
+import dev.chanler.researcher.domain.entity.ResearchSession;
+import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
+import dev.chanler.researcher.infra.data.TimelineItem;
+import dev.chanler.researcher.infra.data.TimelineSnapshot;
+import dev.chanler.researcher.infra.data.TokenUsageDelta;
+import dev.chanler.researcher.infra.exception.ResearchException;
+import dev.chanler.researcher.infra.util.CacheUtil;
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.Sinks;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Non-blocking SSE hub: one multicast sink per research, connections hold no thread
+ * while idle and share a single timer for heartbeats. Keeps the Last-Event-ID replay
+ * semantics of {@link SseHub}
+ * @author: Chanler
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class ReactiveSseHub {
+
+    private static final Duration HEARTBEAT_INTERVAL = Duration.ofSeconds(30);
+    // 单个连接允许积压的帧数，超过后断开连接，客户端带 Last-Event-ID 重连后重放，不静默丢帧
+    private static final int CLIENT_BUFFER_SIZE = 256;
+    private static final String DONE = "done";
+
+    // researchId -> 多播 sink，仅在有订阅者时存在
+    private final Map<String, Sinks.Many<ServerSentEvent<Object>>> researchSinks = new ConcurrentHashMap<>();
+    private final CacheUtil cacheUtil;
+    private final MetricsUtil metricsUtil;
+    private final ResearchSessionMapper researchSessionMapper;
+
+    @PostConstruct
+    public void init() {
+        metricsUtil.gauge(MetricsUtil.SSE_CLIENTS, researchSinks,
+                sinks -> sinks.values().stream().mapToInt(Sinks.Many::currentSubscriberCount).sum(),
+                "transport", "reactive");
+    }
+
+    public Flux<ServerSentEvent<Object>> connect(Long userId, String researchId, String lastEventId) {
+        if (!cacheUtil.verifyResearchOwnership(researchId, userId)) {
+            throw new ResearchException("研究任务不存在或无权限访问");
+        }
+        return Flux.defer(() -> {
+            // 先订阅实时流再读取重放，两者之间产生的帧暂存在 inbox 中，不会丢失
+            Sinks.Many<ServerSentEvent<Object>> inbox = Sinks.many().unicast().onBackpressureBuffer();
+            Disposable upstream = subscribe(researchId, inbox);
+
+            TimelineSnapshot snapshot = SseHub.snapshotAfter(cacheUtil, researchId, lastEventId);
+            // 先订阅再检查状态：已结束的研究不会再有 complete()，重放后直接结束；
+            // 检查时尚未结束的研究，其 complete() 一定能看到本次订阅的 sink
+            String terminalStatus = terminalStatus(researchId);
+            if (terminalStatus != null) {
+                upstream.dispose();
+                release(researchId);
+                return Flux.concat(Mono.justOrEmpty(snapshot).map(ReactiveSseHub::snapshotEvent),
+                        Mono.just(doneEvent(terminalStatus)));
+            }
+            int replayedSeq = snapshot == null
+                    ? NumberUtil.parseInt(StrUtil.trimToEmpty(lastEventId), 0)
+                    : snapshot.getLastSeq();
+            Flux<ServerSentEvent<Object>> events = Flux.concat(
+                            Mono.justOrEmpty(snapshot).map(ReactiveSseHub::snapshotEvent),
+                            inbox.asFlux().filter(event -> event.id() == null
+                                    || NumberUtil.parseInt(event.id(), 0) > replayedSeq))
+                    .doFinally(signal -> {
+                        upstream.dispose();
+                        release(researchId);
+                    });
+            Flux<ServerSentEvent<Object>> heartbeats = Flux.interval(HEARTBEAT_INTERVAL)
+                    .map(tick -> ServerSentEvent.<Object>builder().comment("heartbeat").build());
+            return Flux.merge(events, heartbeats)
+                    .takeUntil(event -> DONE.equals(event.event()))
+                    .onBackpressureBuffer(CLIENT_BUFFER_SIZE,
+                            dropped -> log.debug("Reactive SSE 客户端积压超限，断开等待重连 researchId={}", researchId),
+                            BufferOverflowStrategy.ERROR);
+        });
+    }
+
+    public void sendTimelineItem(String researchId, TimelineItem item) {
+        if (item == null || item.getSequenceNo() == null) {
+            return;
+        }
+        emit(researchId, timelineEvent(item));
+    }
+
+    public void sendReportStream(String researchId, String partialText) {
+        if (StrUtil.isEmptyIfStr(partialText)) {
+            return;
+        }
+        emit(researchId, ServerSentEvent.<Object>builder().event("report-stream").data(partialText).build());
+    }
+
+    public void sendTokenUsage(String researchId, TokenUsageDelta delta) {
+        emit(researchId, ServerSentEvent.<Object>builder().event("token-usage").data(delta).build());
+    }
+
+    public void complete(String researchId, String finalStatus) {
+        Sinks.Many<ServerSentEvent<Object>> sink = researchSinks.remove(researchId);
+        if (sink == null) {
+            return;
+        }
+        try {
+            sink.emitNext(doneEvent(finalStatus), Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        } catch (Exception e) {
+            log.warn("Reactive SSE 结束失败，researchId={}", researchId, e);
+        }
+        sink.tryEmitComplete();
+    }
+
+    private void emit(String researchId, ServerSentEvent<Object> event) {
+        Sinks.Many<ServerSentEvent<Object>> sink = researchSinks.get(researchId);
+        if (sink == null) {
+            return;
+        }
+        try {
+            // 搜索等子任务可能并发发布，短暂自旋等待串行化
+            sink.emitNext(event, Sinks.EmitFailureHandler.busyLooping(Duration.ofMillis(100)));
+        } catch (Exception e) {
+            // 推送失败不影响研究流程
+            log.warn("Reactive SSE 推送失败，researchId={}", researchId, e);
+        }
+    }
+
+    private Disposable subscribe(String researchId, Sinks.Many<ServerSentEvent<Object>> inbox) {
+        // 在 compute 中完成订阅，避免刚取到的 sink 被并发的 release 移除
+        Disposable[] upstream = new Disposable[1];
+        researchSinks.compute(researchId, (key, sink) -> {
+            Sinks.Many<ServerSentEvent<Object>> target = sink != null
+                    ? sink : Sinks.many().multicast().directBestEffort();
+            upstream[0] = target.asFlux().subscribe(
+                    inbox::tryEmitNext, inbox::tryEmitError, inbox::tryEmitComplete);
+            return target;
+        });
+        return upstream[0];
+    }
+
+    private void release(String researchId) {
+        // 最后一个订阅者离开后移除 sink，与 subscribe 同在 compute 中执行，互斥
+        researchSinks.computeIfPresent(researchId,
+                (key, sink) -> sink.currentSubscriberCount() == 0 ? null : sink);
+    }
+
+    private String terminalStatus(String researchId) {
+        ResearchSession session = researchSessionMapper.selectVersion(researchId);
+        if (session == null) {
+            return null;
+        }
+        String status = session.getStatus();
+        return WorkflowStatus.COMPLETED.equals(status) || WorkflowStatus.FAILED.equals(status) ? status : null;
+    }
+
+    private static ServerSentEvent<Object> doneEvent(String finalStatus) {
+        return ServerSentEvent.<Object>builder().event(DONE).data("[DONE] " + finalStatus).build();
+    }
+
+    private static ServerSentEvent<Object> snapshotEvent(TimelineSnapshot snapshot) {
+        return ServerSentEvent.<Object>builder()
+                .id(snapshot.getLastSeq().toString())
+                .event(TimelineSnapshot.KIND)
+                .data(snapshot)
+                .build();
+    }
+
+    private static ServerSentEvent<Object> timelineEvent(TimelineItem item) {
+        return ServerSentEvent.<Object>builder()
+                .id(item.getSequenceNo().toString())
+                .event(item.getKind())
+                .data(item)
+                .build();
+    }
+}
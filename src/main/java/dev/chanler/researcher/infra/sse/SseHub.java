@@ -3,9 +3,16 @@ package dev.chanler.researcher.infra.sse;
 import cn.hutool.core.collection.CollectionUtil;
 import cn.hutool.core.util.NumberUtil;
 import cn.hutool.core.util.StrUtil;
+import dev.chanler.researcher.application.data.WorkflowStatus;
+import dev.chanler.researcher.domain.entity.ResearchSession;
+import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
 import dev.chanler.researcher.infra.data.TimelineItem;
+import dev.chanler.researcher.infra.data.TimelineSnapshot;
+import dev.chanler.researcher.infra.data.TokenUsageDelta;
 import dev.chanler.researcher.infra.exception.ResearchException;
 import dev.chanler.researcher.infra.util.CacheUtil;
+import dev.chanler.researcher.infra.util.MetricsUtil;
+import io.micrometer.core.instrument.Timer;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Component;
@@ -15,13 +22,16 @@ import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * @author: Chanler
@@ -33,42 +43,111 @@ public class SseHub {
 
     private static final Long SSE_TIMEOUT_MS = 0L;
     private static final long HEARTBEAT_INTERVAL_MS = 30_000L;  // 30秒心跳
+    // 心跳在 ±10% 范围内抖动，避免同一时刻建立的连接始终同时发送
+    private static final double HEARTBEAT_JITTER = 0.1;
+    // 单次写入阻塞超过该时长视为连接卡死，由心跳检测并关闭
+    private static final long STALL_TIMEOUT_MS = 2 * HEARTBEAT_INTERVAL_MS;
+    // 每个连接待发送的事件上限，超过说明客户端读取跟不上，直接断开由其携带 Last-Event-ID 重连
+    private static final int MAX_PENDING_EVENTS = 1024;
+    private static final long REAP_INTERVAL_MS = 60_000L;
+    // 研究结束后保留连接的宽限期，供前端收尾
+    private static final long TERMINAL_GRACE_MS = 120_000L;
+    private static final long GAUGE_REFRESH_MS = 15_000L;
+    private static final long WHEEL_TICK_MS = 200L;
+    private static final int WHEEL_SIZE = 512;
 
-    // researchId -> (clientId -> emitter)
-    private final Map<String, Map<String, SseEmitter>> researchEmitters = new ConcurrentHashMap<>();
+    // researchId -> (clientId -> connection)
+    private final Map<String, Map<String, Connection>> researchEmitters = new ConcurrentHashMap<>();
+    // researchId -> complete() 收到终态的时间
+    private final Map<String, Long> terminalSince = new ConcurrentHashMap<>();
     private final CacheUtil cacheUtil;
-    private ScheduledExecutorService heartbeatScheduler;
+    private final MetricsUtil metricsUtil;
+    private final ReactiveSseHub reactiveSseHub;
+    private final ResearchSessionMapper researchSessionMapper;
+    // 每个连接的写入在虚拟线程上串行进行，流水线线程只负责入队
+    private final ExecutorService senders = Executors.newVirtualThreadPerTaskExecutor();
+    private TimerWheel timerWheel;
 
     @PostConstruct
     public void init() {
-        heartbeatScheduler = Executors.newSingleThreadScheduledExecutor();
-        heartbeatScheduler.scheduleAtFixedRate(this::sendHeartbeat,
-                HEARTBEAT_INTERVAL_MS, HEARTBEAT_INTERVAL_MS, TimeUnit.MILLISECONDS);
+        metricsUtil.gauge(MetricsUtil.SSE_CLIENTS, researchEmitters,
+                emitters -> emitters.values().stream().mapToInt(Map::size).sum(),
+                "transport", "mvc");
+        metricsUtil.gauge(MetricsUtil.SSE_RESEARCHES, researchEmitters, Map::size, "transport", "mvc");
+        timerWheel = new TimerWheel("sse-timer-wheel", WHEEL_TICK_MS, WHEEL_SIZE);
+        timerWheel.schedule(this::reapIdle, REAP_INTERVAL_MS);
+        timerWheel.schedule(this::refreshGauges, GAUGE_REFRESH_MS);
     }
 
     @PreDestroy
     public void destroy() {
-        if (heartbeatScheduler != null) {
-            heartbeatScheduler.shutdown();
-        }
-    }
-
-    private void sendHeartbeat() {
-        List<String[]> toRemove = new ArrayList<>();
-        for (Map.Entry<String, Map<String, SseEmitter>> research : researchEmitters.entrySet()) {
-            String researchId = research.getKey();
-            for (Map.Entry<String, SseEmitter> client : research.getValue().entrySet()) {
-                String clientId = client.getKey();
-                SseEmitter emitter = client.getValue();
-                try {
-                    emitter.send(SseEmitter.event().comment("heartbeat"));
-                } catch (IOException e) {
-                    log.debug("心跳失败，移除连接 researchId={}, clientId={}", researchId, clientId);
-                    toRemove.add(new String[]{researchId, clientId});
+        if (timerWheel != null) {
+            timerWheel.close();
+        }
+        senders.shutdownNow();
+    }
+
+    /**
+     * 每个连接独立调度心跳，与数据事件走同一个发送队列；一个阻塞的 socket 不影响其他连接
+     */
+    private void heartbeat(String researchId, String clientId, Connection connection) {
+        if (connection.closed.get()) {
+            return;
+        }
+        scheduleHeartbeat(researchId, clientId, connection, HEARTBEAT_INTERVAL_MS);
+        if (connection.stalled(System.currentTimeMillis())) {
+            log.debug("写入持续阻塞，关闭连接 researchId={}, clientId={}", researchId, clientId);
+            drop(researchId, clientId, connection, "stalled");
+            return;
+        }
+        if (connection.outbox.isEmpty()) {
+            // 队列非空说明正在推送数据，无需额外心跳
+            enqueue(researchId, clientId, connection, SseEmitter.event().comment("heartbeat"), "heartbeat");
+        }
+    }
+
+    private void scheduleHeartbeat(String researchId, String clientId, Connection connection, long intervalMs) {
+        long jitter = (long) (intervalMs * HEARTBEAT_JITTER);
+        long delay = intervalMs + ThreadLocalRandom.current().nextLong(-jitter, jitter + 1);
+        connection.heartbeat = timerWheel.schedule(() -> heartbeat(researchId, clientId, connection), delay);
+    }
+
+    /**
+     * complete() 之后超过宽限期仍未断开的连接直接关闭，不再等待发送失败才清理
+     */
+    private void reapIdle() {
+        try {
+            long deadline = System.currentTimeMillis() - TERMINAL_GRACE_MS;
+            for (Map.Entry<String, Long> entry : terminalSince.entrySet()) {
+                String researchId = entry.getKey();
+                if (entry.getValue() > deadline) {
+                    continue;
+                }
+                terminalSince.remove(researchId);
+                Map<String, Connection> clients = researchEmitters.get(researchId);
+                if (CollectionUtil.isEmpty(clients)) {
+                    continue;
                 }
+                log.debug("研究已结束，回收空闲连接 researchId={}, clients={}", researchId, clients.size());
+                clients.forEach((clientId, connection) -> close(researchId, clientId, connection));
             }
+        } catch (Exception e) {
+            log.warn("SSE 空闲连接回收失败", e);
+        } finally {
+            timerWheel.schedule(this::reapIdle, REAP_INTERVAL_MS);
+        }
+    }
+
+    /**
+     * 按研究采样在线连接数的分布，不以 researchId 作为标签
+     */
+    private void refreshGauges() {
+        try {
+            researchEmitters.values().forEach(clients ->
+                    metricsUtil.summary(MetricsUtil.SSE_RESEARCH_CLIENTS, clients.size(), "transport", "mvc"));
+        } finally {
+            timerWheel.schedule(this::refreshGauges, GAUGE_REFRESH_MS);
         }
-        toRemove.forEach(pair -> remove(pair[0], pair[1]));
     }
 
     public SseEmitter connect(Long userId, String researchId, String clientId, String lastEventId) {
@@ -80,125 +159,272 @@ public class SseHub {
         emitter.onTimeout(() -> remove(researchId, clientId));
         emitter.onError(ex -> remove(researchId, clientId));
 
-        researchEmitters
+        Connection connection = new Connection(emitter);
+        Connection previous = researchEmitters
                 .computeIfAbsent(researchId, k -> new ConcurrentHashMap<>())
-                .put(clientId, emitter);
+                .put(clientId, connection);
+        if (previous != null) {
+            previous.cancelHeartbeat();
+        }
 
+        // 登记后到快照发出前的实时事件先在队列中等待，保证快照在前
         replayIfNeeded(userId, researchId, emitter, lastEventId);
+        connection.ready.set(true);
+        drain(researchId, clientId, connection);
+        // 先登记再检查状态：研究已结束时 complete() 不会再到来，补发快照后立即结束
+        String terminalStatus = terminalStatus(researchId);
+        if (terminalStatus != null) {
+            done(researchId, clientId, connection, terminalStatus);
+            return emitter;
+        }
+        // 首次心跳在整个周期内随机分布
+        connection.heartbeat = timerWheel.schedule(() -> heartbeat(researchId, clientId, connection),
+                ThreadLocalRandom.current().nextLong(1, HEARTBEAT_INTERVAL_MS + 1));
 
         return emitter;
     }
 
     private void remove(String researchId, String clientId) {
-        Map<String, SseEmitter> clients = researchEmitters.get(researchId);
+        Map<String, Connection> clients = researchEmitters.get(researchId);
         if(CollectionUtil.isEmpty(clients)) {
             return;
         }
 
-        clients.remove(clientId);
+        Connection connection = clients.remove(clientId);
+        if (connection != null) {
+            connection.cancelHeartbeat();
+        }
         if (clients.isEmpty()) {
             researchEmitters.remove(researchId);
         }
     }
 
+    private void drop(String researchId, String clientId, Connection connection, String reason) {
+        metricsUtil.count(MetricsUtil.SSE_DROPPED, 1, "transport", "mvc", "reason", reason);
+        close(researchId, clientId, connection);
+    }
+
+    private void close(String researchId, String clientId, Connection connection) {
+        remove(researchId, clientId);
+        try {
+            connection.emitter.complete();
+        } catch (Exception e) {
+            log.debug("关闭连接失败 researchId={}, clientId={}", researchId, clientId, e);
+        }
+    }
+
     public void sendTimelineItem(String researchId, TimelineItem item) {
         if (item == null || item.getSequenceNo() == null) {
             return;
         }
-        String eventId = item.getSequenceNo().toString();
-        Map<String, SseEmitter> clients = researchEmitters.get(researchId);
-        if(CollectionUtil.isEmpty(clients)) {
+        reactiveSseHub.sendTimelineItem(researchId, item);
+        broadcast(researchId, () -> timelineEvent(item), "timeline");
+    }
+
+    public void sendReportStream(String researchId, String partialText) {
+        if (StrUtil.isEmptyIfStr(partialText)) {
             return;
         }
+        reactiveSseHub.sendReportStream(researchId, partialText);
+        broadcast(researchId, () -> SseEmitter.event()
+                .name("report-stream")
+                .data(partialText), "report-stream");
+    }
 
-        for (Map.Entry<String, SseEmitter> entry : clients.entrySet()) {
-            String clientId = entry.getKey();
-            SseEmitter emitter = entry.getValue();
-            if (emitter == null) {
-                continue;
-            }
-            try {
-                SseEmitter.SseEventBuilder builder = SseEmitter.event()
-                        .id(eventId)
-                        .name(item.getKind())
-                        .data(item);
-                emitter.send(builder);
-            } catch (IOException e) {
-                log.error("SSE 时间线推送失败，researchId={}, clientId={}", researchId, clientId, e);
-                remove(researchId, clientId);
-            }
+    /**
+     * 推送 Token 用量增量，不进入时间线，断线重连后以下一次增量中的累计值为准
+     */
+    public void sendTokenUsage(String researchId, TokenUsageDelta delta) {
+        reactiveSseHub.sendTokenUsage(researchId, delta);
+        broadcast(researchId, () -> SseEmitter.event()
+                .name("token-usage")
+                .data(delta), "token-usage");
+    }
+
+    /**
+     * 只入队，不在调用线程上写 socket；每个连接各自的虚拟线程按序发送
+     */
+    private void broadcast(String researchId, Supplier<SseEmitter.SseEventBuilder> event, String type) {
+        Map<String, Connection> clients = researchEmitters.get(researchId);
+        if (CollectionUtil.isEmpty(clients)) {
+            return;
         }
+        // SseEventBuilder 不可在连接间共享，每个连接各建一份
+        clients.forEach((clientId, connection) -> enqueue(researchId, clientId, connection, event.get(), type));
     }
 
-    public void sendReportStream(String researchId, String partialText) {
-        if (StrUtil.isEmptyIfStr(partialText)) {
+    private void enqueue(String researchId, String clientId, Connection connection,
+                         SseEmitter.SseEventBuilder event, String type) {
+        if (connection.closed.get()) {
             return;
         }
-        Map<String, SseEmitter> clients = researchEmitters.get(researchId);
-        if(CollectionUtil.isEmpty(clients)) {
+        if (connection.pending.incrementAndGet() > MAX_PENDING_EVENTS) {
+            connection.pending.decrementAndGet();
+            log.debug("发送队列积压，关闭连接 researchId={}, clientId={}", researchId, clientId);
+            drop(researchId, clientId, connection, "overflow");
             return;
         }
+        connection.outbox.offer(new Outbound(event, type));
+        drain(researchId, clientId, connection);
+    }
 
-        for (Map.Entry<String, SseEmitter> entry : clients.entrySet()) {
-            String clientId = entry.getKey();
-            SseEmitter emitter = entry.getValue();
-            if (emitter == null) {
-                continue;
-            }
+    /**
+     * 同一连接同时至多一个发送线程；发送线程退出后再次检查队列，避免漏发
+     */
+    private void drain(String researchId, String clientId, Connection connection) {
+        if (!connection.ready.get() || connection.outbox.isEmpty() || !connection.sending.compareAndSet(false, true)) {
+            return;
+        }
+        senders.execute(() -> {
             try {
-                SseEmitter.SseEventBuilder builder = SseEmitter.event()
-                        .name("report-stream")
-                        .data(partialText);
-                emitter.send(builder);
-            } catch (IOException e) {
-                log.error("SSE 报告流推送失败，researchId={}, clientId={}", researchId, clientId, e);
-                remove(researchId, clientId);
+                Outbound outbound;
+                while (!connection.closed.get() && (outbound = connection.outbox.poll()) != null) {
+                    connection.pending.decrementAndGet();
+                    connection.sendingSince = System.currentTimeMillis();
+                    try {
+                        send(connection.emitter, outbound.event(), outbound.type());
+                        if (outbound.last()) {
+                            connection.emitter.complete();
+                            connection.cancelHeartbeat();
+                        }
+                    } catch (Exception e) {
+                        log.debug("SSE {} 推送失败，移除连接 researchId={}, clientId={}",
+                                outbound.type(), researchId, clientId, e);
+                        remove(researchId, clientId);
+                        connection.cancelHeartbeat();
+                    } finally {
+                        connection.sendingSince = 0;
+                    }
+                }
+            } finally {
+                connection.sending.set(false);
             }
-        }
+            drain(researchId, clientId, connection);
+        });
     }
 
+    /**
+     * 以一帧快照补齐客户端缺失的时间线，之后由实时推送接续；没有 Last-Event-ID 时发送完整快照
+     */
     private void replayIfNeeded(Long userId, String researchId, SseEmitter emitter, String lastEventId) {
-        if (StrUtil.isEmptyIfStr(lastEventId)) {
+        TimelineSnapshot snapshot = snapshotAfter(cacheUtil, researchId, lastEventId);
+        if (snapshot == null) {
             return;
         }
+        try {
+            send(emitter, SseEmitter.event()
+                    .id(snapshot.getLastSeq().toString())
+                    .name(TimelineSnapshot.KIND)
+                    .data(snapshot), "replay");
+        } catch (IOException e) {
+            log.error("重放失败 userId={}, researchId={}", userId, researchId, e);
+        }
+    }
 
-        Integer lastSeq = NumberUtil.parseInt(lastEventId.trim(), 0);
-
-        List<TimelineItem> items = cacheUtil.getTimeline(researchId, lastSeq);
-        if(CollectionUtil.isEmpty(items)) {
-            return;
+    /**
+     * 快照中序列号大于 Last-Event-ID 的部分，无需补发时返回 null
+     */
+    static TimelineSnapshot snapshotAfter(CacheUtil cacheUtil, String researchId, String lastEventId) {
+        int lastSeq = NumberUtil.parseInt(StrUtil.trimToEmpty(lastEventId), 0);
+        TimelineSnapshot snapshot = cacheUtil.getTimelineSnapshot(researchId);
+        if (snapshot.getLastSeq() <= lastSeq) {
+            return null;
+        }
+        if (lastSeq > 0) {
+            snapshot.setItems(snapshot.getItems().stream()
+                    .filter(item -> item.getSequenceNo() > lastSeq)
+                    .toList());
         }
+        return snapshot;
+    }
 
-        for (TimelineItem item : items) {
-            try {
-                String eventId = item.getSequenceNo().toString();
-                SseEmitter.SseEventBuilder builder = SseEmitter.event()
-                        .id(eventId)
-                        .name(item.getKind())
-                        .data(item);
-                emitter.send(builder);
-            } catch (IOException e) {
-                log.error("重放失败 userId={}, researchId={}", userId, researchId, e);
-                break;
-            }
+    private void send(SseEmitter emitter, SseEmitter.SseEventBuilder event, String type) throws IOException {
+        Timer.Sample sample = metricsUtil.start();
+        String outcome = "error";
+        try {
+            emitter.send(event);
+            outcome = "success";
+        } finally {
+            metricsUtil.stop(sample, MetricsUtil.SSE_SEND, "type", type, "outcome", outcome);
         }
     }
 
+    static SseEmitter.SseEventBuilder timelineEvent(TimelineItem item) {
+        return SseEmitter.event()
+                .id(item.getSequenceNo().toString())
+                .name(item.getKind())
+                .data(item);
+    }
+
     public void complete(String researchId, String finalStatus) {
-        Map<String, SseEmitter> clients = researchEmitters.get(researchId);
+        reactiveSseHub.complete(researchId, finalStatus);
+        if (WorkflowStatus.COMPLETED.equals(finalStatus) || WorkflowStatus.FAILED.equals(finalStatus)) {
+            // 记录在前，宽限期内由 reapIdle 回收此后仍留存的连接
+            terminalSince.putIfAbsent(researchId, System.currentTimeMillis());
+        }
+        Map<String, Connection> clients = researchEmitters.get(researchId);
         if (CollectionUtil.isEmpty(clients)) {
             return;
         }
-        for (Map.Entry<String, SseEmitter> entry : clients.entrySet()) {
-            SseEmitter emitter = entry.getValue();
-            try {
-                emitter.send(SseEmitter.event()
-                        .data("[DONE] " + finalStatus));
-                emitter.complete();
-            } catch (IOException e) {
-                log.warn("SSE 结束失败", e);
+        clients.forEach((clientId, connection) -> done(researchId, clientId, connection, finalStatus));
+    }
+
+    /**
+     * 结束事件排在已入队事件之后，发送后关闭连接
+     */
+    private void done(String researchId, String clientId, Connection connection, String finalStatus) {
+        if (connection.closed.get()) {
+            return;
+        }
+        connection.pending.incrementAndGet();
+        connection.outbox.offer(new Outbound(SseEmitter.event().data("[DONE] " + finalStatus), "done", true));
+        drain(researchId, clientId, connection);
+    }
+
+    private String terminalStatus(String researchId) {
+        ResearchSession session = researchSessionMapper.selectVersion(researchId);
+        if (session == null) {
+            return null;
+        }
+        String status = session.getStatus();
+        return WorkflowStatus.COMPLETED.equals(status) || WorkflowStatus.FAILED.equals(status) ? status : null;
+    }
+
+    private record Outbound(SseEmitter.SseEventBuilder event, String type, boolean last) {
+        private Outbound(SseEmitter.SseEventBuilder event, String type) {
+            this(event, type, false);
+        }
+    }
+
+    private static final class Connection {
+        private final SseEmitter emitter;
+        private final Queue<Outbound> outbox = new ConcurrentLinkedQueue<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        // 发送线程占用标记，防止对同一个连接并发写入
+        private final AtomicBoolean sending = new AtomicBoolean();
+        // 补发快照完成前只入队不发送
+        private final AtomicBoolean ready = new AtomicBoolean();
+        private final AtomicBoolean closed = new AtomicBoolean();
+        private volatile TimerWheel.Timeout heartbeat;
+        // 当前写入开始的时间，0 表示没有进行中的写入
+        private volatile long sendingSince;
+
+        private Connection(SseEmitter emitter) {
+            this.emitter = emitter;
+        }
+
+        private boolean stalled(long now) {
+            long since = sendingSince;
+            return since != 0 && now - since > STALL_TIMEOUT_MS;
+        }
+
+        private void cancelHeartbeat() {
+            closed.set(true);
+            outbox.clear();
+            TimerWheel.Timeout timeout = heartbeat;
+            if (timeout != null) {
+                timeout.cancel();
             }
         }
     }
 }
-
@@ -0,0 +1,129 @@
+package dev.chanler.researcher.infra.sse;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Hashed timer wheel: one ticker thread buckets timeouts by deadline and hands expired
+ * ones to virtual threads, so a slow task never delays the rest of the wheel
+ * @author: Chanler
+ */
+@Slf4j
+public class TimerWheel implements AutoCloseable {
+
+    private final long tickMs;
+    private final int mask;
+    // 槽位只由 ticker 线程访问，新任务先进入 pending 再在下一次 tick 时入槽
+    private final Queue<Timeout>[] buckets;
+    private final Queue<Timeout> pending = new ConcurrentLinkedQueue<>();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+    private final Thread ticker;
+    private volatile long currentTick;
+    private volatile boolean running = true;
+
+    @SuppressWarnings("unchecked")
+    public TimerWheel(String name, long tickMs, int wheelSize) {
+        if (tickMs <= 0 || Integer.bitCount(wheelSize) != 1) {
+            throw new IllegalArgumentException("tickMs must be positive and wheelSize a power of two");
+        }
+        this.tickMs = tickMs;
+        this.mask = wheelSize - 1;
+        this.buckets = new Queue[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+        this.ticker = Thread.ofPlatform().name(name).daemon().start(this::loop);
+    }
+
+    public Timeout schedule(Runnable task, long delayMs) {
+        long ticks = Math.max(1, (delayMs + tickMs - 1) / tickMs);
+        Timeout timeout = new Timeout(task, currentTick + ticks);
+        pending.add(timeout);
+        return timeout;
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        ticker.interrupt();
+        workers.shutdownNow();
+    }
+
+    private void loop() {
+        long startNanos = System.nanoTime();
+        while (running) {
+            long deadlineNanos = startNanos + (currentTick + 1) * tickMs * 1_000_000L;
+            long sleepMs = (deadlineNanos - System.nanoTime()) / 1_000_000L;
+            if (sleepMs > 0) {
+                try {
+                    Thread.sleep(sleepMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+            long tick = currentTick + 1;
+            currentTick = tick;
+            transferPending(tick);
+            expire(buckets[(int) (tick & mask)]);
+        }
+    }
+
+    private void transferPending(long tick) {
+        int wheelSize = mask + 1;
+        for (Timeout timeout = pending.poll(); timeout != null; timeout = pending.poll()) {
+            if (timeout.cancelled.get()) {
+                continue;
+            }
+            // 已过期但尚未入槽的任务放到当前槽，本次 tick 即执行
+            long target = Math.max(timeout.deadlineTick, tick);
+            timeout.remainingRounds = (target - tick) / wheelSize;
+            buckets[(int) (target & mask)].add(timeout);
+        }
+    }
+
+    private void expire(Queue<Timeout> bucket) {
+        for (int i = bucket.size(); i > 0; i--) {
+            Timeout timeout = bucket.poll();
+            if (timeout.cancelled.get()) {
+                continue;
+            }
+            if (timeout.remainingRounds > 0) {
+                timeout.remainingRounds--;
+                bucket.add(timeout);
+                continue;
+            }
+            try {
+                workers.execute(timeout.task);
+            } catch (Exception e) {
+                log.warn("Timer task rejected", e);
+            }
+        }
+    }
+
+    public static final class Timeout {
+        private final Runnable task;
+        private final long deadlineTick;
+        private final AtomicBoolean cancelled = new AtomicBoolean();
+        private long remainingRounds;
+
+        private Timeout(Runnable task, long deadlineTick) {
+            this.task = task;
+            this.deadlineTick = deadlineTick;
+        }
+
+        public void cancel() {
+            cancelled.set(true);
+        }
+    }
+}
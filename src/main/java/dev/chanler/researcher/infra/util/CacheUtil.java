@@ -7,21 +7,32 @@ import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.chanler.researcher.domain.entity.ChatMessage;
+import dev.chanler.researcher.domain.entity.ResearchTimeline;
 import dev.chanler.researcher.domain.entity.WorkflowEvent;
-import dev.chanler.researcher.domain.entity.ResearchSession;
 import dev.chanler.researcher.domain.mapper.ChatMessageMapper;
+import dev.chanler.researcher.domain.mapper.ResearchTimelineMapper;
 import dev.chanler.researcher.domain.mapper.WorkflowEventMapper;
-import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
+import dev.chanler.researcher.infra.blob.BlobRef;
+import dev.chanler.researcher.infra.blob.BlobStore;
+import dev.chanler.researcher.infra.codec.ContentCodec;
+import dev.chanler.researcher.infra.config.BlobProp;
+import dev.chanler.researcher.infra.config.TimelineProp;
+import dev.chanler.researcher.infra.data.ConversationMessage;
 import dev.chanler.researcher.infra.data.TimelineItem;
+import dev.chanler.researcher.infra.data.TimelineSnapshot;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
 import org.springframework.data.redis.core.StringRedisTemplate;
 import org.springframework.data.redis.core.ZSetOperations;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
 import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -34,29 +45,56 @@ public class CacheUtil {
 
     private final ChatMessageMapper chatMessageMapper;
     private final WorkflowEventMapper workflowEventMapper;
-    private final ResearchSessionMapper researchSessionMapper;
     private final SequenceUtil sequenceUtil;
     private final StringRedisTemplate stringRedisTemplate;
     private final ObjectMapper objectMapper;
+    private final MetricsUtil metricsUtil;
+    private final TimelineSnapshotUtil timelineSnapshotUtil;
+    private final BlobStore blobStore;
+    private final BlobProp blobProp;
+    private final OwnershipUtil ownershipUtil;
+    private final ResearchTimelineMapper researchTimelineMapper;
+    private final TimelineProp timelineProp;
+    private final TransactionTemplate transactionTemplate;
 
+    // 摘要分页的正文预览长度
+    public static final int PREVIEW_LENGTH = 120;
     private static final String KIND_MESSAGE = "message";
     private static final String KIND_EVENT = "event";
     private static final String TIMELINE_KEY = "research:{}:timeline";
     private static final long TIMELINE_TTL_MINUTES = 30;
-
-    // 用户研究集合：user:{userId}:researches -> Set<researchId>
-    private static final String USER_RESEARCHES_KEY = "user:{}:researches";
+    // research:{researchId}:conversation -> List<sequenceNo>，只记录 user/assistant 消息的序列号，正文从时间线读取
+    private static final String CONVERSATION_KEY = "research:{}:conversation";
+    private static final long CONVERSATION_TTL_HOURS = 2;
+    private static final String ROLE_USER = "user";
+    private static final String ROLE_ASSISTANT = "assistant";
+    private static final String CONTENT_URL = "/api/v1/research/{}/{}/{}/content/raw";
 
     public TimelineItem saveMessage(String researchId, String role, String content) {
         int seq = sequenceUtil.next(researchId);
+        String stored = offload(content);
         ChatMessage message = ChatMessage.builder()
                 .researchId(researchId)
                 .role(role)
-                .content(content)
+                .content(stored)
+                .contentLength(StrUtil.length(content))
+                .preview(StrUtil.sub(content, 0, PREVIEW_LENGTH))
                 .sequenceNo(seq)
                 .createTime(LocalDateTime.now())
                 .build();
-        chatMessageMapper.insert(message);
+        persist(KIND_MESSAGE, () -> chatMessageMapper.insert(message), () -> ResearchTimeline.builder()
+                .researchId(researchId)
+                .sequenceNo(seq)
+                .kind(KIND_MESSAGE)
+                .itemId(message.getId())
+                .role(role)
+                .content(stored)
+                .contentLength(message.getContentLength())
+                .preview(message.getPreview())
+                .createTime(message.getCreateTime())
+                .build());
+        message.setContent(stored);
+        exposeContent(message);
         TimelineItem item = TimelineItem.builder()
                 .kind(KIND_MESSAGE)
                 .researchId(researchId)
@@ -64,22 +102,44 @@ public class CacheUtil {
                 .message(message)
                 .build();
         writeToRedis(researchId, List.of(item));
+        appendSnapshot(researchId, item);
+        appendConversation(researchId, role, seq);
         return item;
     }
 
     public TimelineItem saveEvent(String researchId, String type,
                                     String title, String content, Long parentEventId) {
         int seq = sequenceUtil.next(researchId);
+        LocalDateTime now = LocalDateTime.now();
+        String stored = offload(content);
         WorkflowEvent event = WorkflowEvent.builder()
                 .researchId(researchId)
                 .type(type)
                 .title(title)
-                .content(content)
+                .content(stored)
+                .contentLength(StrUtil.length(content))
+                .preview(StrUtil.sub(content, 0, PREVIEW_LENGTH))
                 .parentEventId(parentEventId)
                 .sequenceNo(seq)
-                .createTime(LocalDateTime.now())
+                .createTime(now)
+                .startTime(now)
                 .build();
-        workflowEventMapper.insert(event);
+        persist(KIND_EVENT, () -> workflowEventMapper.insert(event), () -> ResearchTimeline.builder()
+                .researchId(researchId)
+                .sequenceNo(seq)
+                .kind(KIND_EVENT)
+                .itemId(event.getId())
+                .type(type)
+                .title(title)
+                .parentEventId(parentEventId)
+                .content(stored)
+                .contentLength(event.getContentLength())
+                .preview(event.getPreview())
+                .createTime(now)
+                .startTime(now)
+                .build());
+        event.setContent(stored);
+        exposeContent(event);
         TimelineItem item = TimelineItem.builder()
                 .kind(KIND_EVENT)
                 .researchId(researchId)
@@ -87,6 +147,7 @@ public class CacheUtil {
                 .event(event)
                 .build();
         writeToRedis(researchId, List.of(item));
+        appendSnapshot(researchId, item);
         return item;
     }
 
@@ -127,6 +188,208 @@ public class CacheUtil {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 大正文写入 blob 存储，返回行内保存的引用；相同内容只存一份
+     */
+    String offload(String content) {
+        int threshold = blobProp.getThresholdChars();
+        if (content == null || threshold <= 0 || content.length() < threshold) {
+            return BlobRef.escapeInline(content);
+        }
+        try {
+            return new BlobRef(blobStore.put(content), content.length()).toString();
+        } catch (Exception e) {
+            // 写 blob 失败时退回行内存储
+            log.warn("正文写入 blob 失败，改为行内存储", e);
+            return BlobRef.escapeInline(content);
+        }
+    }
+
+    /**
+     * 将行内存储的正文转换为返回给客户端的形式：行内正文去掉转义；
+     * blob 正文不读入内存，只给长度和流式内容地址，推送、Redis 时间线与回放都不携带大正文
+     */
+    private void exposeContent(ChatMessage message) {
+        BlobRef ref = BlobRef.parse(message.getContent());
+        if (ref == null) {
+            message.setContent(BlobRef.unescapeInline(message.getContent()));
+            return;
+        }
+        message.setContent(null);
+        message.setContentLength(ref.length());
+        message.setContentUrl(StrUtil.format(CONTENT_URL, message.getResearchId(), "messages", message.getId()));
+    }
+
+    private void exposeContent(WorkflowEvent event) {
+        BlobRef ref = BlobRef.parse(event.getContent());
+        if (ref == null) {
+            event.setContent(BlobRef.unescapeInline(event.getContent()));
+            return;
+        }
+        event.setContent(null);
+        event.setContentLength(ref.length());
+        event.setContentUrl(StrUtil.format(CONTENT_URL, event.getResearchId(), "events", event.getId()));
+    }
+
+    public String resolveContent(String content) {
+        return blobStore.resolve(content);
+    }
+
+    /**
+     * 获取时间线快照，快照过期或损坏时从完整时间线重建
+     */
+    public TimelineSnapshot getTimelineSnapshot(String researchId) {
+        TimelineSnapshot snapshot = timelineSnapshotUtil.read(researchId, seq -> getTimeline(researchId, seq));
+        if (snapshot != null) {
+            return snapshot;
+        }
+        return timelineSnapshotUtil.rebuild(researchId, getTimeline(researchId, 0));
+    }
+
+    /**
+     * 获取对话历史（仅 user/assistant）。缓存只保存序列号，正文按序列号从时间线缓存读取；
+     * 序列号列表或时间线条目缺失时从 DB 加载并回填
+     */
+    public List<ConversationMessage> getConversation(String researchId) {
+        String key = StrUtil.format(CONVERSATION_KEY, researchId);
+        List<String> values = stringRedisTemplate.opsForList().range(key, 0, -1);
+        if (CollectionUtil.isNotEmpty(values)) {
+            List<ConversationMessage> conversation = readConversationFromTimeline(researchId, values);
+            if (conversation != null) {
+                stringRedisTemplate.expire(key, CONVERSATION_TTL_HOURS, TimeUnit.HOURS);
+                metricsUtil.count(MetricsUtil.CONVERSATION_LOAD, 1, "source", "redis");
+                return conversation;
+            }
+        }
+
+        // 只取角色、正文与序列号三列
+        List<ChatMessage> messages = chatMessageMapper.selectList(Wrappers.lambdaQuery(ChatMessage.class)
+                .select(ChatMessage::getRole, ChatMessage::getContent, ChatMessage::getSequenceNo)
+                .eq(ChatMessage::getResearchId, researchId)
+                .in(ChatMessage::getRole, ROLE_USER, ROLE_ASSISTANT)
+                .orderByAsc(ChatMessage::getSequenceNo));
+        List<ConversationMessage> conversation = messages.stream()
+                .map(m -> new ConversationMessage(m.getRole(), resolveContent(m.getContent())))
+                .collect(Collectors.toList());
+        metricsUtil.count(MetricsUtil.CONVERSATION_LOAD, 1, "source", "db");
+        if (!messages.isEmpty()) {
+            try {
+                stringRedisTemplate.delete(key);
+                stringRedisTemplate.opsForList().rightPushAll(key, messages.stream()
+                        .map(m -> String.valueOf(m.getSequenceNo()))
+                        .toList());
+                stringRedisTemplate.expire(key, CONVERSATION_TTL_HOURS, TimeUnit.HOURS);
+            } catch (Exception e) {
+                log.warn("对话缓存回填失败 researchId={}", researchId, e);
+            }
+        }
+        return conversation;
+    }
+
+    /**
+     * 按序列号在一次往返内读取时间线条目；任一条目缺失、损坏或不是对话消息时返回 null，整体回源避免历史缺失。
+     * 时间线中的 blob 正文只有占位，按消息 id 一次查询引用后读取
+     */
+    private List<ConversationMessage> readConversationFromTimeline(String researchId, List<String> values) {
+        List<Integer> seqs = new ArrayList<>(values.size());
+        for (String value : values) {
+            Integer seq = parseSeq(value);
+            if (seq == null) {
+                return null;
+            }
+            seqs.add(seq);
+        }
+        String key = StrUtil.format(TIMELINE_KEY, researchId);
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                for (Integer seq : seqs) {
+                    ops.opsForZSet().rangeByScore(key, seq, seq);
+                }
+                return null;
+            }
+        });
+        List<ChatMessage> messages = new ArrayList<>(seqs.size());
+        for (Object result : results) {
+            if (!(result instanceof Collection<?> found) || found.isEmpty()) {
+                return null;
+            }
+            TimelineItem item = deserialize(String.valueOf(found.iterator().next()));
+            ChatMessage message = item == null ? null : item.getMessage();
+            if (message == null || (!ROLE_USER.equals(message.getRole()) && !ROLE_ASSISTANT.equals(message.getRole()))) {
+                return null;
+            }
+            messages.add(message);
+        }
+        List<Long> blobIds = messages.stream()
+                .filter(m -> m.getContentUrl() != null)
+                .map(ChatMessage::getId)
+                .toList();
+        Map<Long, String> blobContents = new HashMap<>();
+        if (!blobIds.isEmpty()) {
+            chatMessageMapper.selectList(Wrappers.lambdaQuery(ChatMessage.class)
+                            .select(ChatMessage::getId, ChatMessage::getContent)
+                            .in(ChatMessage::getId, blobIds))
+                    .forEach(m -> blobContents.put(m.getId(), resolveContent(m.getContent())));
+        }
+        List<ConversationMessage> conversation = new ArrayList<>(messages.size());
+        for (ChatMessage message : messages) {
+            String content = message.getContentUrl() == null ? message.getContent() : blobContents.get(message.getId());
+            if (content == null && message.getContentUrl() != null) {
+                return null;
+            }
+            conversation.add(new ConversationMessage(message.getRole(), content));
+        }
+        return conversation;
+    }
+
+    private static Integer parseSeq(String value) {
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            // 旧格式条目（整条 JSON）按缺失处理
+            return null;
+        }
+    }
+
+    /**
+     * 增量追加对话序列号；RPUSHX 只在列表已存在时写入，缓存缺失时由下次读取完整回填
+     */
+    private void appendConversation(String researchId, String role, int seq) {
+        if (!ROLE_USER.equals(role) && !ROLE_ASSISTANT.equals(role)) {
+            return;
+        }
+        String key = StrUtil.format(CONVERSATION_KEY, researchId);
+        try {
+            Long size = stringRedisTemplate.opsForList().rightPushIfPresent(key, String.valueOf(seq));
+            if (size != null && size > 0) {
+                stringRedisTemplate.expire(key, CONVERSATION_TTL_HOURS, TimeUnit.HOURS);
+            }
+        } catch (Exception e) {
+            // 追加失败时删除缓存，下次读取回源 DB，保证历史不缺条
+            log.warn("对话缓存追加失败 researchId={}", researchId, e);
+            stringRedisTemplate.delete(key);
+        }
+    }
+
+    /**
+     * 增量只记录序列号，条目内容从时间线缓存读取，不在快照中重复保存
+     */
+    private void appendSnapshot(String researchId, TimelineItem item) {
+        try {
+            long size = timelineSnapshotUtil.appendDelta(researchId, item.getSequenceNo());
+            if (size >= TimelineSnapshotUtil.COMPACT_EVERY
+                    && !timelineSnapshotUtil.compact(researchId, seq -> getTimeline(researchId, seq))) {
+                timelineSnapshotUtil.rebuild(researchId, getTimeline(researchId, 0));
+            }
+        } catch (Exception e) {
+            // 快照只是重连加速，失败时下次读取会重建
+            log.warn("时间线快照更新失败 researchId={}", researchId, e);
+        }
+    }
+
     private void writeToRedis(String researchId, List<TimelineItem> items) {
         if (CollectionUtil.isEmpty(items)) {
             return;
@@ -140,8 +403,10 @@ public class CacheUtil {
             }
         }
         if (!tuples.isEmpty()) {
-            stringRedisTemplate.opsForZSet().add(key, tuples);
-            stringRedisTemplate.expire(key, TIMELINE_TTL_MINUTES, TimeUnit.MINUTES);
+            metricsUtil.time(MetricsUtil.CACHE_WRITE, () -> {
+                stringRedisTemplate.opsForZSet().add(key, tuples);
+                stringRedisTemplate.expire(key, TIMELINE_TTL_MINUTES, TimeUnit.MINUTES);
+            }, "store", "redis", "kind", "timeline");
         }
     }
 
@@ -152,6 +417,10 @@ public class CacheUtil {
             return new ArrayList<>();
         }
         stringRedisTemplate.expire(key, TIMELINE_TTL_MINUTES, TimeUnit.MINUTES);
+        return decodeSorted(values);
+    }
+
+    List<TimelineItem> decodeSorted(Collection<String> values) {
         return values.stream()
                 .map(this::deserialize)
                 .filter(Objects::nonNull)
@@ -159,13 +428,37 @@ public class CacheUtil {
                 .collect(Collectors.toList());
     }
 
+    /**
+     * 写入源表；dual / unified 模式下在同一事务中追加合并时间线，源表行已写入，id 可直接引用
+     */
+    private void persist(String kind, Runnable insert, Supplier<ResearchTimeline> timelineRow) {
+        if (!timelineProp.writeUnified()) {
+            metricsUtil.time(MetricsUtil.CACHE_WRITE, insert, "store", "db", "kind", kind);
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            metricsUtil.time(MetricsUtil.CACHE_WRITE, insert, "store", "db", "kind", kind);
+            ResearchTimeline row = timelineRow.get();
+            metricsUtil.time(MetricsUtil.CACHE_WRITE, () -> researchTimelineMapper.insert(row),
+                    "store", "db", "kind", "timeline");
+        });
+    }
+
     private List<TimelineItem> loadFromDb(String researchId) {
+        if (timelineProp.readUnified()) {
+            // 单表主键范围扫描，已按序列号有序
+            return researchTimelineMapper.selectRange(researchId, 0).stream()
+                    .map(this::toTimelineItem)
+                    .collect(Collectors.toList());
+        }
         LambdaQueryWrapper<ChatMessage> messageQuery = Wrappers.lambdaQuery(ChatMessage.class)
                 .eq(ChatMessage::getResearchId, researchId);
         LambdaQueryWrapper<WorkflowEvent> eventQuery = Wrappers.lambdaQuery(WorkflowEvent.class)
                 .eq(WorkflowEvent::getResearchId, researchId);
         List<ChatMessage> messages = chatMessageMapper.selectList(messageQuery);
         List<WorkflowEvent> events = workflowEventMapper.selectList(eventQuery);
+        messages.forEach(this::exposeContent);
+        events.forEach(this::exposeContent);
         List<TimelineItem> all = new ArrayList<>();
         messages.stream()
             .map(m -> TimelineItem.builder()
@@ -187,18 +480,60 @@ public class CacheUtil {
         return all;
     }
 
-    private String serialize(TimelineItem item) {
+    private TimelineItem toTimelineItem(ResearchTimeline row) {
+        String content = row.getContent();
+        TimelineItem.TimelineItemBuilder item = TimelineItem.builder()
+                .kind(row.getKind())
+                .researchId(row.getResearchId())
+                .sequenceNo(row.getSequenceNo());
+        if (KIND_MESSAGE.equals(row.getKind())) {
+            ChatMessage message = ChatMessage.builder()
+                    .id(row.getItemId())
+                    .researchId(row.getResearchId())
+                    .role(row.getRole())
+                    .content(content)
+                    .contentLength(row.getContentLength())
+                    .preview(row.getPreview())
+                    .sequenceNo(row.getSequenceNo())
+                    .createTime(row.getCreateTime())
+                    .build();
+            exposeContent(message);
+            return item.message(message).build();
+        }
+        WorkflowEvent event = WorkflowEvent.builder()
+                .id(row.getItemId())
+                .researchId(row.getResearchId())
+                .type(row.getType())
+                .title(row.getTitle())
+                .content(content)
+                .contentLength(row.getContentLength())
+                .preview(row.getPreview())
+                .parentEventId(row.getParentEventId())
+                .sequenceNo(row.getSequenceNo())
+                .createTime(row.getCreateTime())
+                .startTime(row.getStartTime())
+                .endTime(row.getEndTime())
+                .durationMs(row.getDurationMs())
+                .inputTokens(row.getInputTokens())
+                .outputTokens(row.getOutputTokens())
+                .modelName(row.getModelName())
+                .build();
+        exposeContent(event);
+        return item.event(event).build();
+    }
+
+    String serialize(TimelineItem item) {
         try {
-            return objectMapper.writeValueAsString(item);
+            return ContentCodec.encode(objectMapper.writeValueAsString(item), ContentCodec.TARGET_REDIS);
         } catch (JsonProcessingException e) {
             log.error("TimelineItem 序列化 JSON 失败", e);
             return null;
         }
     }
 
-    private TimelineItem deserialize(String json) {
+    TimelineItem deserialize(String json) {
         try {
-            return objectMapper.readValue(json, TimelineItem.class);
+            return objectMapper.readValue(ContentCodec.decode(json, ContentCodec.TARGET_REDIS), TimelineItem.class);
         } catch (Exception e) {
             log.error("JSON 反序列化为 TimelineItem 失败 json={}", json, e);
             return null;
@@ -209,35 +544,14 @@ public class CacheUtil {
      * 验证 researchId 是否属于 userId
      */
     public boolean verifyResearchOwnership(String researchId, Long userId) {
-        String key = StrUtil.format(USER_RESEARCHES_KEY, userId);
-        Boolean isMember = stringRedisTemplate.opsForSet().isMember(key, researchId);
-        
-        if (Boolean.TRUE.equals(isMember)) {
-            return true;
-        }
-
-        // 缓存未命中，回源 DB 兜底
-        LambdaQueryWrapper<ResearchSession> queryWrapper = Wrappers.lambdaQuery(ResearchSession.class)
-                .eq(ResearchSession::getId, researchId)
-                .eq(ResearchSession::getUserId, userId);
-        ResearchSession session = researchSessionMapper.selectOne(queryWrapper);
-
-        if (session != null) {
-            stringRedisTemplate.opsForSet().add(key, researchId);
-            log.debug("权限验证成功，已缓存 userId={}, researchId={}", userId, researchId);
-            return true;
-        }
-
-        log.debug("权限验证失败 userId={}, researchId={}", userId, researchId);
-        return false;
+        return ownershipUtil.verify(researchId, userId);
     }
 
     /**
      * 缓存研究的所有权关系
      */
     public void cacheResearchOwnership(String researchId, Long userId) {
-        String key = StrUtil.format(USER_RESEARCHES_KEY, userId);
-        stringRedisTemplate.opsForSet().add(key, researchId);
+        ownershipUtil.register(researchId, userId);
         log.debug("缓存权限映射 userId={}, researchId={}", userId, researchId);
     }
 }
@@ -1,16 +1,23 @@
 package dev.chanler.researcher.infra.util;
 
 import cn.hutool.core.date.DateUtil;
+import cn.hutool.crypto.digest.DigestUtil;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import dev.chanler.researcher.infra.config.JwtProp;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.security.Keys;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
 import javax.crypto.SecretKey;
 import java.nio.charset.StandardCharsets;
 import java.util.Date;
+import java.util.concurrent.TimeUnit;
 
 /**
  * JWT 工具类
@@ -20,10 +27,49 @@ import java.util.Date;
 @RequiredArgsConstructor
 public class JwtUtil {
 
+    // 已验证 token 的缓存上限与最长保留时间，实际不超过 token 自身过期时间
+    private static final long VERIFIED_CACHE_SIZE = 50_000;
+    private static final long VERIFIED_MAX_TTL_NANOS = TimeUnit.MINUTES.toNanos(10);
+
     private final JwtProp jwtProp;
+    private final MetricsUtil metricsUtil;
+
+    // key 与 parser 线程安全且不可变，启动时构建一次
+    private SecretKey key;
+    private JwtParser parser;
+    // sha256(token) -> 已验证的声明
+    private Cache<String, Verified> verifiedTokens;
+
+    @PostConstruct
+    public void init() {
+        key = Keys.hmacShaKeyFor(jwtProp.getSecret().getBytes(StandardCharsets.UTF_8));
+        parser = Jwts.parser().verifyWith(key).build();
+        verifiedTokens = Caffeine.newBuilder()
+                .maximumSize(VERIFIED_CACHE_SIZE)
+                .expireAfter(new Expiry<String, Verified>() {
+                    @Override
+                    public long expireAfterCreate(String tokenHash, Verified verified, long currentTime) {
+                        long untilExpiry = TimeUnit.MILLISECONDS.toNanos(
+                                verified.expiresAtMillis() - System.currentTimeMillis());
+                        return Math.max(0, Math.min(untilExpiry, VERIFIED_MAX_TTL_NANOS));
+                    }
+
+                    @Override
+                    public long expireAfterUpdate(String tokenHash, Verified verified, long currentTime,
+                                                  long currentDuration) {
+                        return currentDuration;
+                    }
+
+                    @Override
+                    public long expireAfterRead(String tokenHash, Verified verified, long currentTime,
+                                                long currentDuration) {
+                        return currentDuration;
+                    }
+                })
+                .build();
+    }
 
     public String generate(Long userId) {
-        SecretKey key = Keys.hmacShaKeyFor(jwtProp.getSecret().getBytes(StandardCharsets.UTF_8));
         Date now = DateUtil.date();
         return Jwts.builder()
                 .subject(String.valueOf(userId))
@@ -34,16 +80,30 @@ public class JwtUtil {
     }
 
     public Long decode(String token) {
+        if (token == null || token.isEmpty()) {
+            return null;
+        }
+        String tokenHash = DigestUtil.sha256Hex(token);
+        Verified verified = verifiedTokens.getIfPresent(tokenHash);
+        if (verified != null && verified.expiresAtMillis() > System.currentTimeMillis()) {
+            metricsUtil.count(MetricsUtil.JWT_VERIFY, 1, "cache", "hit");
+            return verified.userId();
+        }
+        metricsUtil.count(MetricsUtil.JWT_VERIFY, 1, "cache", "miss");
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtProp.getSecret().getBytes(StandardCharsets.UTF_8));
-            Claims claims = Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token)
-                    .getPayload();
-            return Long.parseLong(claims.getSubject());
+            Claims claims = parser.parseSignedClaims(token).getPayload();
+            Long userId = Long.parseLong(claims.getSubject());
+            // 无过期时间的 token 按最长保留时间缓存
+            long expiresAt = claims.getExpiration() != null
+                    ? claims.getExpiration().getTime()
+                    : System.currentTimeMillis() + TimeUnit.NANOSECONDS.toMillis(VERIFIED_MAX_TTL_NANOS);
+            verifiedTokens.put(tokenHash, new Verified(userId, expiresAt));
+            return userId;
         } catch (Exception e) {
             return null;
         }
     }
+
+    private record Verified(Long userId, long expiresAtMillis) {
+    }
 }
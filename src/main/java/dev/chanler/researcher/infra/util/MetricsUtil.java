@@ -0,0 +1,118 @@
+package dev.chanler.researcher.infra.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Thin wrapper over MeterRegistry so call sites stay one line
+ * @author: Chanler
+ */
+@Component
+@RequiredArgsConstructor
+public class MetricsUtil {
+
+    // 阶段、迭代、工具
+    public static final String PIPELINE_STAGE = "research.pipeline.stage";
+    public static final String PIPELINE_ACTIVE = "research.pipeline.active";
+    public static final String AGENT_ITERATION = "research.agent.iteration";
+    public static final String TOOL_EXECUTION = "research.tool.execution";
+    // 外部调用
+    public static final String SEARCH_PROVIDER = "research.search.provider";
+    public static final String LLM_CALL = "research.llm.call";
+    public static final String LLM_TOKENS = "research.llm.tokens";
+    // 持久化与推送
+    public static final String CACHE_WRITE = "research.cache.write";
+    public static final String CONVERSATION_LOAD = "research.conversation.load";
+    public static final String SSE_SEND = "research.sse.send";
+    public static final String SSE_CLIENTS = "research.sse.clients";
+    public static final String SSE_RESEARCH_CLIENTS = "research.sse.research.clients";
+    public static final String SSE_RESEARCHES = "research.sse.researches";
+    public static final String SSE_DROPPED = "research.sse.dropped";
+    // 正文压缩
+    public static final String CODEC_LATENCY = "research.codec.latency";
+    public static final String CODEC_BYTES_SAVED = "research.codec.bytes.saved";
+    // Blob 存储
+    public static final String BLOB_WRITE = "research.blob.write";
+    public static final String BLOB_BYTES = "research.blob.bytes";
+    // 权限校验
+    public static final String OWNERSHIP_CHECK = "research.ownership.check";
+    public static final String JWT_VERIFY = "research.auth.jwt.verify";
+    // 研究会话池
+    public static final String SESSION_POOL = "research.session.pool";
+    public static final String SESSION_FLUSH = "research.session.flush";
+    // 任务队列
+    public static final String QUEUE_DEPTH = "research.queue.depth";
+    public static final String QUEUE_ACTIVE = "research.queue.active";
+
+    private final MeterRegistry meterRegistry;
+
+    public Timer.Sample start() {
+        return Timer.start(meterRegistry);
+    }
+
+    public void stop(Timer.Sample sample, String name, String... tags) {
+        sample.stop(meterRegistry.timer(name, tags));
+    }
+
+    public void record(String name, long elapsedMs, String... tags) {
+        meterRegistry.timer(name, tags).record(elapsedMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 计时执行，异常时同样记录并追加 outcome=error 标签
+     */
+    public <T> T time(String name, Supplier<T> body, String... tags) {
+        Timer.Sample sample = start();
+        String outcome = "success";
+        try {
+            return body.get();
+        } catch (RuntimeException e) {
+            outcome = "error";
+            throw e;
+        } finally {
+            stop(sample, name, withOutcome(tags, outcome));
+        }
+    }
+
+    public void time(String name, Runnable body, String... tags) {
+        time(name, () -> {
+            body.run();
+            return null;
+        }, tags);
+    }
+
+    public void count(String name, double amount, String... tags) {
+        Counter.builder(name).tags(tags).register(meterRegistry).increment(amount);
+    }
+
+    public <T> void gauge(String name, T target, ToDoubleFunction<T> value, String... tags) {
+        Gauge.builder(name, target, value).tags(tags).register(meterRegistry);
+    }
+
+    /**
+     * 记录一次取值到分布统计，附带直方图便于按分位聚合
+     */
+    public void summary(String name, double value, String... tags) {
+        DistributionSummary.builder(name).tags(tags)
+                .publishPercentileHistogram()
+                .register(meterRegistry)
+                .record(value);
+    }
+
+    private static String[] withOutcome(String[] tags, String outcome) {
+        String[] result = new String[tags.length + 2];
+        System.arraycopy(tags, 0, result, 0, tags.length);
+        result[tags.length] = "outcome";
+        result[tags.length + 1] = outcome;
+        return result;
+    }
+}
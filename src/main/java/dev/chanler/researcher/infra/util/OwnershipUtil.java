@@ -0,0 +1,184 @@
+package dev.chanler.researcher.infra.util;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import dev.chanler.researcher.domain.entity.ResearchSession;
+import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Research ownership check: local near-cache (positive and negative entries) in front of
+ * the per-user Redis set, which in turn is rebuilt from MySQL when missing or incomplete.
+ * Entries are invalidated across instances via Redis pub/sub
+ * @author: Chanler
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OwnershipUtil {
+
+    // 用户研究集合：user:{userId}:researches -> Set<researchId>
+    private static final String USER_RESEARCHES_KEY = "user:{}:researches";
+    // 集合中带有该成员表示已从 DB 完整重建，非成员即可直接判定无权限
+    private static final String COMPLETE_MARKER = "__complete__";
+    private static final String INVALIDATE_CHANNEL = "research:ownership:invalidate";
+    private static final long USER_SET_TTL_DAYS = 7;
+    private static final Duration POSITIVE_TTL = Duration.ofMinutes(10);
+    // 否定结果只短暂缓存，研究创建时同样会广播失效
+    private static final Duration NEGATIVE_TTL = Duration.ofSeconds(30);
+    private static final long MAX_ENTRIES = 100_000;
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ResearchSessionMapper researchSessionMapper;
+    private final RedisMessageListenerContainer redisMessageListenerContainer;
+    private final MetricsUtil metricsUtil;
+
+    // "userId:researchId" -> 是否拥有
+    private final Cache<String, Boolean> nearCache = Caffeine.newBuilder()
+            .maximumSize(MAX_ENTRIES)
+            .expireAfter(new Expiry<String, Boolean>() {
+                @Override
+                public long expireAfterCreate(String key, Boolean owned, long currentTime) {
+                    return (owned ? POSITIVE_TTL : NEGATIVE_TTL).toNanos();
+                }
+
+                @Override
+                public long expireAfterUpdate(String key, Boolean owned, long currentTime, long currentDuration) {
+                    return expireAfterCreate(key, owned, currentTime);
+                }
+
+                @Override
+                public long expireAfterRead(String key, Boolean owned, long currentTime, long currentDuration) {
+                    return currentDuration;
+                }
+            })
+            .build();
+
+    @PostConstruct
+    public void init() {
+        redisMessageListenerContainer.addMessageListener((message, pattern) -> {
+            String key = new String(message.getBody());
+            nearCache.invalidate(key);
+        }, new ChannelTopic(INVALIDATE_CHANNEL));
+    }
+
+    public boolean verify(String researchId, Long userId) {
+        if (StrUtil.isBlank(researchId) || userId == null) {
+            return false;
+        }
+        String nearKey = nearKey(userId, researchId);
+        Boolean cached = nearCache.getIfPresent(nearKey);
+        if (cached != null) {
+            metricsUtil.count(MetricsUtil.OWNERSHIP_CHECK, 1, "layer", "local", "result", cached.toString());
+            return cached;
+        }
+
+        boolean owned = verifyRemote(researchId, userId);
+        nearCache.put(nearKey, owned);
+        return owned;
+    }
+
+    /**
+     * 新建研究后登记归属，并广播失效可能存在的否定缓存
+     */
+    public void register(String researchId, Long userId) {
+        String key = StrUtil.format(USER_RESEARCHES_KEY, userId);
+        stringRedisTemplate.opsForSet().add(key, researchId);
+        stringRedisTemplate.expire(key, USER_SET_TTL_DAYS, TimeUnit.DAYS);
+        invalidate(researchId, userId);
+        nearCache.put(nearKey(userId, researchId), true);
+    }
+
+    /**
+     * 批量登记新建研究：SADD 与 EXPIRE 在同一次 pipeline 中发出。新生成的 ID 不可能被
+     * 否定缓存过，无需广播失效
+     */
+    public void registerAll(Long userId, List<String> researchIds) {
+        if (researchIds.isEmpty()) {
+            return;
+        }
+        String key = StrUtil.format(USER_RESEARCHES_KEY, userId);
+        String[] members = researchIds.toArray(new String[0]);
+        stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForSet().add(key, members);
+                ops.expire(key, USER_SET_TTL_DAYS, TimeUnit.DAYS);
+                return null;
+            }
+        });
+        for (String researchId : researchIds) {
+            nearCache.put(nearKey(userId, researchId), true);
+        }
+    }
+
+    /**
+     * 归属变化（如删除研究）时调用，所有实例的本地缓存都会失效
+     */
+    public void invalidate(String researchId, Long userId) {
+        String nearKey = nearKey(userId, researchId);
+        nearCache.invalidate(nearKey);
+        try {
+            stringRedisTemplate.convertAndSend(INVALIDATE_CHANNEL, nearKey);
+        } catch (Exception e) {
+            log.warn("广播归属缓存失效失败 userId={}, researchId={}", userId, researchId, e);
+        }
+    }
+
+    private boolean verifyRemote(String researchId, Long userId) {
+        String key = StrUtil.format(USER_RESEARCHES_KEY, userId);
+        if (Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(key, researchId))) {
+            stringRedisTemplate.expire(key, USER_SET_TTL_DAYS, TimeUnit.DAYS);
+            metricsUtil.count(MetricsUtil.OWNERSHIP_CHECK, 1, "layer", "redis", "result", "true");
+            return true;
+        }
+        if (Boolean.TRUE.equals(stringRedisTemplate.opsForSet().isMember(key, COMPLETE_MARKER))) {
+            // 集合完整，非成员即无权限，不再回源
+            metricsUtil.count(MetricsUtil.OWNERSHIP_CHECK, 1, "layer", "redis", "result", "false");
+            return false;
+        }
+
+        // 集合不存在或不完整，从 DB 重建该用户的完整集合
+        boolean owned = rebuild(userId).contains(researchId);
+        metricsUtil.count(MetricsUtil.OWNERSHIP_CHECK, 1, "layer", "db", "result", String.valueOf(owned));
+        log.debug("权限验证回源 DB userId={}, researchId={}, owned={}", userId, researchId, owned);
+        return owned;
+    }
+
+    private List<String> rebuild(Long userId) {
+        List<String> researchIds = researchSessionMapper.selectList(Wrappers.lambdaQuery(ResearchSession.class)
+                        .select(ResearchSession::getId)
+                        .eq(ResearchSession::getUserId, userId))
+                .stream()
+                .map(ResearchSession::getId)
+                .toList();
+        String key = StrUtil.format(USER_RESEARCHES_KEY, userId);
+        String[] members = new String[researchIds.size() + 1];
+        researchIds.toArray(members);
+        members[researchIds.size()] = COMPLETE_MARKER;
+        stringRedisTemplate.opsForSet().add(key, members);
+        stringRedisTemplate.expire(key, USER_SET_TTL_DAYS, TimeUnit.DAYS);
+        return researchIds;
+    }
+
+    private static String nearKey(Long userId, String researchId) {
+        return userId + ":" + researchId;
+    }
+}
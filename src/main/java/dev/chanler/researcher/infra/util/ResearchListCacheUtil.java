@@ -0,0 +1,72 @@
+package dev.chanler.researcher.infra.util;
+
+import cn.hutool.core.util.StrUtil;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Short-lived per-user cache of research list pages. Invalidation bumps a version
+ * number that is part of every page key, so stale pages are never read again and
+ * simply expire
+ * @author: Chanler
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ResearchListCacheUtil {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+
+    // user:{userId}:research_list:version -> 版本号
+    private static final String VERSION_KEY = "user:{}:research_list:version";
+    // user:{userId}:research_list:{version}:{query} -> 分页结果 JSON
+    private static final String PAGE_KEY = "user:{}:research_list:{}:{}";
+    private static final long PAGE_TTL_SECONDS = 30;
+    private static final long VERSION_TTL_HOURS = 24;
+
+    public <T> T get(Long userId, String query, Class<T> type) {
+        try {
+            String json = stringRedisTemplate.opsForValue().get(pageKey(userId, query));
+            return json == null ? null : objectMapper.readValue(json, type);
+        } catch (Exception e) {
+            log.warn("读取研究列表缓存失败 userId={}", userId, e);
+            return null;
+        }
+    }
+
+    public void put(Long userId, String query, Object page) {
+        try {
+            stringRedisTemplate.opsForValue().set(pageKey(userId, query),
+                    objectMapper.writeValueAsString(page), PAGE_TTL_SECONDS, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            log.warn("写入研究列表缓存失败 userId={}", userId, e);
+        }
+    }
+
+    /**
+     * 会话新增或状态、标题变化时调用；Token 累加不失效，列表中的用量最多滞后一个 TTL
+     */
+    public void evict(Long userId) {
+        if (userId == null) {
+            return;
+        }
+        try {
+            String key = StrUtil.format(VERSION_KEY, userId);
+            stringRedisTemplate.opsForValue().increment(key);
+            stringRedisTemplate.expire(key, VERSION_TTL_HOURS, TimeUnit.HOURS);
+        } catch (Exception e) {
+            log.warn("失效研究列表缓存失败 userId={}", userId, e);
+        }
+    }
+
+    private String pageKey(Long userId, String query) {
+        String version = stringRedisTemplate.opsForValue().get(StrUtil.format(VERSION_KEY, userId));
+        return StrUtil.format(PAGE_KEY, userId, version == null ? "0" : version, query);
+    }
+}
@@ -1,6 +1,8 @@
 package dev.chanler.researcher.infra.util;
 
 import dev.chanler.researcher.domain.mapper.ChatMessageMapper;
+import dev.chanler.researcher.domain.mapper.ResearchTimelineMapper;
+import dev.chanler.researcher.infra.config.TimelineProp;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Component;
 
@@ -16,13 +18,18 @@ import java.util.concurrent.atomic.AtomicLong;
 public class SequenceUtil {
 
     private final ChatMessageMapper chatMessageMapper;
+    private final ResearchTimelineMapper researchTimelineMapper;
+    private final TimelineProp timelineProp;
 
     // 0 为起始，即无
     private final Map<String, AtomicLong> sseSequences = new ConcurrentHashMap<>();
 
     public int next(String researchId) {
         AtomicLong counter = sseSequences.computeIfAbsent(researchId, k -> {
-            Integer maxSeq = chatMessageMapper.selectMaxSequenceByResearchId(researchId);
+            // unified 模式下是单表主键定位，否则需合并两张表取最大值
+            Integer maxSeq = timelineProp.readUnified()
+                    ? researchTimelineMapper.selectMaxSequence(researchId)
+                    : chatMessageMapper.selectMaxSequenceByResearchId(researchId);
             return new AtomicLong(maxSeq == null ? 0L : maxSeq);
         });
         long value = counter.incrementAndGet();
@@ -0,0 +1,212 @@
+package dev.chanler.researcher.infra.util;
+
+import cn.hutool.core.util.StrUtil;
+import com.baomidou.mybatisplus.core.toolkit.IdWorker;
+import com.baomidou.mybatisplus.core.toolkit.Wrappers;
+import dev.chanler.researcher.application.data.WorkflowStatus;
+import dev.chanler.researcher.domain.entity.ResearchSession;
+import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pool of unused NEW research sessions per user. Creating research is served from the
+ * Redis list when it holds enough ids; otherwise missing rows are provisioned with one
+ * multi-row insert. Sessions taken by a started research are replenished in the
+ * background up to the size the user last asked for. Pooled ids are re-checked against
+ * MySQL before they are handed out
+ * @author: Chanler
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionPoolUtil {
+
+    // user:{userId}:research_pool -> List<researchId>，按创建顺序
+    private static final String POOL_KEY = "user:{}:research_pool";
+    // user:{userId}:research_pool:target -> 最近一次请求的数量，存在即视为活跃用户
+    private static final String TARGET_KEY = "user:{}:research_pool:target";
+    private static final long POOL_TTL_HOURS = 1;
+    private static final long TARGET_TTL_HOURS = 24;
+    private static final int MAX_POOL_SIZE = 16;
+    // user:{userId}:research_pool:lock -> 持锁 token，同一用户的补充跨实例串行
+    private static final String LOCK_KEY = "user:{}:research_pool:lock";
+    private static final long LOCK_TTL_SECONDS = 10;
+    private static final long LOCK_WAIT_MS = 3_000;
+    private static final long LOCK_RETRY_MS = 50;
+    private static final int MAX_PROVISION_ATTEMPTS = 2;
+    // 只删除自己持有的锁
+    private static final RedisScript<Long> UNLOCK_SCRIPT = new DefaultRedisScript<>(
+            "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end",
+            Long.class);
+
+    private final ResearchSessionMapper researchSessionMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final OwnershipUtil ownershipUtil;
+    private final ResearchListCacheUtil researchListCacheUtil;
+    private final MetricsUtil metricsUtil;
+
+    private final Set<Long> replenishing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService workers = Executors.newVirtualThreadPerTaskExecutor();
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdown();
+    }
+
+    /**
+     * 取出 num 个 NEW 会话，池中不足时同步补齐
+     */
+    public List<String> acquire(Long userId, int num) {
+        if (num <= 0) {
+            return List.of();
+        }
+        // 后台补充的目标数量有上限，单次请求本身不受限制
+        stringRedisTemplate.opsForValue().set(StrUtil.format(TARGET_KEY, userId),
+                String.valueOf(Math.min(num, MAX_POOL_SIZE)), TARGET_TTL_HOURS, TimeUnit.HOURS);
+        List<String> pooled = stringRedisTemplate.opsForList().range(StrUtil.format(POOL_KEY, userId), 0, num - 1);
+        if (pooled != null && pooled.size() == num) {
+            // 池只是索引，可能包含刚开始研究的会话，按主键确认仍为 NEW
+            Long stillNew = researchSessionMapper.selectCount(Wrappers.lambdaQuery(ResearchSession.class)
+                    .in(ResearchSession::getId, pooled)
+                    .eq(ResearchSession::getStatus, WorkflowStatus.NEW));
+            if (stillNew != null && stillNew == num) {
+                metricsUtil.count(MetricsUtil.SESSION_POOL, 1, "result", "hit");
+                return pooled;
+            }
+            metricsUtil.count(MetricsUtil.SESSION_POOL, 1, "result", "stale");
+        } else {
+            metricsUtil.count(MetricsUtil.SESSION_POOL, 1, "result", "miss");
+        }
+        return provision(userId, num, true);
+    }
+
+    /**
+     * 会话开始研究后移出池，并在后台补充
+     */
+    public void consume(Long userId, String researchId) {
+        try {
+            stringRedisTemplate.opsForList().remove(StrUtil.format(POOL_KEY, userId), 0, researchId);
+        } catch (Exception e) {
+            log.warn("移出会话池失败 userId={}, researchId={}", userId, researchId, e);
+        }
+        replenishAsync(userId);
+    }
+
+    private void replenishAsync(Long userId) {
+        String target = stringRedisTemplate.opsForValue().get(StrUtil.format(TARGET_KEY, userId));
+        if (target == null || !replenishing.add(userId)) {
+            return;
+        }
+        workers.execute(() -> {
+            try {
+                provision(userId, Integer.parseInt(target), false);
+            } catch (Exception e) {
+                log.warn("补充会话池失败 userId={}", userId, e);
+            } finally {
+                replenishing.remove(userId);
+            }
+        });
+    }
+
+    /**
+     * 补齐 NEW 会话并重写池。跨实例以 Redis 锁串行，同步请求短暂等待锁，后台补充拿不到锁直接放弃
+     */
+    private List<String> provision(Long userId, int size, boolean wait) {
+        String lockKey = StrUtil.format(LOCK_KEY, userId);
+        String token = IdWorker.get32UUID();
+        boolean locked = tryLock(lockKey, token, wait);
+        if (!locked && !wait) {
+            return List.of();
+        }
+        if (!locked) {
+            // 等锁超时仍继续，最多多插入几条 NEW 会话，不影响正确性
+            log.warn("会话池加锁超时 userId={}", userId);
+        }
+        try {
+            List<String> researchIds = researchSessionMapper.selectNewIds(userId);
+            for (int attempt = 0; researchIds.size() < size && attempt < MAX_PROVISION_ATTEMPTS; attempt++) {
+                LocalDateTime now = LocalDateTime.now();
+                List<ResearchSession> sessions = new ArrayList<>(size - researchIds.size());
+                for (int i = researchIds.size(); i < size; i++) {
+                    sessions.add(ResearchSession.builder()
+                            .id(IdWorker.get32UUID())
+                            .userId(userId)
+                            .status(WorkflowStatus.NEW)
+                            .createTime(now)
+                            .updateTime(now)
+                            .build());
+                }
+                researchSessionMapper.insertBatch(sessions);
+                ownershipUtil.registerAll(userId, sessions.stream().map(ResearchSession::getId).toList());
+                researchListCacheUtil.evict(userId);
+                // 插入后重读，排除期间被 sendMessage 启动的会话
+                researchIds = researchSessionMapper.selectNewIds(userId);
+            }
+            refill(userId, researchIds);
+            return List.copyOf(researchIds.subList(0, Math.min(size, researchIds.size())));
+        } finally {
+            if (locked) {
+                stringRedisTemplate.execute(UNLOCK_SCRIPT, List.of(lockKey), token);
+            }
+        }
+    }
+
+    private boolean tryLock(String lockKey, String token, boolean wait) {
+        long deadline = System.currentTimeMillis() + (wait ? LOCK_WAIT_MS : 0);
+        while (true) {
+            if (Boolean.TRUE.equals(stringRedisTemplate.opsForValue()
+                    .setIfAbsent(lockKey, token, LOCK_TTL_SECONDS, TimeUnit.SECONDS))) {
+                return true;
+            }
+            if (System.currentTimeMillis() >= deadline) {
+                return false;
+            }
+            try {
+                Thread.sleep(LOCK_RETRY_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+    }
+
+    private void refill(Long userId, List<String> researchIds) {
+        String key = StrUtil.format(POOL_KEY, userId);
+        String[] members = researchIds.toArray(new String[0]);
+        try {
+            stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                    ops.delete(key);
+                    if (members.length > 0) {
+                        ops.opsForList().rightPushAll(key, members);
+                        ops.expire(key, POOL_TTL_HOURS, TimeUnit.HOURS);
+                    }
+                    return null;
+                }
+            });
+        } catch (Exception e) {
+            // 池只是加速手段，写入失败下次仍会回源 DB
+            log.warn("写入会话池失败 userId={}", userId, e);
+        }
+    }
+}
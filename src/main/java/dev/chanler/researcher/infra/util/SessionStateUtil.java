@@ -0,0 +1,368 @@
+package dev.chanler.researcher.infra.util;
+
+import cn.hutool.core.util.StrUtil;
+import dev.chanler.researcher.application.data.WorkflowStatus;
+import dev.chanler.researcher.domain.entity.ResearchSession;
+import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Live state of running researches (status, times, token totals) kept in a Redis hash.
+ * Status reads for active runs are served from it; non-terminal transitions and token
+ * increments are coalesced and flushed with a versioned UPDATE, terminal transitions are
+ * written synchronously before the state is dropped
+ * @author: Chanler
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SessionStateUtil {
+
+    // research:{researchId}:state -> Hash
+    private static final String STATE_KEY = "research:{}:state";
+    private static final long STATE_TTL_HOURS = 24;
+    private static final long FLUSH_INTERVAL_MS = 2_000;
+    private static final int MAX_FLUSH_ATTEMPTS = 3;
+    private static final int LOCK_STRIPES = 64;
+
+    private static final String F_USER_ID = "userId";
+    private static final String F_STATUS = "status";
+    private static final String F_TITLE = "title";
+    private static final String F_MODEL_ID = "modelId";
+    private static final String F_BUDGET = "budget";
+    private static final String F_START_TIME = "startTime";
+    private static final String F_UPDATE_TIME = "updateTime";
+    private static final String F_COMPLETE_TIME = "completeTime";
+    private static final String F_INPUT_TOKENS = "totalInputTokens";
+    private static final String F_OUTPUT_TOKENS = "totalOutputTokens";
+    // 尚未写入 DB 的 token 增量
+    private static final String F_PENDING_INPUT = "pendingInputTokens";
+    private static final String F_PENDING_OUTPUT = "pendingOutputTokens";
+    private static final String F_VERSION = "version";
+    // 最近一次写入 DB 的状态，状态变化时才失效列表缓存
+    private static final String F_FLUSHED_STATUS = "flushedStatus";
+
+    // 仅在状态存在时写入并续期，避免过期或删除后被 HINCRBY 重建出没有 TTL 的残缺状态
+    // ARGV: ttl 秒数, HSET 字段对数量, HSET 字段对..., HINCRBY 字段对...
+    private static final RedisScript<Long> UPDATE_SCRIPT = new DefaultRedisScript<>("""
+            if redis.call('exists', KEYS[1]) == 0 then return 0 end
+            local i = 3
+            for n = 1, tonumber(ARGV[2]) do
+              redis.call('hset', KEYS[1], ARGV[i], ARGV[i + 1])
+              i = i + 2
+            end
+            while i < #ARGV do
+              redis.call('hincrby', KEYS[1], ARGV[i], ARGV[i + 1])
+              i = i + 2
+            end
+            redis.call('expire', KEYS[1], ARGV[1])
+            return 1
+            """, Long.class);
+
+    private final ResearchSessionMapper researchSessionMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ResearchListCacheUtil researchListCacheUtil;
+    private final MetricsUtil metricsUtil;
+
+    // 有未刷盘变更的研究，只在运行该研究的实例上记录
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // 同一研究的批量刷盘与终态刷盘互斥，避免增量被重复累加
+    private final ReentrantLock[] locks = newLocks();
+    private ScheduledExecutorService flusher;
+
+    @PostConstruct
+    public void init() {
+        flusher = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofPlatform().name("session-state-flusher").daemon().factory());
+        flusher.scheduleWithFixedDelay(this::flushDirty, FLUSH_INTERVAL_MS, FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        flusher.shutdown();
+        flushDirty();
+    }
+
+    /**
+     * 研究进入队列后建立状态，session 为 CAS 成功后的行内容
+     */
+    public void open(ResearchSession session) {
+        Map<String, String> fields = new HashMap<>();
+        put(fields, F_USER_ID, session.getUserId());
+        put(fields, F_STATUS, session.getStatus());
+        put(fields, F_TITLE, session.getTitle());
+        put(fields, F_MODEL_ID, session.getModelId());
+        put(fields, F_BUDGET, session.getBudget());
+        put(fields, F_START_TIME, session.getStartTime());
+        put(fields, F_UPDATE_TIME, LocalDateTime.now());
+        put(fields, F_COMPLETE_TIME, session.getCompleteTime());
+        put(fields, F_INPUT_TOKENS, session.getTotalInputTokens() == null ? 0 : session.getTotalInputTokens());
+        put(fields, F_OUTPUT_TOKENS, session.getTotalOutputTokens() == null ? 0 : session.getTotalOutputTokens());
+        fields.put(F_PENDING_INPUT, "0");
+        fields.put(F_PENDING_OUTPUT, "0");
+        put(fields, F_VERSION, session.getVersion() == null ? 0 : session.getVersion());
+        put(fields, F_FLUSHED_STATUS, session.getStatus());
+        String key = key(session.getId());
+        stringRedisTemplate.delete(key);
+        stringRedisTemplate.opsForHash().putAll(key, fields);
+        stringRedisTemplate.expire(key, STATE_TTL_HOURS, TimeUnit.HOURS);
+    }
+
+    /**
+     * 活跃研究的当前状态，不存在时返回 null，由调用方查询 DB
+     */
+    public ResearchSession get(String researchId) {
+        Map<Object, Object> hash = stringRedisTemplate.opsForHash().entries(key(researchId));
+        if (hash.isEmpty() || hash.get(F_STATUS) == null) {
+            return null;
+        }
+        return ResearchSession.builder()
+                .id(researchId)
+                .userId(toLong(hash.get(F_USER_ID)))
+                .status((String) hash.get(F_STATUS))
+                .title((String) hash.get(F_TITLE))
+                .modelId((String) hash.get(F_MODEL_ID))
+                .budget((String) hash.get(F_BUDGET))
+                .startTime(toTime(hash.get(F_START_TIME)))
+                .updateTime(toTime(hash.get(F_UPDATE_TIME)))
+                .completeTime(toTime(hash.get(F_COMPLETE_TIME)))
+                .totalInputTokens(toCount(hash.get(F_INPUT_TOKENS)))
+                .totalOutputTokens(toCount(hash.get(F_OUTPUT_TOKENS)))
+                .version(toInt(hash.get(F_VERSION)))
+                .build();
+    }
+
+    /**
+     * 状态流转：非终态只写入缓存等待批量刷盘，终态同步写入 DB 后移除缓存
+     */
+    public void transition(String researchId, Long userId, String status, long inputTokens, long outputTokens) {
+        String key = key(researchId);
+        boolean terminal = isTerminal(status);
+        LocalDateTime now = LocalDateTime.now();
+        Map<String, String> fields = new HashMap<>();
+        fields.put(F_STATUS, status);
+        put(fields, F_UPDATE_TIME, now);
+        if (WorkflowStatus.START.equals(status)) {
+            put(fields, F_START_TIME, now);
+        }
+        if (terminal) {
+            put(fields, F_COMPLETE_TIME, now);
+        }
+        if (!update(key, fields, tokenIncrements(inputTokens, outputTokens))) {
+            // 状态缓存缺失（如 Redis 重启或已过期），直接写 DB
+            writeThrough(researchId, userId, status, inputTokens, outputTokens);
+            return;
+        }
+        if (!terminal) {
+            dirty.add(researchId);
+            return;
+        }
+
+        // 终态必须落库：版本冲突重试耗尽时退化为无条件更新
+        dirty.remove(researchId);
+        ReentrantLock lock = lock(researchId);
+        lock.lock();
+        try {
+            if (!flush(researchId, "final")) {
+                Map<Object, Object> state = stringRedisTemplate.opsForHash().entries(key);
+                researchSessionMapper.updateSession(researchId, status, false, true,
+                        toCount(state.get(F_PENDING_INPUT)), toCount(state.get(F_PENDING_OUTPUT)));
+                metricsUtil.count(MetricsUtil.SESSION_FLUSH, 1, "mode", "final", "result", "fallback");
+            }
+            stringRedisTemplate.delete(key);
+        } finally {
+            lock.unlock();
+        }
+        researchListCacheUtil.evict(userId);
+    }
+
+    /**
+     * 研究过程中的 token 增量，随下一次批量刷盘写入
+     */
+    public void addTokens(String researchId, long inputTokens, long outputTokens) {
+        if (inputTokens <= 0 && outputTokens <= 0) {
+            return;
+        }
+        if (!update(key(researchId), Map.of(), tokenIncrements(inputTokens, outputTokens))) {
+            researchSessionMapper.addTokens(researchId, inputTokens, outputTokens);
+            return;
+        }
+        dirty.add(researchId);
+    }
+
+    private void flushDirty() {
+        for (String researchId : dirty) {
+            // 先移出再刷盘，刷盘期间的新变更会重新标记
+            dirty.remove(researchId);
+            ReentrantLock lock = lock(researchId);
+            lock.lock();
+            try {
+                flush(researchId, "batch");
+            } catch (Exception e) {
+                log.warn("会话状态刷盘失败 researchId={}", researchId, e);
+                dirty.add(researchId);
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 以缓存中的版本号写入当前状态与 token 增量；缓存已不存在视为无需写入
+     */
+    private boolean flush(String researchId, String mode) {
+        String key = key(researchId);
+        Map<Object, Object> state = stringRedisTemplate.opsForHash().entries(key);
+        if (state.isEmpty() || state.get(F_STATUS) == null) {
+            return true;
+        }
+        String status = (String) state.get(F_STATUS);
+        long pendingInput = toCount(state.get(F_PENDING_INPUT));
+        long pendingOutput = toCount(state.get(F_PENDING_OUTPUT));
+        int version = toInt(state.get(F_VERSION));
+        for (int attempt = 0; attempt < MAX_FLUSH_ATTEMPTS; attempt++) {
+            int affected = researchSessionMapper.flushState(researchId, status,
+                    toTime(state.get(F_START_TIME)), toTime(state.get(F_COMPLETE_TIME)),
+                    pendingInput, pendingOutput, version);
+            if (affected > 0) {
+                // 只扣除本次写入的部分，刷盘期间新增的 token 留待下次
+                Map<String, String> fields = new HashMap<>();
+                fields.put(F_VERSION, String.valueOf(version + 1));
+                boolean statusChanged = !status.equals(state.get(F_FLUSHED_STATUS));
+                if (statusChanged) {
+                    fields.put(F_FLUSHED_STATUS, status);
+                }
+                update(key, fields, Map.of(F_PENDING_INPUT, -pendingInput, F_PENDING_OUTPUT, -pendingOutput));
+                metricsUtil.count(MetricsUtil.SESSION_FLUSH, 1, "mode", mode, "result", "ok");
+                if (statusChanged) {
+                    researchListCacheUtil.evict(userId(researchId, state));
+                }
+                return true;
+            }
+
+            // 版本冲突：以 DB 当前版本为准重试，已在别处进入终态时放弃本地状态
+            metricsUtil.count(MetricsUtil.SESSION_FLUSH, 1, "mode", mode, "result", "conflict");
+            ResearchSession current = researchSessionMapper.selectVersion(researchId);
+            if (current == null || (isTerminal(current.getStatus()) && !isTerminal(status))) {
+                log.warn("会话状态已被其他写入者结束，丢弃缓存 researchId={}, dbStatus={}", researchId,
+                        current == null ? null : current.getStatus());
+                stringRedisTemplate.delete(key);
+                return true;
+            }
+            version = current.getVersion() == null ? 0 : current.getVersion();
+            update(key, Map.of(F_VERSION, String.valueOf(version)), Map.of());
+        }
+        return false;
+    }
+
+    /**
+     * 状态中缺少 userId 时（如旧版本写入的状态）以 research_session.user_id 为准
+     */
+    private Long userId(String researchId, Map<Object, Object> state) {
+        Long userId = toLong(state.get(F_USER_ID));
+        return userId != null ? userId : researchSessionMapper.selectUserId(researchId);
+    }
+
+    private void writeThrough(String researchId, Long userId, String status, long inputTokens, long outputTokens) {
+        boolean setStartTime = WorkflowStatus.START.equals(status);
+        researchSessionMapper.updateSession(researchId, status, setStartTime, isTerminal(status),
+                inputTokens, outputTokens);
+        researchListCacheUtil.evict(userId);
+    }
+
+    /**
+     * 原子地写入字段并累加计数，状态已不存在时不做任何修改并返回 false
+     */
+    private boolean update(String key, Map<String, String> fields, Map<String, Long> increments) {
+        List<String> args = new ArrayList<>(2 + 2 * (fields.size() + increments.size()));
+        args.add(String.valueOf(TimeUnit.HOURS.toSeconds(STATE_TTL_HOURS)));
+        args.add(String.valueOf(fields.size()));
+        fields.forEach((field, value) -> {
+            args.add(field);
+            args.add(value);
+        });
+        increments.forEach((field, delta) -> {
+            args.add(field);
+            args.add(String.valueOf(delta));
+        });
+        Long updated = stringRedisTemplate.execute(UPDATE_SCRIPT, List.of(key), args.toArray());
+        return updated != null && updated == 1;
+    }
+
+    private static Map<String, Long> tokenIncrements(long inputTokens, long outputTokens) {
+        Map<String, Long> increments = new HashMap<>();
+        if (inputTokens > 0) {
+            increments.put(F_INPUT_TOKENS, inputTokens);
+            increments.put(F_PENDING_INPUT, inputTokens);
+        }
+        if (outputTokens > 0) {
+            increments.put(F_OUTPUT_TOKENS, outputTokens);
+            increments.put(F_PENDING_OUTPUT, outputTokens);
+        }
+        return increments;
+    }
+
+    private ReentrantLock lock(String researchId) {
+        return locks[Math.floorMod(researchId.hashCode(), LOCK_STRIPES)];
+    }
+
+    // NEED_CLARIFICATION 同样结束本次运行，与原有的 complete_time 语义一致
+    private static boolean isTerminal(String status) {
+        return WorkflowStatus.COMPLETED.equals(status)
+                || WorkflowStatus.FAILED.equals(status)
+                || WorkflowStatus.NEED_CLARIFICATION.equals(status);
+    }
+
+    private static String key(String researchId) {
+        return StrUtil.format(STATE_KEY, researchId);
+    }
+
+    private static void put(Map<String, String> fields, String field, Object value) {
+        if (value != null) {
+            fields.put(field, value.toString());
+        }
+    }
+
+    private static Long toLong(Object value) {
+        return value == null ? null : Long.valueOf((String) value);
+    }
+
+    private static long toCount(Object value) {
+        return value == null ? 0 : Long.parseLong((String) value);
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : Integer.parseInt((String) value);
+    }
+
+    private static LocalDateTime toTime(Object value) {
+        return value == null ? null : LocalDateTime.parse((String) value);
+    }
+
+    private static ReentrantLock[] newLocks() {
+        ReentrantLock[] locks = new ReentrantLock[LOCK_STRIPES];
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        return locks;
+    }
+}
@@ -0,0 +1,270 @@
+package dev.chanler.researcher.infra.util;
+
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.collection.CollectionUtil;
+import cn.hutool.core.util.NumberUtil;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.core.util.ZipUtil;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chanler.researcher.infra.data.TimelineItem;
+import dev.chanler.researcher.infra.data.TimelineSnapshot;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.IntFunction;
+
+/**
+ * Compressed timeline snapshot in Redis: the image is a list of gzip chunks of {@link #COMPACT_EVERY}
+ * items, so compaction only compresses the new items. Deltas are sequence numbers resolved against
+ * the timeline cache, the item content is not stored a second time
+ * @author: Chanler
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TimelineSnapshotUtil {
+
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final MetricsUtil metricsUtil;
+
+    // research:{id}:snapshot -> Hash{seq, chunks, chunk:0..n}，chunk 为 gzip + base64 的 TimelineItem 数组
+    private static final String SNAPSHOT_KEY = "research:{}:snapshot";
+    // research:{id}:snapshot:delta -> List<sequenceNo>，尚未合并进快照的增量引用
+    private static final String DELTA_KEY = "research:{}:snapshot:delta";
+    private static final String LOCK_KEY = "research:{}:snapshot:lock";
+    private static final String FIELD_SEQ = "seq";
+    private static final String FIELD_CHUNKS = "chunks";
+    private static final String FIELD_CHUNK = "chunk:{}";
+    public static final int COMPACT_EVERY = 50;
+    private static final long SNAPSHOT_TTL_HOURS = 2;
+    private static final long LOCK_TTL_SECONDS = 30;
+
+    /**
+     * 追加一条增量引用，返回当前增量条数，调用方据此决定是否合并；写入与续期在一次往返内完成
+     */
+    public long appendDelta(String researchId, int sequenceNo) {
+        String deltaKey = StrUtil.format(DELTA_KEY, researchId);
+        String snapshotKey = StrUtil.format(SNAPSHOT_KEY, researchId);
+        List<Object> results = stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.opsForList().rightPush(deltaKey, String.valueOf(sequenceNo));
+                ops.expire(deltaKey, SNAPSHOT_TTL_HOURS, TimeUnit.HOURS);
+                ops.expire(snapshotKey, SNAPSHOT_TTL_HOURS, TimeUnit.HOURS);
+                return null;
+            }
+        });
+        return results.isEmpty() || results.get(0) == null ? 0 : (Long) results.get(0);
+    }
+
+    /**
+     * 读取快照并叠加快照之后的条目；快照不存在时返回 null，由调用方从完整时间线重建。
+     * itemsAfter 按序列号返回之后的时间线条目，只在存在未合并的增量时调用
+     */
+    public TimelineSnapshot read(String researchId, IntFunction<List<TimelineItem>> itemsAfter) {
+        List<String> deltas = stringRedisTemplate.opsForList().range(StrUtil.format(DELTA_KEY, researchId), 0, -1);
+        Map<Object, Object> snapshot = stringRedisTemplate.opsForHash().entries(StrUtil.format(SNAPSHOT_KEY, researchId));
+        TreeMap<Integer, TimelineItem> merged = decodeChunks(snapshot);
+        if (merged == null) {
+            return null;
+        }
+        int seq = toInt(snapshot.get(FIELD_SEQ));
+        if (hasPending(deltas, seq)) {
+            putAll(merged, itemsAfter.apply(seq));
+        }
+        return toSnapshot(researchId, merged);
+    }
+
+    /**
+     * 把快照之后的条目压缩为一个新分块追加进快照，已有分块不再重新压缩。
+     * 快照不存在时不能只凭增量生成，返回 false 交由调用方重建
+     */
+    public boolean compact(String researchId, IntFunction<List<TimelineItem>> itemsAfter) {
+        if (!tryLock(researchId)) {
+            return true;
+        }
+        try {
+            String snapshotKey = StrUtil.format(SNAPSHOT_KEY, researchId);
+            String deltaKey = StrUtil.format(DELTA_KEY, researchId);
+            List<Object> state = stringRedisTemplate.opsForHash().multiGet(snapshotKey, List.of(FIELD_SEQ, FIELD_CHUNKS));
+            if (state.get(0) == null || state.get(1) == null) {
+                return false;
+            }
+            int seq = toInt(state.get(0));
+            int chunks = toInt(state.get(1));
+            Long merging = stringRedisTemplate.opsForList().size(deltaKey);
+            TreeMap<Integer, TimelineItem> pending = new TreeMap<>();
+            putAll(pending, itemsAfter.apply(seq));
+            pending.headMap(seq, true).clear();
+            String data = pending.isEmpty() ? null : encode(new ArrayList<>(pending.values()));
+            if (data == null && !pending.isEmpty()) {
+                // 压缩失败时保留增量，下次再合并
+                return true;
+            }
+            metricsUtil.time(MetricsUtil.CACHE_WRITE, () -> {
+                if (data != null) {
+                    // 分块、序列号与分块数在一条 HSET 中写入，读取方不会看到不一致的快照
+                    stringRedisTemplate.opsForHash().putAll(snapshotKey, Map.of(
+                            StrUtil.format(FIELD_CHUNK, chunks), data,
+                            FIELD_SEQ, String.valueOf(pending.lastKey()),
+                            FIELD_CHUNKS, String.valueOf(chunks + 1)));
+                }
+                // 只裁掉已合并的部分，合并期间新追加的增量保留
+                if (merging != null && merging > 0) {
+                    stringRedisTemplate.opsForList().trim(deltaKey, merging, -1);
+                }
+            }, "store", "redis", "kind", "snapshot");
+            return true;
+        } finally {
+            unlock(researchId);
+        }
+    }
+
+    /**
+     * 以完整时间线重建快照，按固定大小分块压缩
+     */
+    public TimelineSnapshot rebuild(String researchId, List<TimelineItem> items) {
+        TreeMap<Integer, TimelineItem> merged = new TreeMap<>();
+        putAll(merged, items);
+        if (!tryLock(researchId)) {
+            // 其他线程正在重建，本次只返回结果不落盘
+            return toSnapshot(researchId, merged);
+        }
+        try {
+            write(researchId, merged);
+        } finally {
+            unlock(researchId);
+        }
+        return toSnapshot(researchId, merged);
+    }
+
+    private void write(String researchId, TreeMap<Integer, TimelineItem> merged) {
+        String deltaKey = StrUtil.format(DELTA_KEY, researchId);
+        String snapshotKey = StrUtil.format(SNAPSHOT_KEY, researchId);
+        List<TimelineItem> items = new ArrayList<>(merged.values());
+        Map<String, String> fields = new HashMap<>();
+        int chunks = 0;
+        for (int from = 0; from < items.size(); from += COMPACT_EVERY) {
+            String data = encode(items.subList(from, Math.min(from + COMPACT_EVERY, items.size())));
+            if (data == null) {
+                return;
+            }
+            fields.put(StrUtil.format(FIELD_CHUNK, chunks++), data);
+        }
+        fields.put(FIELD_SEQ, String.valueOf(merged.isEmpty() ? 0 : merged.lastKey()));
+        fields.put(FIELD_CHUNKS, String.valueOf(chunks));
+        metricsUtil.time(MetricsUtil.CACHE_WRITE, () -> stringRedisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                RedisOperations<String, String> ops = (RedisOperations<String, String>) operations;
+                ops.delete(snapshotKey);
+                ops.opsForHash().putAll(snapshotKey, fields);
+                ops.expire(snapshotKey, SNAPSHOT_TTL_HOURS, TimeUnit.HOURS);
+                // 完整时间线已包含全部增量
+                ops.delete(deltaKey);
+                return null;
+            }
+        }), "store", "redis", "kind", "snapshot");
+        log.debug("Timeline snapshot rebuilt: researchId={}, items={}, chunks={}", researchId, merged.size(), chunks);
+    }
+
+    private boolean tryLock(String researchId) {
+        return Boolean.TRUE.equals(stringRedisTemplate.opsForValue().setIfAbsent(
+                StrUtil.format(LOCK_KEY, researchId), "1", LOCK_TTL_SECONDS, TimeUnit.SECONDS));
+    }
+
+    private void unlock(String researchId) {
+        stringRedisTemplate.delete(StrUtil.format(LOCK_KEY, researchId));
+    }
+
+    private static void putAll(TreeMap<Integer, TimelineItem> merged, Collection<TimelineItem> items) {
+        for (TimelineItem item : items) {
+            // 排队提示等临时事件 (seq = -1) 不进入快照
+            if (item.getSequenceNo() != null && item.getSequenceNo() > 0) {
+                merged.put(item.getSequenceNo(), item);
+            }
+        }
+    }
+
+    private static TimelineSnapshot toSnapshot(String researchId, TreeMap<Integer, TimelineItem> merged) {
+        return TimelineSnapshot.builder()
+                .kind(TimelineSnapshot.KIND)
+                .researchId(researchId)
+                .lastSeq(merged.isEmpty() ? 0 : merged.lastKey())
+                .items(new ArrayList<>(merged.values()))
+                .build();
+    }
+
+    /**
+     * 按分块顺序解码快照，快照不存在或任一分块损坏时返回 null
+     */
+    private TreeMap<Integer, TimelineItem> decodeChunks(Map<Object, Object> snapshot) {
+        if (CollectionUtil.isEmpty(snapshot) || snapshot.get(FIELD_CHUNKS) == null) {
+            return null;
+        }
+        TreeMap<Integer, TimelineItem> merged = new TreeMap<>();
+        int chunks = toInt(snapshot.get(FIELD_CHUNKS));
+        for (int i = 0; i < chunks; i++) {
+            List<TimelineItem> items = decode((String) snapshot.get(StrUtil.format(FIELD_CHUNK, i)));
+            if (items == null) {
+                return null;
+            }
+            putAll(merged, items);
+        }
+        return merged;
+    }
+
+    private static boolean hasPending(List<String> deltas, int seq) {
+        if (CollectionUtil.isEmpty(deltas)) {
+            return false;
+        }
+        // 合并与裁剪之间追加的引用可能已在快照内
+        return deltas.stream().anyMatch(delta -> NumberUtil.parseInt(delta, 0) > seq);
+    }
+
+    private static int toInt(Object value) {
+        return value == null ? 0 : NumberUtil.parseInt((String) value, 0);
+    }
+
+    private String encode(List<TimelineItem> items) {
+        try {
+            return Base64.encode(ZipUtil.gzip(objectMapper.writeValueAsBytes(items)));
+        } catch (Exception e) {
+            log.error("时间线快照序列化失败", e);
+            return null;
+        }
+    }
+
+    /**
+     * 解码失败返回 null，视同快照不存在
+     */
+    private List<TimelineItem> decode(String data) {
+        if (StrUtil.isEmpty(data)) {
+            return null;
+        }
+        try {
+            String json = new String(ZipUtil.unGzip(Base64.decode(data)), StandardCharsets.UTF_8);
+            return objectMapper.readValue(json, new TypeReference<List<TimelineItem>>() {});
+        } catch (Exception e) {
+            log.error("时间线快照反序列化失败", e);
+            return null;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package dev.chanler.researcher.infra.util;
+
+import dev.chanler.researcher.domain.mapper.ResearchTimelineMapper;
+import dev.chanler.researcher.domain.mapper.WorkflowEventMapper;
+import dev.chanler.researcher.infra.config.TimelineProp;
+import dev.langchain4j.model.chat.response.ChatResponse;
+import dev.langchain4j.model.output.TokenUsage;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+
+/**
+ * Records span timing and LLM usage on workflow events, trace failures never fail the run
+ * @author: Chanler
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class TraceUtil {
+
+    private final WorkflowEventMapper workflowEventMapper;
+    private final ResearchTimelineMapper researchTimelineMapper;
+    private final TimelineProp timelineProp;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 结束事件 span，记录结束时间与耗时
+     */
+    public void closeSpan(Long eventId) {
+        if (eventId == null) {
+            return;
+        }
+        try {
+            update(eventId, () -> workflowEventMapper.closeSpan(eventId, LocalDateTime.now()));
+        } catch (Exception e) {
+            log.warn("Failed to close span: eventId={}", eventId, e);
+        }
+    }
+
+    /**
+     * 将一次 LLM 调用的用量与模型挂到最近的事件上
+     */
+    public void attachUsage(Long eventId, ChatResponse chatResponse) {
+        if (eventId == null || chatResponse == null) {
+            return;
+        }
+        TokenUsage tokenUsage = chatResponse.tokenUsage();
+        long inputTokens = tokenUsage == null || tokenUsage.inputTokenCount() == null
+                ? 0 : tokenUsage.inputTokenCount();
+        long outputTokens = tokenUsage == null || tokenUsage.outputTokenCount() == null
+                ? 0 : tokenUsage.outputTokenCount();
+        try {
+            update(eventId, () -> workflowEventMapper.addUsage(eventId, inputTokens, outputTokens,
+                    chatResponse.modelName()));
+        } catch (Exception e) {
+            log.warn("Failed to attach usage: eventId={}", eventId, e);
+        }
+    }
+
+    /**
+     * dual / unified 模式下在同一事务中把 span 字段同步到合并时间线
+     */
+    private void update(Long eventId, Runnable update) {
+        if (!timelineProp.writeUnified()) {
+            update.run();
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            update.run();
+            researchTimelineMapper.syncSpan(eventId);
+        });
+    }
+}
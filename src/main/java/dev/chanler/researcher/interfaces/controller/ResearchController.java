@@ -2,17 +2,28 @@ package dev.chanler.researcher.interfaces.controller;
 
 import dev.chanler.researcher.infra.common.Result;
 import dev.chanler.researcher.infra.common.Results;
+import dev.chanler.researcher.infra.sse.ReactiveSseHub;
 import dev.chanler.researcher.infra.sse.SseHub;
 import dev.chanler.researcher.interfaces.dto.req.SendMessageReqDTO;
 import dev.chanler.researcher.interfaces.dto.resp.CreateResearchRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.ResearchMessageRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchPageRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.ResearchStatusRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchTimelineRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchTraceRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.SendMessageRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.TimelineContentRespDTO;
 import dev.chanler.researcher.interfaces.service.ResearchService;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import reactor.core.publisher.Flux;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
 
 /**
@@ -24,6 +35,7 @@ public class ResearchController {
 
     private final ResearchService researchService;
     private final SseHub sseHub;
+    private final ReactiveSseHub reactiveSseHub;
 
     @GetMapping("/api/v1/research/create")
     public Result<CreateResearchRespDTO> createResearch(
@@ -37,6 +49,16 @@ public class ResearchController {
         return Results.success(researchService.getResearchList(userId));
     }
 
+    @GetMapping("/api/v1/research/list/page")
+    public Result<ResearchPageRespDTO> getResearchPage(
+            @RequestAttribute("userId") Long userId,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit,
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String title) {
+        return Results.success(researchService.getResearchPage(userId, cursor, limit, status, title));
+    }
+
     @GetMapping("/api/v1/research/{researchId}")
     public Result<ResearchStatusRespDTO> getResearchStatus(
             @RequestAttribute("userId") Long userId, @PathVariable String researchId) {
@@ -49,6 +71,49 @@ public class ResearchController {
         return Results.success(researchService.getResearchMessages(userId, researchId));
     }
 
+    @GetMapping("/api/v1/research/{researchId}/timeline")
+    public Result<ResearchTimelineRespDTO> getResearchTimeline(
+            @RequestAttribute("userId") Long userId, @PathVariable String researchId,
+            @RequestParam(required = false) Integer afterSeq,
+            @RequestParam(required = false) Integer limit) {
+        return Results.success(researchService.getResearchTimeline(userId, researchId, afterSeq, limit));
+    }
+
+    @GetMapping("/api/v1/research/{researchId}/events/{eventId}/content")
+    public Result<TimelineContentRespDTO> getEventContent(
+            @RequestAttribute("userId") Long userId, @PathVariable String researchId, @PathVariable Long eventId) {
+        return Results.success(researchService.getTimelineContent(userId, researchId, "event", eventId));
+    }
+
+    @GetMapping("/api/v1/research/{researchId}/messages/{messageId}/content")
+    public Result<TimelineContentRespDTO> getMessageContent(
+            @RequestAttribute("userId") Long userId, @PathVariable String researchId, @PathVariable Long messageId) {
+        return Results.success(researchService.getTimelineContent(userId, researchId, "message", messageId));
+    }
+
+    // 正文原样流式返回（text/plain），大报告不经过 JSON 包装和整段缓冲
+    @GetMapping("/api/v1/research/{researchId}/events/{eventId}/content/raw")
+    public ResponseEntity<StreamingResponseBody> streamEventContent(
+            @RequestAttribute("userId") Long userId, @PathVariable String researchId, @PathVariable Long eventId) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(researchService.streamTimelineContent(userId, researchId, "event", eventId));
+    }
+
+    @GetMapping("/api/v1/research/{researchId}/messages/{messageId}/content/raw")
+    public ResponseEntity<StreamingResponseBody> streamMessageContent(
+            @RequestAttribute("userId") Long userId, @PathVariable String researchId, @PathVariable Long messageId) {
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.TEXT_PLAIN, StandardCharsets.UTF_8))
+                .body(researchService.streamTimelineContent(userId, researchId, "message", messageId));
+    }
+
+    @GetMapping("/api/v1/research/{researchId}/trace")
+    public Result<ResearchTraceRespDTO> getResearchTrace(
+            @RequestAttribute("userId") Long userId, @PathVariable String researchId) {
+        return Results.success(researchService.getResearchTrace(userId, researchId));
+    }
+
     @PostMapping("/api/v1/research/{researchId}/messages")
     public Result<SendMessageRespDTO> sendMessage(
             @RequestAttribute("userId") Long userId, @PathVariable String researchId,
@@ -63,4 +128,12 @@ public class ResearchController {
             @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
         return sseHub.connect(userId, researchId, clientId, lastEventId);
     }
+
+    // 非阻塞 SSE：空闲连接不占用线程，重放语义与 /sse 相同
+    @GetMapping(value = "/api/v1/research/sse/reactive", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public Flux<ServerSentEvent<Object>> reactiveStream(@RequestAttribute("userId") Long userId,
+            @RequestHeader("X-Research-Id") String researchId,
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return reactiveSseHub.connect(userId, researchId, lastEventId);
+    }
 }
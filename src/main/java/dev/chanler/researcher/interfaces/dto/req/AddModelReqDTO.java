@@ -13,4 +13,8 @@ public class AddModelReqDTO {
     private String model;
     private String baseUrl;
     private String apiKey;
+    private String plannerModel;
+    private String summarizerModel;
+    private String compressorModel;
+    private String writerModel;
 }
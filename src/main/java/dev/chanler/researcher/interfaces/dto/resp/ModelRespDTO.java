@@ -19,4 +19,8 @@ public class ModelRespDTO {
     private String name;
     private String model;
     private String baseUrl;
+    private String plannerModel;
+    private String summarizerModel;
+    private String compressorModel;
+    private String writerModel;
 }
@@ -0,0 +1,22 @@
+package dev.chanler.researcher.interfaces.dto.resp;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * @author: Chanler
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResearchPageRespDTO {
+    private List<ResearchStatusRespDTO> items;
+    // 下一页游标，没有更多数据时为 null
+    private String nextCursor;
+    private Boolean hasMore;
+}
@@ -1,15 +1,21 @@
 package dev.chanler.researcher.interfaces.dto.resp;
 
+import dev.chanler.researcher.domain.entity.ResearchTokenUsage;
+import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
+import lombok.NoArgsConstructor;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * @author: Chanler
  */
 @Data
 @Builder
+@NoArgsConstructor
+@AllArgsConstructor
 public class ResearchStatusRespDTO {
     private String id;
     private String status;
@@ -20,4 +26,6 @@ public class ResearchStatusRespDTO {
     private LocalDateTime completeTime;
     private Long totalInputTokens;
     private Long totalOutputTokens;
+    // 按阶段和模型拆分的用量，仅详情接口返回
+    private List<ResearchTokenUsage> tokenUsage;
 }
@@ -0,0 +1,21 @@
+package dev.chanler.researcher.interfaces.dto.resp;
+
+import dev.chanler.researcher.infra.data.TimelineSummary;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * @author: Chanler
+ */
+@Data
+@Builder
+public class ResearchTimelineRespDTO {
+    private String id;
+    private String status;
+    private List<TimelineSummary> items;
+    // 下一页从该序列号之后继续，作为 afterSeq 传回
+    private Integer nextSeq;
+    private Boolean hasMore;
+}
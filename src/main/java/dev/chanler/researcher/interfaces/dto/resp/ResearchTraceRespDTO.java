@@ -0,0 +1,41 @@
+package dev.chanler.researcher.interfaces.dto.resp;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Trace tree of a research run, nodes follow the d3-flame-graph {name, value, children} shape
+ * @author: Chanler
+ */
+@Data
+@Builder
+public class ResearchTraceRespDTO {
+    private String id;
+    private String status;
+    private Node root;
+
+    @Data
+    @Builder
+    public static class Node {
+        private Long eventId;
+        private String name;
+        private String type;
+        private LocalDateTime start;
+        private LocalDateTime end;
+        // span 实际耗时，未结束的 span 为空
+        private Long durationMs;
+        // 火焰图宽度 (毫秒)，取自身耗时与子节点宽度之和的较大者，并行子任务会撑宽父节点
+        private long value;
+        // 未被子节点覆盖的宽度
+        private long selfValue;
+        private Long inputTokens;
+        private Long outputTokens;
+        private String modelName;
+        @Builder.Default
+        private List<Node> children = new ArrayList<>();
+    }
+}
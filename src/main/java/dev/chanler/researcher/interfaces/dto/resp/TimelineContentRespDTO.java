@@ -0,0 +1,15 @@
+package dev.chanler.researcher.interfaces.dto.resp;
+
+import lombok.Builder;
+import lombok.Data;
+
+/**
+ * @author: Chanler
+ */
+@Data
+@Builder
+public class TimelineContentRespDTO {
+    private String kind;
+    private Long id;
+    private String content;
+}
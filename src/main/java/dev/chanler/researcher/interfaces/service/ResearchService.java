@@ -3,8 +3,14 @@ package dev.chanler.researcher.interfaces.service;
 import dev.chanler.researcher.interfaces.dto.req.SendMessageReqDTO;
 import dev.chanler.researcher.interfaces.dto.resp.CreateResearchRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.ResearchMessageRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchPageRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.ResearchStatusRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchTimelineRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchTraceRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.SendMessageRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.TimelineContentRespDTO;
+
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import java.util.List;
 
@@ -17,9 +23,19 @@ public interface ResearchService {
 
     List<ResearchStatusRespDTO> getResearchList(Long userId);
 
+    ResearchPageRespDTO getResearchPage(Long userId, String cursor, Integer limit, String status, String title);
+
     ResearchStatusRespDTO getResearchStatus(Long userId, String researchId);
 
     ResearchMessageRespDTO getResearchMessages(Long userId, String researchId);
 
+    ResearchTimelineRespDTO getResearchTimeline(Long userId, String researchId, Integer afterSeq, Integer limit);
+
+    TimelineContentRespDTO getTimelineContent(Long userId, String researchId, String kind, Long id);
+
+    StreamingResponseBody streamTimelineContent(Long userId, String researchId, String kind, Long id);
+
+    ResearchTraceRespDTO getResearchTrace(Long userId, String researchId);
+
     SendMessageRespDTO sendMessage(Long userId, String researchId, SendMessageReqDTO sendMessageReqDTO);
 }
@@ -51,6 +51,10 @@ public class ModelServiceImpl implements ModelService {
                 .model(req.getModel())
                 .baseUrl(req.getBaseUrl())
                 .apiKey(req.getApiKey())
+                .plannerModel(req.getPlannerModel())
+                .summarizerModel(req.getSummarizerModel())
+                .compressorModel(req.getCompressorModel())
+                .writerModel(req.getWriterModel())
                 .createTime(LocalDateTime.now())
                 .updateTime(LocalDateTime.now())
                 .build();
@@ -103,6 +107,10 @@ public class ModelServiceImpl implements ModelService {
                 .name(model.getName())
                 .model(model.getModel())
                 .baseUrl(model.getBaseUrl())
+                .plannerModel(model.getPlannerModel())
+                .summarizerModel(model.getSummarizerModel())
+                .compressorModel(model.getCompressorModel())
+                .writerModel(model.getWriterModel())
                 .build();
     }
 }
@@ -1,9 +1,14 @@
 package dev.chanler.researcher.interfaces.service.impl;
 
+import cn.hutool.core.codec.Base64;
+import cn.hutool.core.util.StrUtil;
+import cn.hutool.crypto.SecureUtil;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.core.toolkit.Wrappers;
 import dev.chanler.researcher.application.data.WorkflowStatus;
 import dev.chanler.researcher.application.state.DeepResearchState;
+import dev.chanler.researcher.application.state.SourceRegistry;
+import dev.chanler.researcher.application.state.TokenLedger;
 import dev.chanler.researcher.application.workflow.AgentPipeline;
 import dev.langchain4j.data.message.AiMessage;
 import dev.langchain4j.data.message.UserMessage;
@@ -14,78 +19,81 @@ import dev.chanler.researcher.domain.entity.Model;
 import dev.chanler.researcher.application.model.ModelHandler;
 import dev.chanler.researcher.domain.mapper.ChatMessageMapper;
 import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
+import dev.chanler.researcher.domain.mapper.ResearchTimelineMapper;
+import dev.chanler.researcher.domain.mapper.ResearchTokenUsageMapper;
+import dev.chanler.researcher.domain.mapper.WorkflowEventMapper;
+import dev.chanler.researcher.infra.blob.BlobRef;
+import dev.chanler.researcher.infra.blob.BlobStore;
 import dev.chanler.researcher.infra.exception.ResearchException;
 import dev.chanler.researcher.interfaces.dto.req.SendMessageReqDTO;
 import dev.chanler.researcher.interfaces.dto.resp.CreateResearchRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.ResearchMessageRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchPageRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.ResearchStatusRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchTimelineRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchTraceRespDTO;
 import dev.chanler.researcher.interfaces.dto.resp.SendMessageRespDTO;
+import dev.chanler.researcher.interfaces.dto.resp.TimelineContentRespDTO;
 import dev.chanler.researcher.infra.config.BudgetProps;
+import dev.chanler.researcher.infra.config.TimelineProp;
+import dev.chanler.researcher.infra.data.ConversationMessage;
 import dev.chanler.researcher.infra.data.TimelineItem;
+import dev.chanler.researcher.infra.data.TimelineSummary;
 import dev.chanler.researcher.infra.util.CacheUtil;
+import dev.chanler.researcher.infra.util.ResearchListCacheUtil;
+import dev.chanler.researcher.infra.util.SessionPoolUtil;
+import dev.chanler.researcher.infra.util.SessionStateUtil;
 import dev.chanler.researcher.interfaces.service.ResearchService;
 import dev.chanler.researcher.interfaces.service.ModelService;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
  * @author: Chanler
  */
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class ResearchServiceImpl implements ResearchService {
 
+    private static final int DEFAULT_PAGE_SIZE = 20;
+    private static final int MAX_PAGE_SIZE = 100;
+    private static final int DEFAULT_TIMELINE_SIZE = 50;
+    private static final int MAX_TIMELINE_SIZE = 200;
+
     private final ResearchSessionMapper researchSessionMapper;
     private final ChatMessageMapper chatMessageMapper;
+    private final WorkflowEventMapper workflowEventMapper;
+    private final ResearchTimelineMapper researchTimelineMapper;
+    private final ResearchTokenUsageMapper researchTokenUsageMapper;
     private final AgentPipeline agentPipeline;
     private final CacheUtil cacheUtil;
+    private final ResearchListCacheUtil researchListCacheUtil;
+    private final SessionPoolUtil sessionPoolUtil;
+    private final SessionStateUtil sessionStateUtil;
     private final ModelHandler modelHandler;
     private final BudgetProps budgetConfig;
     private final ModelService modelService;
+    private final BlobStore blobStore;
+    private final TimelineProp timelineProp;
 
     @Override
     public CreateResearchRespDTO createResearch(Long userId, Integer num) {
-        LambdaQueryWrapper<ResearchSession> queryWrapper = Wrappers.lambdaQuery(ResearchSession.class)
-                .eq(ResearchSession::getUserId, userId)
-                .eq(ResearchSession::getStatus, WorkflowStatus.NEW);
-        List<ResearchSession> researchSessionList = researchSessionMapper.selectList(queryWrapper);
-        int oldNum;
-        if (researchSessionList == null || researchSessionList.isEmpty()) {
-            oldNum = 0;
-        } else {
-            oldNum = researchSessionList.size();
-        }
-        if (num > oldNum) {
-            for (int i = 0; i < num - oldNum; i++) {
-                ResearchSession researchSession = ResearchSession.builder()
-                        .userId(userId)
-                        .status(WorkflowStatus.NEW)
-                        .createTime(LocalDateTime.now())
-                        .updateTime(LocalDateTime.now())
-                        .build();
-                researchSessionMapper.insert(researchSession);
-                researchSessionList.add(researchSession);
-            }
-        }
-        List<String> researchIds = researchSessionList.stream()
-                .sorted((o1, o2) -> o1.getCreateTime().compareTo(o2.getCreateTime()))
-                .map(ResearchSession::getId)
-                .limit(num)
-                .collect(Collectors.toList());
-
-        // 为新创建的研究缓存权限映射
-        for (String researchId : researchIds) {
-            cacheUtil.cacheResearchOwnership(researchId, userId);
-        }
-
+        // 优先复用池中未使用的 NEW 会话，不足时批量插入
         return CreateResearchRespDTO.builder()
-                .researchIds(researchIds)
+                .researchIds(sessionPoolUtil.acquire(userId, num))
                 .build();
     }
 
@@ -96,17 +104,77 @@ public class ResearchServiceImpl implements ResearchService {
                 .orderByDesc(ResearchSession::getUpdateTime);
         List<ResearchSession> sessions = researchSessionMapper.selectList(queryWrapper);
 
-        return sessions.stream().map(session -> ResearchStatusRespDTO.builder()
-            .id(session.getId())
-            .status(session.getStatus())
-            .title(session.getTitle())
-            .modelId(session.getModelId())
-            .budget(session.getBudget())
-            .startTime(session.getStartTime())
-            .completeTime(session.getCompleteTime())
-            .totalInputTokens(session.getTotalInputTokens())
-            .totalOutputTokens(session.getTotalOutputTokens())
-            .build()).collect(Collectors.toList());
+        return sessions.stream().map(ResearchServiceImpl::toListItem).collect(Collectors.toList());
+    }
+
+    @Override
+    public ResearchPageRespDTO getResearchPage(Long userId, String cursor, Integer limit, String status, String title) {
+        int pageSize = limit == null ? DEFAULT_PAGE_SIZE : Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        String statusFilter = StrUtil.emptyToNull(StrUtil.trim(status));
+        String titleFilter = StrUtil.emptyToNull(StrUtil.trim(title));
+        String query = SecureUtil.md5(StrUtil.join("|", cursor, pageSize, statusFilter, titleFilter));
+        ResearchPageRespDTO cached = researchListCacheUtil.get(userId, query, ResearchPageRespDTO.class);
+        if (cached != null) {
+            return cached;
+        }
+
+        PageCursor pageCursor = decodeCursor(cursor);
+        // 多取一条判断是否还有下一页
+        List<ResearchSession> sessions = researchSessionMapper.selectPage(userId, statusFilter, titleFilter,
+                pageCursor == null ? null : pageCursor.updateTime(),
+                pageCursor == null ? null : pageCursor.id(), pageSize + 1);
+        boolean hasMore = sessions.size() > pageSize;
+        if (hasMore) {
+            sessions = sessions.subList(0, pageSize);
+        }
+        String nextCursor = null;
+        if (hasMore) {
+            ResearchSession last = sessions.getLast();
+            nextCursor = encodeCursor(last.getUpdateTime(), last.getId());
+        }
+        ResearchPageRespDTO page = ResearchPageRespDTO.builder()
+                .items(sessions.stream().map(ResearchServiceImpl::toListItem).collect(Collectors.toList()))
+                .nextCursor(nextCursor)
+                .hasMore(hasMore)
+                .build();
+        researchListCacheUtil.put(userId, query, page);
+        return page;
+    }
+
+    // 游标格式: base64url(update_time|id)
+    static String encodeCursor(LocalDateTime updateTime, String id) {
+        return Base64.encodeUrlSafe(updateTime + "|" + id);
+    }
+
+    /**
+     * 空游标表示第一页，返回 null
+     */
+    static PageCursor decodeCursor(String cursor) {
+        if (StrUtil.isBlank(cursor)) {
+            return null;
+        }
+        try {
+            List<String> parts = StrUtil.split(Base64.decodeStr(cursor), '|', 2);
+            return new PageCursor(LocalDateTime.parse(parts.get(0)), parts.get(1));
+        } catch (Exception e) {
+            throw new ResearchException("无效的分页游标");
+        }
+    }
+
+    record PageCursor(LocalDateTime updateTime, String id) {}
+
+    private static ResearchStatusRespDTO toListItem(ResearchSession session) {
+        return ResearchStatusRespDTO.builder()
+                .id(session.getId())
+                .status(session.getStatus())
+                .title(session.getTitle())
+                .modelId(session.getModelId())
+                .budget(session.getBudget())
+                .startTime(session.getStartTime())
+                .completeTime(session.getCompleteTime())
+                .totalInputTokens(session.getTotalInputTokens())
+                .totalOutputTokens(session.getTotalOutputTokens())
+                .build();
     }
 
     @Override
@@ -115,7 +183,7 @@ public class ResearchServiceImpl implements ResearchService {
             throw new ResearchException("研究任务不存在或无权限访问");
         }
 
-        ResearchSession researchSession = researchSessionMapper.selectById(researchId);
+        ResearchSession researchSession = loadSession(researchId);
         if (researchSession == null) {
             throw new ResearchException("研究任务不存在");
         }
@@ -129,16 +197,25 @@ public class ResearchServiceImpl implements ResearchService {
                 .completeTime(researchSession.getCompleteTime())
                 .totalInputTokens(researchSession.getTotalInputTokens())
                 .totalOutputTokens(researchSession.getTotalOutputTokens())
+                .tokenUsage(researchTokenUsageMapper.selectByResearchId(researchId))
                 .build();
     }
 
+    /**
+     * 运行中的研究从状态缓存读取，其余查询 DB
+     */
+    private ResearchSession loadSession(String researchId) {
+        ResearchSession live = sessionStateUtil.get(researchId);
+        return live != null ? live : researchSessionMapper.selectById(researchId);
+    }
+
     @Override
     public ResearchMessageRespDTO getResearchMessages(Long userId, String researchId) {
         if (!cacheUtil.verifyResearchOwnership(researchId, userId)) {
             throw new ResearchException("研究任务不存在或无权限访问");
         }
 
-        ResearchSession researchSession = researchSessionMapper.selectById(researchId);
+        ResearchSession researchSession = loadSession(researchId);
         if (researchSession == null) {
             throw new ResearchException("研究任务不存在");
         }
@@ -168,13 +245,197 @@ public class ResearchServiceImpl implements ResearchService {
     }
 
     @Override
-    public SendMessageRespDTO sendMessage(Long userId, String researchId, SendMessageReqDTO sendMessageReqDTO) {
-        // CAS 更新状态，幂等处理
-        int affected = researchSessionMapper.casUpdateToQueue(researchId, userId);
-        if (affected == 0) {
-            throw new ResearchException("启动研究异常");
+    public ResearchTimelineRespDTO getResearchTimeline(Long userId, String researchId, Integer afterSeq, Integer limit) {
+        if (!cacheUtil.verifyResearchOwnership(researchId, userId)) {
+            throw new ResearchException("研究任务不存在或无权限访问");
         }
-        
+
+        ResearchSession researchSession = researchSessionMapper.selectById(researchId);
+        if (researchSession == null) {
+            throw new ResearchException("研究任务不存在");
+        }
+
+        int pageSize = limit == null ? DEFAULT_TIMELINE_SIZE : Math.min(Math.max(limit, 1), MAX_TIMELINE_SIZE);
+        int from = afterSeq == null ? 0 : Math.max(afterSeq, 0);
+        // 多取一条判断是否还有下一页
+        List<TimelineSummary> items = timelineProp.readUnified()
+                ? researchTimelineMapper.selectSummaries(researchId, from, pageSize + 1)
+                : chatMessageMapper.selectTimelineSummaries(researchId, from, pageSize + 1);
+        boolean hasMore = items.size() > pageSize;
+        if (hasMore) {
+            items = items.subList(0, pageSize);
+        }
+
+        return ResearchTimelineRespDTO.builder()
+                .id(researchSession.getId())
+                .status(researchSession.getStatus())
+                .items(items)
+                .nextSeq(items.isEmpty() ? from : items.getLast().getSequenceNo())
+                .hasMore(hasMore)
+                .build();
+    }
+
+    @Override
+    public TimelineContentRespDTO getTimelineContent(Long userId, String researchId, String kind, Long id) {
+        return TimelineContentRespDTO.builder()
+                .kind(kind)
+                .id(id)
+                .content(cacheUtil.resolveContent(loadStoredContent(userId, researchId, kind, id)))
+                .build();
+    }
+
+    @Override
+    public StreamingResponseBody streamTimelineContent(Long userId, String researchId, String kind, Long id) {
+        String stored = loadStoredContent(userId, researchId, kind, id);
+        BlobRef ref = BlobRef.parse(stored);
+        if (ref == null) {
+            return out -> {
+                if (stored != null) {
+                    out.write(BlobRef.unescapeInline(stored).getBytes(StandardCharsets.UTF_8));
+                }
+            };
+        }
+        // blob 直接从存储流式写出，不在内存中拼接完整正文
+        return out -> {
+            try (InputStream in = blobStore.open(ref.hash())) {
+                in.transferTo(out);
+            }
+        };
+    }
+
+    /**
+     * 行内存储的正文，可能是 blob 引用
+     */
+    private String loadStoredContent(Long userId, String researchId, String kind, Long id) {
+        if (!"message".equals(kind) && !"event".equals(kind)) {
+            throw new ResearchException("不支持的内容类型: " + kind);
+        }
+        if (!cacheUtil.verifyResearchOwnership(researchId, userId)) {
+            throw new ResearchException("研究任务不存在或无权限访问");
+        }
+
+        // 只取正文一列，并校验归属于该研究
+        String content;
+        if ("message".equals(kind)) {
+            ChatMessage message = chatMessageMapper.selectOne(Wrappers.lambdaQuery(ChatMessage.class)
+                    .select(ChatMessage::getContent)
+                    .eq(ChatMessage::getId, id)
+                    .eq(ChatMessage::getResearchId, researchId));
+            if (message == null) {
+                throw new ResearchException("消息不存在");
+            }
+            content = message.getContent();
+        } else {
+            WorkflowEvent event = workflowEventMapper.selectOne(Wrappers.lambdaQuery(WorkflowEvent.class)
+                    .select(WorkflowEvent::getContent)
+                    .eq(WorkflowEvent::getId, id)
+                    .eq(WorkflowEvent::getResearchId, researchId));
+            if (event == null) {
+                throw new ResearchException("事件不存在");
+            }
+            content = event.getContent();
+        }
+        return content;
+    }
+
+    @Override
+    public ResearchTraceRespDTO getResearchTrace(Long userId, String researchId) {
+        if (!cacheUtil.verifyResearchOwnership(researchId, userId)) {
+            throw new ResearchException("研究任务不存在或无权限访问");
+        }
+
+        ResearchSession researchSession = researchSessionMapper.selectById(researchId);
+        if (researchSession == null) {
+            throw new ResearchException("研究任务不存在");
+        }
+
+        // 按 parentEventId 挂载子节点，父事件缺失的挂到根节点
+        List<WorkflowEvent> spans = workflowEventMapper.selectSpans(researchId);
+        Map<Long, ResearchTraceRespDTO.Node> nodes = new HashMap<>();
+        for (WorkflowEvent span : spans) {
+            nodes.put(span.getId(), toTraceNode(span));
+        }
+        List<ResearchTraceRespDTO.Node> topLevel = new ArrayList<>();
+        for (WorkflowEvent span : spans) {
+            ResearchTraceRespDTO.Node parent = span.getParentEventId() == null
+                    ? null : nodes.get(span.getParentEventId());
+            if (parent == null) {
+                topLevel.add(nodes.get(span.getId()));
+            } else {
+                parent.getChildren().add(nodes.get(span.getId()));
+            }
+        }
+
+        String status = researchSession.getStatus();
+        boolean finished = WorkflowStatus.COMPLETED.equals(status) || WorkflowStatus.FAILED.equals(status);
+        LocalDateTime start = researchSession.getStartTime() != null || topLevel.isEmpty()
+                ? researchSession.getStartTime() : topLevel.getFirst().getStart();
+        ResearchTraceRespDTO.Node root = ResearchTraceRespDTO.Node.builder()
+                .name(researchSession.getTitle() != null ? researchSession.getTitle() : researchId)
+                .type("research")
+                .start(start)
+                .end(finished ? researchSession.getCompleteTime() : null)
+                .inputTokens(researchSession.getTotalInputTokens())
+                .outputTokens(researchSession.getTotalOutputTokens())
+                .children(topLevel)
+                .build();
+        finishTraceNode(root);
+        if (!finished && root.getStart() != null) {
+            // 运行中的研究以当前时间作为根节点结束
+            root.setEnd(LocalDateTime.now());
+            root.setValue(Math.max(root.getValue(), Duration.between(root.getStart(), root.getEnd()).toMillis()));
+            root.setSelfValue(root.getValue() - root.getChildren().stream()
+                    .mapToLong(ResearchTraceRespDTO.Node::getValue).sum());
+        }
+
+        return ResearchTraceRespDTO.builder()
+                .id(researchSession.getId())
+                .status(status)
+                .root(root)
+                .build();
+    }
+
+    private static ResearchTraceRespDTO.Node toTraceNode(WorkflowEvent span) {
+        return ResearchTraceRespDTO.Node.builder()
+                .eventId(span.getId())
+                .name(span.getTitle())
+                .type(span.getType())
+                // 升级前的历史事件没有 start_time，以创建时间代替
+                .start(span.getStartTime() != null ? span.getStartTime() : span.getCreateTime())
+                .end(span.getEndTime())
+                .durationMs(span.getDurationMs())
+                .inputTokens(span.getInputTokens())
+                .outputTokens(span.getOutputTokens())
+                .modelName(span.getModelName())
+                .build();
+    }
+
+    /**
+     * 自底向上计算火焰图宽度，未关闭的事件视为瞬时事件或延伸到最后一个子节点结束
+     */
+    private static void finishTraceNode(ResearchTraceRespDTO.Node node) {
+        long childValue = 0;
+        LocalDateTime childEnd = null;
+        for (ResearchTraceRespDTO.Node child : node.getChildren()) {
+            finishTraceNode(child);
+            childValue += child.getValue();
+            if (child.getEnd() != null && (childEnd == null || child.getEnd().isAfter(childEnd))) {
+                childEnd = child.getEnd();
+            }
+        }
+        if (node.getEnd() == null) {
+            node.setEnd(childEnd != null ? childEnd : node.getStart());
+        }
+        long ownValue = node.getDurationMs() != null
+                ? node.getDurationMs()
+                : node.getStart() == null || node.getEnd() == null
+                        ? 0 : Math.max(0, Duration.between(node.getStart(), node.getEnd()).toMillis());
+        node.setValue(Math.max(ownValue, childValue));
+        node.setSelfValue(node.getValue() - childValue);
+    }
+
+    @Override
+    public SendMessageRespDTO sendMessage(Long userId, String researchId, SendMessageReqDTO sendMessageReqDTO) {
         ResearchSession session = researchSessionMapper.selectById(researchId);
         if (session == null) {
             throw new ResearchException("研究不存在");
@@ -185,6 +446,7 @@ public class ResearchServiceImpl implements ResearchService {
         
         String modelId = session.getModelId();
         String budget = session.getBudget();
+        String title = null;
 
         // 新会话
         if (modelId == null) {
@@ -192,16 +454,33 @@ public class ResearchServiceImpl implements ResearchService {
                 throw new ResearchException("模型不应为空");
             }
             modelId = sendMessageReqDTO.getModelId();
-            String title = sendMessageReqDTO.getContent().length() > 20
+            title = sendMessageReqDTO.getContent().length() > 20
                 ? sendMessageReqDTO.getContent().substring(0, 20)
                 : sendMessageReqDTO.getContent();
             budget = sendMessageReqDTO.getBudget();
             if (budget == null || budget.isBlank()) {
                 budget = "HIGH";
             }
-            researchSessionMapper.setInfoIfNull(researchId, modelId, budget, title);
         }
 
+        // CAS 更新状态，幂等处理；首次发言的模型、预算和标题在同一条 UPDATE 中写入
+        boolean firstMessage = session.getModelId() == null;
+        int affected = researchSessionMapper.casUpdateToQueue(researchId, userId,
+                firstMessage ? modelId : null, firstMessage ? budget : null, title);
+        if (affected == 0) {
+            throw new ResearchException("启动研究异常");
+        }
+        researchListCacheUtil.evict(userId);
+        sessionPoolUtil.consume(userId, researchId);
+        session.setStatus(WorkflowStatus.QUEUE);
+        session.setModelId(modelId);
+        session.setBudget(budget);
+        if (title != null) {
+            session.setTitle(title);
+        }
+        session.setVersion((session.getVersion() == null ? 0 : session.getVersion()) + 1);
+        sessionStateUtil.open(session);
+
         Model model = modelService.getModelById(userId, modelId);
 
         // 注册模型
@@ -212,14 +491,9 @@ public class ResearchServiceImpl implements ResearchService {
         // 保存用户消息
         cacheUtil.saveMessage(researchId, "user", sendMessageReqDTO.getContent());
 
-        // 查询历史消息并转换为 langchain4j ChatMessage
-        LambdaQueryWrapper<ChatMessage> historyQuery = Wrappers.lambdaQuery(ChatMessage.class)
-                .eq(ChatMessage::getResearchId, researchId)
-                .orderByAsc(ChatMessage::getSequenceNo);
-        List<ChatMessage> dbMessages = chatMessageMapper.selectList(historyQuery);
-        
-        List<dev.langchain4j.data.message.ChatMessage> chatHistory =  new ArrayList<>();
-        for (ChatMessage msg : dbMessages) {
+        // 对话历史走增量缓存，未命中时才回源 DB
+        List<dev.langchain4j.data.message.ChatMessage> chatHistory = new ArrayList<>();
+        for (ConversationMessage msg : cacheUtil.getConversation(researchId)) {
             if ("user".equals(msg.getRole())) {
                 chatHistory.add(UserMessage.from(msg.getContent()));
             } else if ("assistant".equals(msg.getRole())) {
@@ -230,6 +504,7 @@ public class ResearchServiceImpl implements ResearchService {
         // 构建 state 并启动研究流程
         DeepResearchState state = DeepResearchState.builder()
                 .researchId(researchId)
+                .userId(userId)
                 .chatHistory(chatHistory)
                 .status(WorkflowStatus.QUEUE)
                 // Budget 配置
@@ -242,12 +517,17 @@ public class ResearchServiceImpl implements ResearchService {
                 .researcherIterations(0)
                 .searchCount(0)
                 .researcherNotes(new ArrayList<>())
-                // Search 阶段
-                .searchResults(new HashMap<>())
-                .searchNotes(new ArrayList<>())
+                // 来源登记
+                .sourceRegistry(new SourceRegistry())
+                // Report 阶段
+                .researchUnits(new ArrayList<>())
+                // 提前终止统计
+                .savedSearchCount(0)
+                .savedConductCount(0)
                 // Token 统计
                 .totalInputTokens(0L)
                 .totalOutputTokens(0L)
+                .tokenLedger(new TokenLedger())
                 .build();
         agentPipeline.run(state);
 
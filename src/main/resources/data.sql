@@ -26,6 +26,7 @@ CREATE TABLE IF NOT EXISTS research_session (
     title           VARCHAR(256)    DEFAULT NULL COMMENT '研究标题',
     total_input_tokens  BIGINT UNSIGNED DEFAULT 0 COMMENT '累计输入Token数',
     total_output_tokens BIGINT UNSIGNED DEFAULT 0 COMMENT '累计输出Token数',
+    version         INT UNSIGNED    NOT NULL DEFAULT 0 COMMENT '乐观锁版本号，每次状态写入递增',
     KEY idx_user_status (user_id, status),
     KEY idx_user_update (user_id, update_time DESC)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='研究会话';
@@ -39,6 +40,10 @@ CREATE TABLE IF NOT EXISTS model (
     model       VARCHAR(128)    NOT NULL COMMENT '模型ID',
     base_url    VARCHAR(256)    NOT NULL COMMENT '接口地址',
     api_key     VARCHAR(256)    DEFAULT NULL COMMENT 'API Key',
+    planner_model    VARCHAR(128) DEFAULT NULL COMMENT '规划/工具路由子模型，为空使用 model',
+    summarizer_model VARCHAR(128) DEFAULT NULL COMMENT '网页摘要子模型，为空使用 model',
+    compressor_model VARCHAR(128) DEFAULT NULL COMMENT '研究压缩子模型，为空使用 summarizer_model',
+    writer_model     VARCHAR(128) DEFAULT NULL COMMENT '报告撰写子模型，为空使用 model',
     create_time DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
     update_time DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
     KEY idx_type_user_create (type, user_id, create_time DESC)
@@ -51,8 +56,16 @@ CREATE TABLE IF NOT EXISTS chat_message (
     research_id     CHAR(32)        NOT NULL COMMENT '研究ID',
     role            VARCHAR(16)     NOT NULL COMMENT '角色: user/assistant',
     content         MEDIUMTEXT      NOT NULL COMMENT '消息内容',
+    content_length  INT UNSIGNED    DEFAULT NULL COMMENT '原文字符数',
+    preview         VARCHAR(120)    DEFAULT NULL COMMENT '原文前 120 字预览',
     sequence_no     INT UNSIGNED    NOT NULL COMMENT '序列号',
     create_time     DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    start_time      DATETIME(3)     DEFAULT NULL COMMENT 'span 开始时间',
+    end_time        DATETIME(3)     DEFAULT NULL COMMENT 'span 结束时间',
+    duration_ms     BIGINT          DEFAULT NULL COMMENT 'span 耗时 (毫秒)',
+    input_tokens    BIGINT          DEFAULT NULL COMMENT '挂在该事件上的 LLM 输入 token',
+    output_tokens   BIGINT          DEFAULT NULL COMMENT '挂在该事件上的 LLM 输出 token',
+    model_name      VARCHAR(256)    DEFAULT NULL COMMENT '挂在该事件上的模型名，多个以逗号分隔',
     KEY idx_research_seq (research_id, sequence_no)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='聊天消息';
 
@@ -64,9 +77,52 @@ CREATE TABLE IF NOT EXISTS workflow_event (
     type            VARCHAR(32)     NOT NULL COMMENT '事件类型',
     title           VARCHAR(512)    NOT NULL COMMENT '事件标题',
     content         MEDIUMTEXT      DEFAULT NULL COMMENT '事件内容',
+    content_length  INT UNSIGNED    DEFAULT NULL COMMENT '原文字符数',
+    preview         VARCHAR(120)    DEFAULT NULL COMMENT '原文前 120 字预览',
     parent_event_id BIGINT UNSIGNED DEFAULT NULL COMMENT '父事件ID (用于层级缩进)',
     sequence_no     INT UNSIGNED    NOT NULL COMMENT '序列号',
     create_time     DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    start_time      DATETIME(3)     DEFAULT NULL COMMENT 'span 开始时间',
+    end_time        DATETIME(3)     DEFAULT NULL COMMENT 'span 结束时间',
+    duration_ms     BIGINT          DEFAULT NULL COMMENT 'span 耗时 (毫秒)',
+    input_tokens    BIGINT          DEFAULT NULL COMMENT '挂在该事件上的 LLM 输入 token',
+    output_tokens   BIGINT          DEFAULT NULL COMMENT '挂在该事件上的 LLM 输出 token',
+    model_name      VARCHAR(256)    DEFAULT NULL COMMENT '挂在该事件上的模型名，多个以逗号分隔',
     KEY idx_research_seq (research_id, sequence_no),
     KEY idx_parent (parent_event_id)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='工作流事件';
+
+-- 研究时间线 (消息与事件合并，按研究顺序追加)
+CREATE TABLE IF NOT EXISTS research_timeline (
+    research_id     CHAR(32)        NOT NULL COMMENT '研究ID',
+    sequence_no     INT UNSIGNED    NOT NULL COMMENT '序列号',
+    kind            VARCHAR(8)      NOT NULL COMMENT 'message/event',
+    item_id         BIGINT UNSIGNED NOT NULL COMMENT 'chat_message.id 或 workflow_event.id',
+    role            VARCHAR(16)     DEFAULT NULL COMMENT '消息角色: user/assistant',
+    type            VARCHAR(32)     DEFAULT NULL COMMENT '事件类型',
+    title           VARCHAR(512)    DEFAULT NULL COMMENT '事件标题',
+    parent_event_id BIGINT UNSIGNED DEFAULT NULL COMMENT '父事件ID',
+    content         MEDIUMTEXT      DEFAULT NULL COMMENT '内容，格式与源表一致',
+    content_length  INT UNSIGNED    DEFAULT NULL COMMENT '原文字符数',
+    preview         VARCHAR(120)    DEFAULT NULL COMMENT '原文前 120 字预览',
+    create_time     DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    start_time      DATETIME(3)     DEFAULT NULL COMMENT 'span 开始时间',
+    end_time        DATETIME(3)     DEFAULT NULL COMMENT 'span 结束时间',
+    duration_ms     BIGINT          DEFAULT NULL COMMENT 'span 耗时 (毫秒)',
+    input_tokens    BIGINT          DEFAULT NULL COMMENT '挂在该事件上的 LLM 输入 token',
+    output_tokens   BIGINT          DEFAULT NULL COMMENT '挂在该事件上的 LLM 输出 token',
+    model_name      VARCHAR(256)    DEFAULT NULL COMMENT '挂在该事件上的模型名，多个以逗号分隔',
+    PRIMARY KEY (research_id, sequence_no)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='研究时间线';
+
+-- 研究 Token 用量 (按阶段和模型)
+CREATE TABLE IF NOT EXISTS research_token_usage (
+    research_id   CHAR(32)        NOT NULL COMMENT '研究ID',
+    stage         VARCHAR(32)     NOT NULL COMMENT '阶段: scope/supervisor/researcher/search-summarize/compress/report',
+    model_name    VARCHAR(128)    NOT NULL COMMENT '模型名',
+    call_count    INT UNSIGNED    NOT NULL DEFAULT 0 COMMENT '调用次数',
+    input_tokens  BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '输入Token数',
+    output_tokens BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '输出Token数',
+    update_time   DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (research_id, stage, model_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='研究Token用量';
@@ -0,0 +1,6 @@
+-- 为已有数据库增加模型角色子模型配置
+ALTER TABLE model
+    ADD COLUMN planner_model    VARCHAR(128) DEFAULT NULL COMMENT '规划/工具路由子模型，为空使用 model' AFTER api_key,
+    ADD COLUMN summarizer_model VARCHAR(128) DEFAULT NULL COMMENT '网页摘要子模型，为空使用 model' AFTER planner_model,
+    ADD COLUMN compressor_model VARCHAR(128) DEFAULT NULL COMMENT '研究压缩子模型，为空使用 summarizer_model' AFTER summarizer_model,
+    ADD COLUMN writer_model     VARCHAR(128) DEFAULT NULL COMMENT '报告撰写子模型，为空使用 model' AFTER compressor_model;
@@ -0,0 +1,8 @@
+-- 为已有数据库的工作流事件增加 span 字段
+ALTER TABLE workflow_event
+    ADD COLUMN start_time    DATETIME(3)  DEFAULT NULL COMMENT 'span 开始时间' AFTER create_time,
+    ADD COLUMN end_time      DATETIME(3)  DEFAULT NULL COMMENT 'span 结束时间' AFTER start_time,
+    ADD COLUMN duration_ms   BIGINT       DEFAULT NULL COMMENT 'span 耗时 (毫秒)' AFTER end_time,
+    ADD COLUMN input_tokens  BIGINT       DEFAULT NULL COMMENT '挂在该事件上的 LLM 输入 token' AFTER duration_ms,
+    ADD COLUMN output_tokens BIGINT       DEFAULT NULL COMMENT '挂在该事件上的 LLM 输出 token' AFTER input_tokens,
+    ADD COLUMN model_name    VARCHAR(256) DEFAULT NULL COMMENT '挂在该事件上的模型名，多个以逗号分隔' AFTER output_tokens;
@@ -0,0 +1,11 @@
+-- 为已有数据库增加按阶段和模型拆分的 Token 用量表
+CREATE TABLE IF NOT EXISTS research_token_usage (
+    research_id   CHAR(32)        NOT NULL COMMENT '研究ID',
+    stage         VARCHAR(32)     NOT NULL COMMENT '阶段: scope/supervisor/researcher/search-summarize/compress/report',
+    model_name    VARCHAR(128)    NOT NULL COMMENT '模型名',
+    call_count    INT UNSIGNED    NOT NULL DEFAULT 0 COMMENT '调用次数',
+    input_tokens  BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '输入Token数',
+    output_tokens BIGINT UNSIGNED NOT NULL DEFAULT 0 COMMENT '输出Token数',
+    update_time   DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (research_id, stage, model_name)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='研究Token用量';
@@ -0,0 +1,3 @@
+-- 为已有数据库的研究会话增加乐观锁版本号
+ALTER TABLE research_session
+    ADD COLUMN version INT UNSIGNED NOT NULL DEFAULT 0 COMMENT '乐观锁版本号，每次状态写入递增' AFTER total_output_tokens;
@@ -0,0 +1,21 @@
+-- 为已有数据库增加合并的时间线表：主键 (research_id, sequence_no) 即聚簇索引，
+-- 按研究读取时间线是一次有序范围扫描，最大序列号是一次索引定位
+CREATE TABLE IF NOT EXISTS research_timeline (
+    research_id     CHAR(32)        NOT NULL COMMENT '研究ID',
+    sequence_no     INT UNSIGNED    NOT NULL COMMENT '序列号',
+    kind            VARCHAR(8)      NOT NULL COMMENT 'message/event',
+    item_id         BIGINT UNSIGNED NOT NULL COMMENT 'chat_message.id 或 workflow_event.id',
+    role            VARCHAR(16)     DEFAULT NULL COMMENT '消息角色: user/assistant',
+    type            VARCHAR(32)     DEFAULT NULL COMMENT '事件类型',
+    title           VARCHAR(512)    DEFAULT NULL COMMENT '事件标题',
+    parent_event_id BIGINT UNSIGNED DEFAULT NULL COMMENT '父事件ID',
+    content         MEDIUMTEXT      DEFAULT NULL COMMENT '内容，格式与源表一致',
+    create_time     DATETIME        NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    start_time      DATETIME(3)     DEFAULT NULL COMMENT 'span 开始时间',
+    end_time        DATETIME(3)     DEFAULT NULL COMMENT 'span 结束时间',
+    duration_ms     BIGINT          DEFAULT NULL COMMENT 'span 耗时 (毫秒)',
+    input_tokens    BIGINT          DEFAULT NULL COMMENT '挂在该事件上的 LLM 输入 token',
+    output_tokens   BIGINT          DEFAULT NULL COMMENT '挂在该事件上的 LLM 输出 token',
+    model_name      VARCHAR(256)    DEFAULT NULL COMMENT '挂在该事件上的模型名，多个以逗号分隔',
+    PRIMARY KEY (research_id, sequence_no)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='研究时间线';
@@ -0,0 +1,13 @@
+-- 回填 research_timeline：先以 timeline.storage=dual 部署，使新写入同时进入新表，再执行本脚本。
+-- INSERT IGNORE 跳过双写期间已存在的行，可重复执行；完成后切换为 timeline.storage=unified
+INSERT IGNORE INTO research_timeline
+    (research_id, sequence_no, kind, item_id, role, type, title, parent_event_id, content, create_time)
+SELECT research_id, sequence_no, 'message', id, role, NULL, NULL, NULL, content, create_time
+FROM chat_message;
+
+INSERT IGNORE INTO research_timeline
+    (research_id, sequence_no, kind, item_id, role, type, title, parent_event_id, content, create_time,
+     start_time, end_time, duration_ms, input_tokens, output_tokens, model_name)
+SELECT research_id, sequence_no, 'event', id, NULL, type, title, parent_event_id, content, create_time,
+       start_time, end_time, duration_ms, input_tokens, output_tokens, model_name
+FROM workflow_event;
@@ -0,0 +1,41 @@
+-- 为消息、事件和合并时间线增加正文长度与预览列，摘要分页直接读取，不再在库内解压正文。
+-- 回填只在本次迁移中解压；blob 引用的长度取自引用本身，预览留空。
+-- 仅处理 content_length 为空的行，可重复执行（例如在 006 回填之后再次执行）
+ALTER TABLE chat_message
+    ADD COLUMN content_length INT UNSIGNED DEFAULT NULL COMMENT '原文字符数' AFTER content,
+    ADD COLUMN preview VARCHAR(120) DEFAULT NULL COMMENT '原文前 120 字预览' AFTER content_length;
+
+ALTER TABLE workflow_event
+    ADD COLUMN content_length INT UNSIGNED DEFAULT NULL COMMENT '原文字符数' AFTER content,
+    ADD COLUMN preview VARCHAR(120) DEFAULT NULL COMMENT '原文前 120 字预览' AFTER content_length;
+
+ALTER TABLE research_timeline
+    ADD COLUMN content_length INT UNSIGNED DEFAULT NULL COMMENT '原文字符数' AFTER content,
+    ADD COLUMN preview VARCHAR(120) DEFAULT NULL COMMENT '原文前 120 字预览' AFTER content_length;
+
+UPDATE chat_message
+SET preview = CASE WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'DFL1:') THEN LEFT(CONVERT(UNCOMPRESS(FROM_BASE64(SUBSTRING(content, 7))) USING utf8mb4), 120)
+                   WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'BLOB:') THEN NULL
+                   ELSE LEFT(content, 120) END,
+    content_length = CASE WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'DFL1:') THEN CHAR_LENGTH(CONVERT(UNCOMPRESS(FROM_BASE64(SUBSTRING(content, 7))) USING utf8mb4))
+                          WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'BLOB:') THEN CAST(SUBSTRING_INDEX(content, ':', -1) AS UNSIGNED)
+                          ELSE COALESCE(CHAR_LENGTH(content), 0) END
+WHERE content_length IS NULL;
+
+UPDATE workflow_event
+SET preview = CASE WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'DFL1:') THEN LEFT(CONVERT(UNCOMPRESS(FROM_BASE64(SUBSTRING(content, 7))) USING utf8mb4), 120)
+                   WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'BLOB:') THEN NULL
+                   ELSE LEFT(content, 120) END,
+    content_length = CASE WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'DFL1:') THEN CHAR_LENGTH(CONVERT(UNCOMPRESS(FROM_BASE64(SUBSTRING(content, 7))) USING utf8mb4))
+                          WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'BLOB:') THEN CAST(SUBSTRING_INDEX(content, ':', -1) AS UNSIGNED)
+                          ELSE COALESCE(CHAR_LENGTH(content), 0) END
+WHERE content_length IS NULL;
+
+UPDATE research_timeline
+SET preview = CASE WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'DFL1:') THEN LEFT(CONVERT(UNCOMPRESS(FROM_BASE64(SUBSTRING(content, 7))) USING utf8mb4), 120)
+                   WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'BLOB:') THEN NULL
+                   ELSE LEFT(content, 120) END,
+    content_length = CASE WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'DFL1:') THEN CHAR_LENGTH(CONVERT(UNCOMPRESS(FROM_BASE64(SUBSTRING(content, 7))) USING utf8mb4))
+                          WHEN LEFT(content, 6) = CONCAT(CHAR(1 USING utf8mb4), 'BLOB:') THEN CAST(SUBSTRING_INDEX(content, ':', -1) AS UNSIGNED)
+                          ELSE COALESCE(CHAR_LENGTH(content), 0) END
+WHERE content_length IS NULL;
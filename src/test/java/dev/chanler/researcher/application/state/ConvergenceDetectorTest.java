@@ -0,0 +1,97 @@
+package dev.chanler.researcher.application.state;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: Chanler
+ */
+class ConvergenceDetectorTest {
+
+    private static final String FIRST = "Solid state batteries replace the liquid electrolyte with a ceramic or polymer layer";
+    private static final String SECOND = "Sodium ion cells trade energy density for cheaper and more abundant raw materials";
+
+    @Test
+    void firstRoundIsFullyNovel() {
+        ConvergenceDetector detector = new ConvergenceDetector(0.2, 1);
+
+        assertEquals(1.0, detector.observe(List.of("https://a.example"), FIRST), 1e-9);
+        assertFalse(detector.converged());
+    }
+
+    @Test
+    void repeatedRoundConvergesAfterPatience() {
+        ConvergenceDetector detector = new ConvergenceDetector(0.2, 2);
+        detector.observe(List.of("https://a.example"), FIRST);
+
+        assertEquals(0.0, detector.observe(List.of("https://a.example"), FIRST), 1e-9);
+        assertFalse(detector.converged());
+        detector.observe(List.of("https://a.example"), FIRST);
+        assertTrue(detector.converged());
+    }
+
+    @Test
+    void novelRoundResetsStaleCount() {
+        ConvergenceDetector detector = new ConvergenceDetector(0.2, 2);
+        detector.observe(List.of("https://a.example"), FIRST);
+        detector.observe(List.of("https://a.example"), FIRST);
+
+        detector.observe(List.of("https://b.example"), SECOND);
+        detector.observe(List.of("https://b.example"), SECOND);
+
+        assertFalse(detector.converged());
+    }
+
+    @Test
+    void zeroPatienceNeverConverges() {
+        ConvergenceDetector detector = new ConvergenceDetector(0.2, 0);
+        detector.observeNothing();
+        detector.observeNothing();
+
+        assertFalse(detector.converged());
+        assertEquals(0.0, detector.getLastNovelty(), 1e-9);
+    }
+
+    @Test
+    void weighsUrlAndTextNoveltyEqually() {
+        ConvergenceDetector detector = new ConvergenceDetector(0.2, 1);
+        detector.markSeen(List.of("https://a.example"));
+
+        // 一半 URL 已知，文本全新: 0.5 * 0.5 + 0.5 * 1
+        assertEquals(0.75, detector.observe(List.of("https://a.example", "https://b.example"), FIRST), 1e-9);
+    }
+
+    @Test
+    void partialTextOverlapIsProportional() {
+        ConvergenceDetector detector = new ConvergenceDetector(0.2, 1);
+        detector.observe(List.of(), FIRST);
+
+        double novelty = detector.observe(List.of(), FIRST + " " + SECOND);
+
+        assertTrue(novelty > 0.3 && novelty < 0.7, "novelty=" + novelty);
+    }
+
+    @Test
+    void extractsUrlsFromText() {
+        ConvergenceDetector detector = new ConvergenceDetector(0.2, 1);
+        detector.observe("see https://a.example/page for details. " + FIRST);
+
+        // 文本相同，URL 已在上一轮出现
+        assertEquals(0.0, detector.observe("see https://a.example/page for details. " + FIRST), 1e-9);
+        assertTrue(detector.converged());
+    }
+
+    @Test
+    void shinglesHanCharactersIndividually() {
+        ConvergenceDetector detector = new ConvergenceDetector(0.2, 1);
+        detector.observe(List.of(), "固态电池使用陶瓷电解质");
+
+        assertEquals(0.0, detector.observe(List.of(), "固态电池使用陶瓷电解质"), 1e-9);
+        assertTrue(detector.observe(List.of(), "钠离子电池成本更低") > 0.9);
+    }
+}
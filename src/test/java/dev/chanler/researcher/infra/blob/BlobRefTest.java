@@ -0,0 +1,71 @@
+package dev.chanler.researcher.infra.blob;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.InputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * @author: Chanler
+ */
+class BlobRefTest {
+
+    private static final String HASH = "ab".repeat(32);
+
+    @Test
+    void roundTripsReference() {
+        BlobRef ref = BlobRef.parse(new BlobRef(HASH, 20000).toString());
+
+        assertEquals(new BlobRef(HASH, 20000), ref);
+    }
+
+    @Test
+    void treatsMalformedReferenceAsText() {
+        assertNull(BlobRef.parse(BlobRef.PREFIX + "../../etc/passwd:1"));
+        assertNull(BlobRef.parse(BlobRef.PREFIX + HASH));
+        assertNull(BlobRef.parse(BlobRef.PREFIX + HASH + ":abc"));
+        assertNull(BlobRef.parse(BlobRef.PREFIX + HASH + ":99999999999"));
+        assertNull(BlobRef.parse("plain text"));
+    }
+
+    @Test
+    void inlineTextLookingLikeReferenceIsNotResolved() {
+        String spoofed = new BlobRef(HASH, 10).toString();
+        String stored = BlobRef.escapeInline(spoofed);
+
+        assertNull(BlobRef.parse(stored));
+        assertEquals(spoofed, failingStore().resolve(stored));
+    }
+
+    @Test
+    void leavesOrdinaryTextUnescaped() {
+        String text = "普通文本 plain text";
+
+        assertSame(text, BlobRef.escapeInline(text));
+        assertSame(text, BlobRef.unescapeInline(text));
+        assertNull(BlobRef.escapeInline(null));
+    }
+
+    // 任何读取都视为失败，确保转义后的文本不会触发 blob 读取
+    private static BlobStore failingStore() {
+        return new BlobStore() {
+            @Override
+            public String put(String content) {
+                throw new AssertionError("unexpected put");
+            }
+
+            @Override
+            public String read(String hash) {
+                throw new AssertionError("unexpected read " + hash);
+            }
+
+            @Override
+            public InputStream open(String hash) {
+                throw new AssertionError("unexpected open " + hash);
+            }
+        };
+    }
+}
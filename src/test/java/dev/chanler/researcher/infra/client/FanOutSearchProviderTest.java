@@ -0,0 +1,67 @@
+package dev.chanler.researcher.infra.client;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: Chanler
+ */
+class FanOutSearchProviderTest {
+
+    @Test
+    void interleavesRankingsByPosition() {
+        List<SearchProvider.SearchResult> merged = FanOutSearchProvider.merge(List.of(
+                List.of(result("a1"), result("a2"), result("a3")),
+                List.of(result("b1"))), 10);
+
+        assertEquals(List.of("a1", "b1", "a2", "a3"), urls(merged));
+    }
+
+    @Test
+    void keepsFirstOccurrenceOfDuplicateUrl() {
+        SearchProvider.SearchResult fromFirst = result("shared");
+        List<SearchProvider.SearchResult> merged = FanOutSearchProvider.merge(List.of(
+                List.of(fromFirst, result("a2")),
+                List.of(result("shared"), result("b2"))), 10);
+
+        assertEquals(List.of("shared", "a2", "b2"), urls(merged));
+        assertSame(fromFirst, merged.get(0));
+    }
+
+    @Test
+    void stopsAtMaxResults() {
+        List<SearchProvider.SearchResult> merged = FanOutSearchProvider.merge(List.of(
+                List.of(result("a1"), result("a2")),
+                List.of(result("b1"), result("b2"))), 3);
+
+        assertEquals(List.of("a1", "b1", "a2"), urls(merged));
+    }
+
+    @Test
+    void skipsResultsWithoutUrl() {
+        List<SearchProvider.SearchResult> merged = FanOutSearchProvider.merge(List.of(
+                List.of(result(null), result("a2")),
+                List.of(result("b1"))), 10);
+
+        assertEquals(List.of("b1", "a2"), urls(merged));
+    }
+
+    @Test
+    void handlesEmptyRankings() {
+        assertTrue(FanOutSearchProvider.merge(List.of(), 5).isEmpty());
+        assertTrue(FanOutSearchProvider.merge(List.of(List.of(), List.of()), 5).isEmpty());
+    }
+
+    private static SearchProvider.SearchResult result(String url) {
+        return new SearchProvider.SearchResult(url, "title " + url, "content " + url, null, null);
+    }
+
+    private static List<String> urls(List<SearchProvider.SearchResult> results) {
+        return results.stream().map(SearchProvider.SearchResult::url).toList();
+    }
+}
@@ -0,0 +1,116 @@
+package dev.chanler.researcher.infra.client;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.chanler.researcher.infra.config.SearchProp;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: Chanler
+ */
+class LocalSearchProviderTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void tokenizesLatinWordsAndHanBigrams() {
+        assertEquals(List.of("deep", "research", "深度", "度研", "研究"),
+                LocalSearchProvider.tokenize("Deep research 深度研究"));
+        assertEquals(List.of("电", "bm25"), LocalSearchProvider.tokenize("电 BM25"));
+        assertTrue(LocalSearchProvider.tokenize(null).isEmpty());
+    }
+
+    @Test
+    void ranksByTermFrequencyAndSkipsUnmatchedDocuments() throws IOException {
+        LocalSearchProvider provider = provider(
+                doc("https://a.example", "Battery chemistry", "lithium battery overview"),
+                doc("https://b.example", "Battery battery", "battery battery battery cells"),
+                doc("https://c.example", "Weather", "rain and wind forecast"));
+
+        List<SearchProvider.SearchResult> results = provider.search("battery", 10, "general", false).results();
+
+        assertEquals(List.of("https://b.example", "https://a.example"),
+                results.stream().map(SearchProvider.SearchResult::url).toList());
+        assertTrue(results.get(0).score() > results.get(1).score());
+    }
+
+    @Test
+    void rareTermsWeighMoreThanCommonOnes() throws IOException {
+        LocalSearchProvider provider = provider(
+                doc("https://a.example", "Battery", "battery market"),
+                doc("https://b.example", "Battery", "battery solid electrolyte"),
+                doc("https://c.example", "Battery", "battery recycling"));
+
+        List<SearchProvider.SearchResult> results = provider.search("battery electrolyte", 1, "general", false).results();
+
+        assertEquals("https://b.example", results.get(0).url());
+    }
+
+    @Test
+    void breaksTiesByCorpusOrder() throws IOException {
+        LocalSearchProvider provider = provider(
+                doc("https://first.example", "Same", "identical text"),
+                doc("https://second.example", "Same", "identical text"));
+
+        List<SearchProvider.SearchResult> results = provider.search("identical", 10, "general", false).results();
+
+        assertEquals(List.of("https://first.example", "https://second.example"),
+                results.stream().map(SearchProvider.SearchResult::url).toList());
+    }
+
+    @Test
+    void honoursMaxResultsAndRawContentFlag() throws IOException {
+        LocalSearchProvider provider = provider(
+                "{\"url\":\"https://a.example\",\"title\":\"Solar\",\"content\":\"solar panel\",\"raw_content\":\"solar panel full text\"}",
+                doc("https://b.example", "Solar", "solar farm"));
+
+        assertEquals(1, provider.search("solar", 1, "general", false).results().size());
+        assertNull(provider.search("panel", 1, "general", false).results().get(0).rawContent());
+        assertEquals("solar panel full text", provider.search("panel", 1, "general", true).results().get(0).rawContent());
+    }
+
+    @Test
+    void doesNotIndexMissingFieldsAsNull() throws IOException {
+        LocalSearchProvider provider = provider(
+                "{\"url\":\"https://untitled.example\",\"content\":\"wind turbine\"}",
+                "{\"url\":\"https://empty.example\",\"title\":\"Wind\"}");
+
+        assertTrue(provider.search("null", 5, "general", false).results().isEmpty());
+        assertEquals(List.of("https://empty.example", "https://untitled.example"),
+                provider.search("wind", 5, "general", false).results().stream()
+                        .map(SearchProvider.SearchResult::url).toList());
+    }
+
+    @Test
+    void returnsEmptyWithoutCorpus() {
+        LocalSearchProvider provider = new LocalSearchProvider(new SearchProp(), new ObjectMapper());
+        provider.init();
+
+        assertTrue(provider.search("anything", 5, "general", false).results().isEmpty());
+    }
+
+    private LocalSearchProvider provider(String... lines) throws IOException {
+        Path corpus = tempDir.resolve("corpus.jsonl");
+        Files.write(corpus, List.of(lines), StandardCharsets.UTF_8);
+        SearchProp searchProp = new SearchProp();
+        searchProp.getLocal().setCorpusPath(corpus.toString());
+        LocalSearchProvider provider = new LocalSearchProvider(searchProp, new ObjectMapper());
+        provider.init();
+        return provider;
+    }
+
+    private static String doc(String url, String title, String content) {
+        return "{\"url\":\"" + url + "\",\"title\":\"" + title + "\",\"content\":\"" + content + "\"}";
+    }
+}
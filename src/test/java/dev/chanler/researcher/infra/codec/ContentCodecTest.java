@@ -0,0 +1,161 @@
+package dev.chanler.researcher.infra.codec;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: Chanler
+ */
+class ContentCodecTest {
+
+    private static final String LARGE_TEXT = "深度研究报告 deep research report\n".repeat(400);
+
+    @Test
+    void roundTripsLargeText() {
+        String encoded = ContentCodec.encode(LARGE_TEXT, ContentCodec.TARGET_DB);
+
+        assertTrue(ContentCodec.isEncoded(encoded));
+        assertTrue(encoded.length() < LARGE_TEXT.length());
+        assertEquals(LARGE_TEXT, ContentCodec.decode(encoded, ContentCodec.TARGET_DB));
+    }
+
+    @Test
+    void keepsShortTextUnchanged() {
+        String text = "short".repeat(10);
+
+        assertSame(text, ContentCodec.encode(text, ContentCodec.TARGET_REDIS));
+        assertNull(ContentCodec.encode(null, ContentCodec.TARGET_REDIS));
+    }
+
+    @Test
+    void keepsIncompressibleTextUnchanged() {
+        // 随机可见 ASCII 压缩率有限，压缩后再经 base64 膨胀反而更长
+        Random random = new Random(42);
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < ContentCodec.THRESHOLD_CHARS * 2; i++) {
+            builder.append((char) ('!' + random.nextInt(94)));
+        }
+        String text = builder.toString();
+
+        assertSame(text, ContentCodec.encode(text, ContentCodec.TARGET_DB));
+    }
+
+    @Test
+    void passesLegacyPlainTextThroughOnDecode() {
+        String legacy = "旧数据未压缩 plain row content";
+
+        assertSame(legacy, ContentCodec.decode(legacy, ContentCodec.TARGET_DB));
+        assertNull(ContentCodec.decode(null, ContentCodec.TARGET_DB));
+    }
+
+    @Test
+    void escapesPlainTextThatLooksEncoded() {
+        String spoofed = ContentCodec.PREFIX + "not base64 at all";
+        String stored = ContentCodec.encode(spoofed, ContentCodec.TARGET_DB);
+
+        assertNotEquals(spoofed, stored);
+        assertEquals(spoofed, ContentCodec.decode(stored, ContentCodec.TARGET_DB));
+        String blobLike = "\u0001BLOB:" + "0".repeat(64) + ":10";
+        assertEquals(blobLike, ContentCodec.decode(ContentCodec.encode(blobLike, ContentCodec.TARGET_DB),
+                ContentCodec.TARGET_DB));
+    }
+
+    @Test
+    void reEncodingAnEncodedValueRoundTrips() {
+        String encoded = ContentCodec.encode(LARGE_TEXT, ContentCodec.TARGET_DB);
+
+        assertEquals(encoded, ContentCodec.decode(ContentCodec.encode(encoded, ContentCodec.TARGET_DB),
+                ContentCodec.TARGET_DB));
+    }
+
+    @Test
+    void usesMysqlCompressLayout() throws Exception {
+        String encoded = ContentCodec.encode(LARGE_TEXT, ContentCodec.TARGET_DB);
+        byte[] raw = LARGE_TEXT.getBytes(StandardCharsets.UTF_8);
+
+        assertTrue(encoded.startsWith(ContentCodec.PREFIX));
+        byte[] payload = Base64.getDecoder().decode(encoded.substring(ContentCodec.PREFIX.length()));
+        // 前 4 字节为小端序的原文字节数，其后是完整的 zlib 流
+        int length = ByteBuffer.wrap(payload, 0, 4).order(ByteOrder.LITTLE_ENDIAN).getInt();
+        assertEquals(raw.length, length);
+        assertEquals(0x78, payload[4] & 0xff);
+
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(Arrays.copyOfRange(payload, 4, payload.length));
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            while (!inflater.finished()) {
+                out.write(buffer, 0, inflater.inflate(buffer));
+            }
+            assertArrayEquals(raw, out.toByteArray());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    @Test
+    void decodesValueProducedByMysqlLayout() {
+        byte[] raw = LARGE_TEXT.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater();
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            out.writeBytes(ByteBuffer.allocate(4).order(ByteOrder.LITTLE_ENDIAN).putInt(raw.length).array());
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+            }
+        } finally {
+            deflater.end();
+        }
+        String value = ContentCodec.PREFIX + Base64.getEncoder().encodeToString(out.toByteArray());
+
+        assertEquals(LARGE_TEXT, ContentCodec.decode(value, ContentCodec.TARGET_REDIS));
+    }
+
+    @Test
+    void returnsRawValueWhenPayloadIsCorrupt() {
+        byte[] payload = new byte[16];
+        ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).putInt(100);
+        Arrays.fill(payload, 4, payload.length, (byte) 0x7f);
+        String corrupt = ContentCodec.PREFIX + Base64.getEncoder().encodeToString(payload);
+
+        assertEquals(corrupt, ContentCodec.decode(corrupt, ContentCodec.TARGET_DB));
+    }
+
+    @Test
+    void returnsRawValueForMalformedHeaders() {
+        String notBase64 = ContentCodec.PREFIX + "%%%";
+        String tooShort = ContentCodec.PREFIX + Base64.getEncoder().encodeToString(new byte[]{1, 2});
+        String negative = ContentCodec.PREFIX + Base64.getEncoder().encodeToString(header(-1));
+        String huge = ContentCodec.PREFIX + Base64.getEncoder().encodeToString(header(Integer.MAX_VALUE - 8));
+
+        for (String value : new String[]{notBase64, tooShort, negative, huge}) {
+            assertEquals(value, ContentCodec.decode(value, ContentCodec.TARGET_DB));
+        }
+    }
+
+    private static byte[] header(int length) {
+        byte[] payload = new byte[8];
+        ByteBuffer.wrap(payload).order(ByteOrder.LITTLE_ENDIAN).putInt(length);
+        return payload;
+    }
+}
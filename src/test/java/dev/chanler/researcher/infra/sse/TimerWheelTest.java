@@ -0,0 +1,106 @@
+package dev.chanler.researcher.infra.sse;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * @author: Chanler
+ */
+class TimerWheelTest {
+
+    private static final long TICK_MS = 10;
+    // 8 个槽位，一圈 80ms，便于覆盖多圈的情况
+    private static final int WHEEL_SIZE = 8;
+
+    private TimerWheel wheel;
+
+    @BeforeEach
+    void setUp() {
+        wheel = new TimerWheel("timer-wheel-test", TICK_MS, WHEEL_SIZE);
+    }
+
+    @AfterEach
+    void tearDown() {
+        wheel.close();
+    }
+
+    @Test
+    void runsTaskAfterDelay() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong elapsedMs = new AtomicLong();
+        long start = System.nanoTime();
+
+        wheel.schedule(() -> {
+            elapsedMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            fired.countDown();
+        }, 50);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(elapsedMs.get() >= 50 - TICK_MS, "elapsed=" + elapsedMs.get());
+    }
+
+    @Test
+    void runsTaskLongerThanOneRotation() throws InterruptedException {
+        CountDownLatch fired = new CountDownLatch(1);
+        AtomicLong elapsedMs = new AtomicLong();
+        long start = System.nanoTime();
+
+        wheel.schedule(() -> {
+            elapsedMs.set(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+            fired.countDown();
+        }, 250);
+
+        assertTrue(fired.await(2, TimeUnit.SECONDS));
+        assertTrue(elapsedMs.get() >= 250 - TICK_MS, "elapsed=" + elapsedMs.get());
+    }
+
+    @Test
+    void skipsCancelledTask() throws InterruptedException {
+        AtomicBoolean ran = new AtomicBoolean();
+        CountDownLatch later = new CountDownLatch(1);
+
+        TimerWheel.Timeout timeout = wheel.schedule(() -> ran.set(true), 50);
+        timeout.cancel();
+        wheel.schedule(later::countDown, 150);
+
+        assertTrue(later.await(2, TimeUnit.SECONDS));
+        assertFalse(ran.get());
+    }
+
+    @Test
+    void slowTaskDoesNotDelayOthers() throws InterruptedException {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch fired = new CountDownLatch(1);
+
+        wheel.schedule(() -> {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }, 10);
+        wheel.schedule(fired::countDown, 60);
+
+        try {
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+        } finally {
+            release.countDown();
+        }
+    }
+
+    @Test
+    void rejectsWheelSizeThatIsNotPowerOfTwo() {
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel("invalid", TICK_MS, 6));
+        assertThrows(IllegalArgumentException.class, () -> new TimerWheel("invalid", 0, 8));
+    }
+}
@@ -0,0 +1,206 @@
+package dev.chanler.researcher.interfaces.service.impl;
+
+import cn.hutool.core.codec.Base64;
+import com.baomidou.mybatisplus.core.MybatisConfiguration;
+import com.baomidou.mybatisplus.core.metadata.TableInfoHelper;
+import dev.chanler.researcher.domain.entity.ChatMessage;
+import dev.chanler.researcher.domain.entity.ResearchSession;
+import dev.chanler.researcher.domain.entity.WorkflowEvent;
+import dev.chanler.researcher.domain.mapper.ChatMessageMapper;
+import dev.chanler.researcher.domain.mapper.ResearchSessionMapper;
+import dev.chanler.researcher.domain.mapper.ResearchTimelineMapper;
+import dev.chanler.researcher.domain.mapper.WorkflowEventMapper;
+import dev.chanler.researcher.infra.config.TimelineProp;
+import dev.chanler.researcher.infra.data.TimelineSummary;
+import dev.chanler.researcher.infra.exception.ResearchException;
+import dev.chanler.researcher.infra.util.CacheUtil;
+import dev.chanler.researcher.interfaces.dto.resp.ResearchTimelineRespDTO;
+import org.apache.ibatis.builder.MapperBuilderAssistant;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+/**
+ * @author: Chanler
+ */
+class ResearchServiceImplTest {
+
+    private static final String RESEARCH_ID = "0f8e4c2a9b7d4e1f8a6c3b5d7e9f1a2b";
+    private static final Long USER_ID = 7L;
+
+    private final ResearchSessionMapper researchSessionMapper = mock(ResearchSessionMapper.class);
+    private final ChatMessageMapper chatMessageMapper = mock(ChatMessageMapper.class);
+    private final WorkflowEventMapper workflowEventMapper = mock(WorkflowEventMapper.class);
+    private final ResearchTimelineMapper researchTimelineMapper = mock(ResearchTimelineMapper.class);
+    private final CacheUtil cacheUtil = mock(CacheUtil.class);
+    private final TimelineProp timelineProp = new TimelineProp();
+
+    // 查询中的 lambda 列名依赖实体元数据，脱离 Spring 时手动初始化
+    @BeforeAll
+    static void initTableInfo() {
+        MapperBuilderAssistant assistant = new MapperBuilderAssistant(new MybatisConfiguration(), "");
+        TableInfoHelper.initTableInfo(assistant, ChatMessage.class);
+        TableInfoHelper.initTableInfo(assistant, WorkflowEvent.class);
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        LocalDateTime updateTime = LocalDateTime.of(2025, 3, 14, 9, 26, 53, 589_000_000);
+
+        ResearchServiceImpl.PageCursor cursor = ResearchServiceImpl.decodeCursor(
+                ResearchServiceImpl.encodeCursor(updateTime, RESEARCH_ID));
+
+        assertEquals(updateTime, cursor.updateTime());
+        assertEquals(RESEARCH_ID, cursor.id());
+    }
+
+    @Test
+    void cursorRoundTripsWholeSeconds() {
+        LocalDateTime updateTime = LocalDateTime.of(2025, 1, 1, 0, 0);
+
+        ResearchServiceImpl.PageCursor cursor = ResearchServiceImpl.decodeCursor(
+                ResearchServiceImpl.encodeCursor(updateTime, RESEARCH_ID));
+
+        assertEquals(updateTime, cursor.updateTime());
+    }
+
+    @Test
+    void cursorIsUrlSafe() {
+        // 选取编码后会出现 '+' '/' 的输入
+        String cursor = ResearchServiceImpl.encodeCursor(LocalDateTime.of(2025, 12, 31, 23, 59, 59), "~~~???>>>");
+
+        assertFalse(cursor.contains("+") || cursor.contains("/"), cursor);
+        assertEquals("~~~???>>>", ResearchServiceImpl.decodeCursor(cursor).id());
+    }
+
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertNull(ResearchServiceImpl.decodeCursor(null));
+        assertNull(ResearchServiceImpl.decodeCursor(" "));
+    }
+
+    @Test
+    void rejectsMalformedCursor() {
+        assertThrows(ResearchException.class, () -> ResearchServiceImpl.decodeCursor("not-a-cursor"));
+        assertThrows(ResearchException.class,
+                () -> ResearchServiceImpl.decodeCursor(Base64.encodeUrlSafe("2025-01-01T00:00")));
+        assertThrows(ResearchException.class,
+                () -> ResearchServiceImpl.decodeCursor(Base64.encodeUrlSafe("yesterday|" + RESEARCH_ID)));
+    }
+
+    @Test
+    void timelinePageReturnsSummariesWithoutLoadingContent() {
+        ResearchServiceImpl service = service(true);
+        when(chatMessageMapper.selectTimelineSummaries(RESEARCH_ID, 4, 3)).thenReturn(summaries(5, 3));
+
+        ResearchTimelineRespDTO page = service.getResearchTimeline(USER_ID, RESEARCH_ID, 4, 2);
+
+        assertEquals(List.of(5, 6), page.getItems().stream().map(TimelineSummary::getSequenceNo).toList());
+        assertEquals(6, page.getNextSeq());
+        assertTrue(page.getHasMore());
+        verify(chatMessageMapper, never()).selectList(any());
+        verifyNoInteractions(workflowEventMapper, researchTimelineMapper);
+    }
+
+    @Test
+    void lastTimelinePageKeepsCursorWhenEmpty() {
+        ResearchServiceImpl service = service(true);
+        when(chatMessageMapper.selectTimelineSummaries(RESEARCH_ID, 9, 51)).thenReturn(List.of());
+
+        ResearchTimelineRespDTO page = service.getResearchTimeline(USER_ID, RESEARCH_ID, 9, null);
+
+        assertTrue(page.getItems().isEmpty());
+        assertEquals(9, page.getNextSeq());
+        assertFalse(page.getHasMore());
+    }
+
+    @Test
+    void unifiedTimelinePageReadsFusedTable() {
+        timelineProp.setStorage(TimelineProp.UNIFIED);
+        ResearchServiceImpl service = service(true);
+        when(researchTimelineMapper.selectSummaries(RESEARCH_ID, 0, 11)).thenReturn(summaries(1, 2));
+
+        ResearchTimelineRespDTO page = service.getResearchTimeline(USER_ID, RESEARCH_ID, -3, 10);
+
+        assertEquals(2, page.getItems().size());
+        assertFalse(page.getHasMore());
+        verify(chatMessageMapper, never()).selectTimelineSummaries(anyString(), anyInt(), anyInt());
+    }
+
+    @Test
+    void loadsContentOfOneMessageOnDemand() {
+        ResearchServiceImpl service = service(true);
+        when(chatMessageMapper.selectOne(any())).thenReturn(ChatMessage.builder().content("stored").build());
+        when(cacheUtil.resolveContent("stored")).thenReturn("full report");
+
+        assertEquals("full report", service.getTimelineContent(USER_ID, RESEARCH_ID, "message", 11L).getContent());
+        verifyNoInteractions(workflowEventMapper);
+    }
+
+    @Test
+    void loadsContentOfOneEventOnDemand() {
+        ResearchServiceImpl service = service(true);
+        when(workflowEventMapper.selectOne(any())).thenReturn(WorkflowEvent.builder().content("event body").build());
+        when(cacheUtil.resolveContent("event body")).thenReturn("event body");
+
+        assertEquals("event body", service.getTimelineContent(USER_ID, RESEARCH_ID, "event", 12L).getContent());
+    }
+
+    @Test
+    void rejectsUnknownContentKind() {
+        ResearchServiceImpl service = service(true);
+
+        assertThrows(ResearchException.class,
+                () -> service.getTimelineContent(USER_ID, RESEARCH_ID, "session", 1L));
+        assertThrows(ResearchException.class,
+                () -> service.streamTimelineContent(USER_ID, RESEARCH_ID, null, 1L));
+        verifyNoInteractions(chatMessageMapper, workflowEventMapper);
+    }
+
+    @Test
+    void rejectsMissingOrForeignContent() {
+        ResearchServiceImpl foreign = service(false);
+        assertThrows(ResearchException.class, () -> foreign.getResearchTimeline(USER_ID, RESEARCH_ID, 0, 10));
+        assertThrows(ResearchException.class, () -> foreign.getTimelineContent(USER_ID, RESEARCH_ID, "message", 1L));
+
+        ResearchServiceImpl owner = service(true);
+        assertThrows(ResearchException.class, () -> owner.getTimelineContent(USER_ID, RESEARCH_ID, "event", 404L));
+    }
+
+    private ResearchServiceImpl service(boolean owner) {
+        when(cacheUtil.verifyResearchOwnership(RESEARCH_ID, USER_ID)).thenReturn(owner);
+        when(researchSessionMapper.selectById(RESEARCH_ID))
+                .thenReturn(ResearchSession.builder().id(RESEARCH_ID).status("COMPLETED").build());
+        return new ResearchServiceImpl(researchSessionMapper, chatMessageMapper, workflowEventMapper,
+                researchTimelineMapper, null, null, cacheUtil, null, null, null, null, null, null, null, timelineProp);
+    }
+
+    private static List<TimelineSummary> summaries(int fromSeq, int count) {
+        return IntStream.range(fromSeq, fromSeq + count)
+                .mapToObj(seq -> TimelineSummary.builder()
+                        .kind("event")
+                        .id((long) seq)
+                        .sequenceNo(seq)
+                        .contentLength(2048)
+                        .preview("preview " + seq)
+                        .build())
+                .toList();
+    }
+}